@@ -1,15 +1,105 @@
 package com.stagetwo.config;
 
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
-import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Configuration
+@EnableConfigurationProperties({UpstreamProperties.class, HttpCacheProperties.class, ConcurrencyProperties.class,
+        ClusterProperties.class, ChangeFeedProperties.class})
 public class AppConfig {
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    @Qualifier("countries")
+    public RestTemplate countriesRestTemplate(RestTemplateBuilder builder, UpstreamProperties properties) {
+        return restTemplate(builder, properties.getCountries());
+    }
+
+    @Bean
+    @Qualifier("exchangeRates")
+    public RestTemplate exchangeRatesRestTemplate(RestTemplateBuilder builder, UpstreamProperties properties) {
+        return restTemplate(builder, properties.getExchangeRates());
+    }
+
+    /**
+     * Runs the upstream fetches of a refresh concurrently, one virtual thread per call.
+     */
+    @Bean(destroyMethod = "close")
+    @Qualifier("upstreamExecutor")
+    public ExecutorService upstreamExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("upstream-", 0).factory());
+    }
+
+    /**
+     * Runs background refresh jobs one at a time, on a virtual thread when request handling runs
+     * on virtual threads too ({@code spring.threads.virtual.enabled}).
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService refreshExecutor(Environment environment) {
+        Thread.Builder threads = Threading.VIRTUAL.isActive(environment) ? Thread.ofVirtual() : Thread.ofPlatform();
+        return Executors.newSingleThreadExecutor(threads.name("refresh-", 0).factory());
+    }
+
+    /**
+     * Renders the summary image after each published snapshot, off the refresh thread.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService imageExecutor() {
+        return Executors.newSingleThreadExecutor(Thread.ofPlatform().name("image-", 0).factory());
+    }
+
+    /**
+     * Writes change feed events to subscribers, one virtual thread per subscriber with events to
+     * send, so a slow client holds up neither the thread that made the change nor the others.
+     */
+    @Bean(destroyMethod = "close")
+    @Qualifier("changeFeedExecutor")
+    public ExecutorService changeFeedExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("change-feed-", 0).factory());
+    }
+
+    /**
+     * A client for one upstream, backed by its own Apache HttpClient connection pool. The pool
+     * holds as many connections as the upstream's bulkhead admits calls, so a call never waits
+     * for a connection and kept-alive connections are reused across retries and refreshes.
+     */
+    public static RestTemplate restTemplate(RestTemplateBuilder builder, UpstreamProperties.Endpoint endpoint) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(endpoint.getMaxConcurrentCalls())
+                .setMaxConnPerRoute(endpoint.getMaxConcurrentCalls())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(endpoint.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(endpoint.getReadTimeout()))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                        .setTimeToLive(TimeValue.ofMinutes(5))
+                        .build())
+                .build();
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(endpoint.getConnectTimeout()))
+                .setResponseTimeout(Timeout.of(endpoint.getReadTimeout()))
+                .build();
+        return builder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(HttpClients.custom()
+                        .setConnectionManager(connectionManager)
+                        .setDefaultRequestConfig(requestConfig)
+                        // Retries are up to ResilientUpstream
+                        .disableAutomaticRetries()
+                        .build()))
+                .build();
     }
 }
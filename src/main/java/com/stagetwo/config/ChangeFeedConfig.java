@@ -0,0 +1,23 @@
+package com.stagetwo.config;
+
+import com.stagetwo.service.CountryChangeFeed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Sends a keep-alive comment on every change feed stream every {@code changes.heartbeat-interval}.
+ */
+@Configuration
+@EnableScheduling
+@RequiredArgsConstructor
+public class ChangeFeedConfig {
+    private final CountryChangeFeed countryChangeFeed;
+
+    @Scheduled(fixedDelayString = "${changes.heartbeat-interval:30s}",
+            initialDelayString = "${changes.heartbeat-interval:30s}")
+    public void sendHeartbeats() {
+        countryChangeFeed.heartbeat();
+    }
+}
@@ -0,0 +1,31 @@
+package com.stagetwo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * The change feed of {@code GET /countries/changes}: how many changes are kept for clients that
+ * reconnect, and how its streams are kept alive and recycled.
+ */
+@Data
+@ConfigurationProperties(prefix = "changes")
+public class ChangeFeedProperties {
+    /**
+     * Changes kept in memory. A client that reconnects after more changes than this were sent
+     * is told to reload instead of being replayed what it missed.
+     */
+    private int bufferSize = 1024;
+
+    /**
+     * How often an idle stream gets a comment, so proxies keep it open and closed connections
+     * are noticed.
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(30);
+
+    /**
+     * How long a stream stays open; the client then reconnects and resumes where it left off.
+     */
+    private Duration timeout = Duration.ofMinutes(30);
+}
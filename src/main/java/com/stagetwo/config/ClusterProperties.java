@@ -0,0 +1,41 @@
+package com.stagetwo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Coordination between instances that share one database: how often each checks the shared
+ * dataset version, and the lease that keeps refreshes single-flight across instances.
+ */
+@Data
+@ConfigurationProperties(prefix = "cluster")
+public class ClusterProperties {
+    /**
+     * Names this instance as the holder of a lease; unique per process unless set.
+     */
+    private String instanceId = UUID.randomUUID().toString();
+
+    /**
+     * How often the shared dataset version is checked. Unset disables the check.
+     */
+    private Duration pollInterval;
+
+    /**
+     * How long the refresh lease lasts unless renewed. A running refresh renews it every third of
+     * this, so another instance can only take it over once this one died or stalled mid-refresh.
+     */
+    private Duration refreshLease = Duration.ofMinutes(15);
+
+    /**
+     * How long a refresh waits for another instance's refresh before its job fails.
+     */
+    private Duration refreshWait = Duration.ofMinutes(15);
+
+    /**
+     * How often a refresh waiting for another instance's refresh checks whether it finished.
+     */
+    private Duration leaseRetryInterval = Duration.ofMillis(500);
+}
@@ -0,0 +1,31 @@
+package com.stagetwo.config;
+
+import com.stagetwo.service.CountrySnapshotService;
+import com.stagetwo.service.RateHistoryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Checks the shared dataset version every {@code cluster.poll-interval} (e.g. {@code 2s}) when
+ * that property is set, and reloads the snapshot and exchange rates once another instance has
+ * refreshed or deleted. Everything derived from the snapshot (pre-rendered lists, the search
+ * index, the summary image) follows the newly published snapshot.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "cluster.poll-interval")
+@RequiredArgsConstructor
+public class ClusterSyncConfig {
+    private final CountrySnapshotService countrySnapshotService;
+    private final RateHistoryService rateHistoryService;
+
+    @Scheduled(fixedDelayString = "${cluster.poll-interval}", initialDelayString = "${cluster.poll-interval}")
+    public void pollDatasetVersion() {
+        if (countrySnapshotService.reloadIfBehind()) {
+            rateHistoryService.reloadLatestRates();
+        }
+    }
+}
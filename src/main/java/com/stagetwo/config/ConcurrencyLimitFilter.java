@@ -0,0 +1,76 @@
+package com.stagetwo.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stagetwo.dto.ErrorResponseDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Caps the {@code limited} requests handled at once. Requests over the cap wait up to
+ * {@code queueTimeout} for a slot and are then answered with a 503. Actuator endpoints are not
+ * limited, so health checks still answer under load. Rejections are counted per {@code limit}.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    private final Semaphore slots;
+    private final Duration queueTimeout;
+    private final Predicate<HttpServletRequest> limited;
+    private final ObjectMapper objectMapper;
+    private final Counter rejected;
+
+    public ConcurrencyLimitFilter(String limit, int maxConcurrentRequests, Duration queueTimeout,
+                                  Predicate<HttpServletRequest> limited, ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry) {
+        this.slots = new Semaphore(maxConcurrentRequests, true);
+        this.queueTimeout = queueTimeout;
+        this.limited = limited;
+        this.objectMapper = objectMapper;
+        this.rejected = Counter.builder("http.server.requests.rejected")
+                .description("Requests answered with 503 because the concurrency limit was reached")
+                .tag("limit", limit)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/actuator") || !limited.test(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = slots.tryAcquire(queueTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), new ErrorResponseDto("Service busy"));
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            slots.release();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.stagetwo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Limits on requests handled at once when they run on virtual threads. All requests share
+ * {@link #maxConcurrentRequests}, which by default admits as many as Tomcat's platform thread pool
+ * would. Requests that use the database are further capped by the Hikari pool size, with one
+ * connection left for the refresh job, which holds it for its whole transaction.
+ */
+@Data
+@ConfigurationProperties(prefix = "concurrency")
+public class ConcurrencyProperties {
+    private int maxConcurrentRequests = 200;
+
+    /**
+     * How long a request waits for a slot before it is answered with a 503.
+     */
+    private Duration queueTimeout = Duration.ofSeconds(2);
+
+    public int maxDatabaseRequests(int poolSize) {
+        return Math.max(1, poolSize - 1);
+    }
+}
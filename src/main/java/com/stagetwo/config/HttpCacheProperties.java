@@ -0,0 +1,17 @@
+package com.stagetwo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * {@code Cache-Control} header values for the read endpoints. The default, {@code no-cache},
+ * lets clients keep a copy but makes them revalidate it with the ETag on every use.
+ */
+@Data
+@ConfigurationProperties(prefix = "http.cache-control")
+public class HttpCacheProperties {
+    private String countries = "no-cache";
+    private String country = "no-cache";
+    private String status = "no-cache";
+    private String image = "no-cache";
+}
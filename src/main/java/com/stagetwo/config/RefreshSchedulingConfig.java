@@ -0,0 +1,25 @@
+package com.stagetwo.config;
+
+import com.stagetwo.service.RefreshJobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Refreshes the country data every {@code refresh.interval} (e.g. {@code 6h}) when that
+ * property is set. Scheduled runs go through the same job queue as manual triggers.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "refresh.interval")
+@RequiredArgsConstructor
+public class RefreshSchedulingConfig {
+    private final RefreshJobService refreshJobService;
+
+    @Scheduled(fixedDelayString = "${refresh.interval}")
+    public void scheduledRefresh() {
+        refreshJobService.trigger();
+    }
+}
@@ -0,0 +1,60 @@
+package com.stagetwo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Locations and timeouts of the external data sources used by a refresh.
+ */
+@Data
+@ConfigurationProperties(prefix = "upstream")
+public class UpstreamProperties {
+    private Endpoint countries = new Endpoint();
+    private Endpoint exchangeRates = new Endpoint();
+
+    /**
+     * Spool the RestCountries payload to a temporary file and parse it incrementally instead of
+     * deserializing it into memory in one piece.
+     */
+    private boolean streaming;
+
+    /**
+     * Where the last successfully fetched payload of each upstream is kept, to stand in for an
+     * upstream that is down.
+     */
+    private String lastKnownGoodDir = "cache/upstream";
+
+    /**
+     * Last-known-good payloads older than this are not used.
+     */
+    private Duration lastKnownGoodMaxAge = Duration.ofDays(7);
+
+    @Data
+    public static class Endpoint {
+        private String url;
+        private Duration connectTimeout = Duration.ofSeconds(5);
+        private Duration readTimeout = Duration.ofSeconds(30);
+
+        /**
+         * Attempts per fetch, including the first. Waits start at {@link #retryBackoff} and
+         * double, each randomized by +/-50%.
+         */
+        private int maxAttempts = 3;
+        private Duration retryBackoff = Duration.ofMillis(500);
+
+        /**
+         * The circuit opens when this percentage of the last {@link #slidingWindowSize} calls
+         * failed, and stays open (calls fail fast) for {@link #openStateDuration}.
+         */
+        private int failureRateThreshold = 50;
+        private int slidingWindowSize = 10;
+        private Duration openStateDuration = Duration.ofSeconds(60);
+
+        /**
+         * Concurrent calls allowed to this upstream; further calls are rejected, not queued.
+         */
+        private int maxConcurrentCalls = 2;
+    }
+}
@@ -0,0 +1,65 @@
+package com.stagetwo.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpMethod;
+
+/**
+ * Request handling on virtual threads ({@code spring.threads.virtual.enabled=true}). Tomcat then
+ * starts a thread per request without the upper bound its platform thread pool has, so the
+ * requests handled at once are capped here, and those that use the database in proportion to the
+ * pool they share. Every other read is served from memory.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+@Slf4j
+public class VirtualThreadConfig {
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            ConcurrencyProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        if (properties.getMaxConcurrentRequests() < 1) {
+            throw new IllegalArgumentException("concurrency.max-concurrent-requests must be at least 1");
+        }
+        log.info("Handling requests on virtual threads, at most {} at once", properties.getMaxConcurrentRequests());
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter("requests", properties.getMaxConcurrentRequests(),
+                        properties.getQueueTimeout(), request -> true, objectMapper, meterRegistry));
+        registration.setName("concurrencyLimitFilter");
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> databaseConcurrencyLimitFilter(
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+            ConcurrencyProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        int maxDatabaseRequests = properties.maxDatabaseRequests(poolSize);
+        log.info("At most {} requests use the database at once ({} connections)", maxDatabaseRequests, poolSize);
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter("database", maxDatabaseRequests, properties.getQueueTimeout(),
+                        VirtualThreadConfig::usesDatabase, objectMapper, meterRegistry));
+        registration.setName("databaseConcurrencyLimitFilter");
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE);
+        return registration;
+    }
+
+    /**
+     * Rate lookups and history, and country deletes. Everything else is answered from the
+     * in-memory snapshot and rates.
+     */
+    static boolean usesDatabase(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return uri.startsWith("/rates/")
+                || HttpMethod.DELETE.matches(request.getMethod()) && uri.startsWith("/countries/");
+    }
+}
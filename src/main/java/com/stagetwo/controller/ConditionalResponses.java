@@ -0,0 +1,75 @@
+package com.stagetwo.controller;
+
+import com.stagetwo.service.CountrySnapshot;
+import com.stagetwo.service.CountrySnapshotService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.File;
+import java.util.function.Supplier;
+
+/**
+ * Answers conditional GETs for data served from the country snapshot. Validators are taken from
+ * the snapshot before the body is built; since snapshots only move forward, a body can be newer
+ * than its ETag but never older, which at worst costs the client one extra download.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConditionalResponses {
+    private final CountrySnapshotService countrySnapshotService;
+
+    public record Validators(String eTag, long lastModified) {
+        /**
+         * The same validators for a different representation of the resource, e.g. another
+         * content coding.
+         */
+        public Validators withSuffix(String suffix) {
+            return new Validators(eTag + "-" + suffix, lastModified);
+        }
+    }
+
+    /**
+     * ETag and Last-Modified of the current snapshot.
+     */
+    public Validators snapshotValidators() {
+        CountrySnapshot snapshot = countrySnapshotService.current();
+        long lastModified = snapshot.getLastModified() != null ? snapshot.getLastModified().toEpochMilli() : -1;
+        return new Validators(countrySnapshotService.entityTag(snapshot), lastModified);
+    }
+
+    /**
+     * Returns {@code 304 Not Modified} if the request's {@code If-None-Match} or
+     * {@code If-Modified-Since} matches {@code validators}, otherwise the handler's response.
+     * Either way the response carries the validators and {@code cacheControl}.
+     */
+    public ResponseEntity<?> respond(WebRequest request, Validators validators, String cacheControl,
+                                     Supplier<ResponseEntity<?>> handler) {
+        if (request.checkNotModified(validators.eTag(), validators.lastModified())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                    .build();
+        }
+
+        ResponseEntity<?> response = handler.get();
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(response.getHeaders());
+        headers.set(HttpHeaders.CACHE_CONTROL, cacheControl);
+        return new ResponseEntity<>(response.getBody(), headers, response.getStatusCode());
+    }
+
+    /**
+     * ETag and Last-Modified of a file, from its modification time and size.
+     */
+    public Validators fileValidators(File file) {
+        long lastModified = file.lastModified();
+        return new Validators(Long.toHexString(lastModified) + "-" + Long.toHexString(file.length()), lastModified);
+    }
+
+    public ResponseEntity<?> respond(WebRequest request, String cacheControl, Supplier<ResponseEntity<?>> handler) {
+        return respond(request, snapshotValidators(), cacheControl, handler);
+    }
+}
@@ -0,0 +1,53 @@
+package com.stagetwo.controller;
+
+import com.stagetwo.dto.ConversionBatchRequestDto;
+import com.stagetwo.dto.ErrorResponseDto;
+import com.stagetwo.service.ExchangeRateService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.NoSuchElementException;
+
+@RestController
+@RequestMapping("/convert")
+@RequiredArgsConstructor
+public class ConversionController {
+    private final ExchangeRateService exchangeRateService;
+
+    @GetMapping
+    public ResponseEntity<?> convert(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) Double amount) {
+        if (from == null || to == null || amount == null) {
+            throw new IllegalArgumentException("from, to and amount are required");
+        }
+        try {
+            return ResponseEntity.ok(exchangeRateService.convert(from, to, amount));
+        } catch (NoSuchElementException e) {
+            return ratesNotLoaded();
+        }
+    }
+
+    @PostMapping
+    public ResponseEntity<?> convertAll(@Valid @RequestBody ConversionBatchRequestDto request) {
+        try {
+            return ResponseEntity.ok(exchangeRateService.convertAll(request.getConversions()));
+        } catch (NoSuchElementException e) {
+            return ratesNotLoaded();
+        }
+    }
+
+    private static ResponseEntity<ErrorResponseDto> ratesNotLoaded() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new ErrorResponseDto("Exchange rates not loaded", "Run POST /countries/refresh first"));
+    }
+}
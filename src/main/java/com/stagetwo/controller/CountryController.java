@@ -1,24 +1,48 @@
 package com.stagetwo.controller;
 
 
+import com.stagetwo.config.HttpCacheProperties;
 import com.stagetwo.dto.ErrorResponseDto;
+import com.stagetwo.dto.RefreshJobResponseDto;
 import com.stagetwo.entity.Country;
+import com.stagetwo.service.CountryChangeFeed;
+import com.stagetwo.service.CountryFields;
+import com.stagetwo.service.CountryPage;
+import com.stagetwo.service.CountrySearchService;
 import com.stagetwo.service.CountryService;
 import com.stagetwo.service.ImageGenerationService;
+import com.stagetwo.service.RefreshJob;
+import com.stagetwo.service.RefreshJobService;
+import com.stagetwo.service.RenderedBody;
+import com.stagetwo.service.RenderedCountryLists;
+import com.stagetwo.service.SummaryImage;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import java.io.EOFException;
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
-import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.NoSuchElementException;
 
@@ -26,43 +50,116 @@ import java.util.NoSuchElementException;
 @RequestMapping("/countries")
 @RequiredArgsConstructor
 public class CountryController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
     private final CountryService countryService;
+    private final CountrySearchService countrySearchService;
     private final ImageGenerationService imageGenerationService;
+    private final RefreshJobService refreshJobService;
+    private final RenderedCountryLists renderedCountryLists;
+    private final CountryChangeFeed countryChangeFeed;
+    private final ConditionalResponses conditionalResponses;
+    private final HttpCacheProperties httpCacheProperties;
 
     @PostMapping("/refresh")
-    public ResponseEntity<?> refreshCountries() {
-        try {
-            countryService.refreshCountries();
-            return ResponseEntity.ok(Map.of("message", "Countries refreshed successfully"));
-        } catch (Exception e) {
-            String apiName = e.getMessage().contains("RestCountries") ? "RestCountries API" : "Exchange Rate API";
-            ErrorResponseDto error = new ErrorResponseDto(
-                    "External data source unavailable",
-                    "Could not fetch data from " + apiName
-            );
-            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
-        }
+    public ResponseEntity<RefreshJobResponseDto> refreshCountries() {
+        RefreshJob job = refreshJobService.trigger();
+        return ResponseEntity.accepted()
+                .location(URI.create("/countries/refresh/" + job.getId()))
+                .body(job.toResponse());
+    }
+
+    @GetMapping("/refresh/{id}")
+    public ResponseEntity<?> getRefreshJob(@PathVariable String id) {
+        return refreshJobService.findJob(id)
+                .<ResponseEntity<?>>map(job -> ResponseEntity.ok(job.toResponse()))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(new ErrorResponseDto("Refresh job not found")));
     }
 
     @GetMapping
-    public ResponseEntity<List<Country>> getAllCountries(
+    public ResponseEntity<?> getAllCountries(
             @RequestParam(required = false) String region,
             @RequestParam(required = false) String currency,
-            @RequestParam(required = false) String sort) {
-        List<Country> countries = countryService.getAllCountries(region, currency, sort);
-        return ResponseEntity.ok(countries);
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String fields,
+            WebRequest request) {
+        if (!RenderedCountryLists.isCommonShape(region, currency, limit, after, fields)) {
+            CountryFields projection = fields != null ? CountryFields.parse(fields) : null;
+            return conditionalResponses.respond(request, httpCacheProperties.getCountries(), () -> {
+                CountryPage page = countryService.getCountries(region, currency, sort, limit, after);
+                ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                if (page.nextCursor() != null) {
+                    response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+                }
+                return projection != null
+                        ? response.body(projection.project(page.countries()))
+                        : response.body(page.countries());
+            });
+        }
+
+        RenderedBody.Coding coding = negotiateCoding(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        ConditionalResponses.Validators validators = conditionalResponses.snapshotValidators();
+        if (coding != RenderedBody.Coding.IDENTITY) {
+            validators = validators.withSuffix(coding.token());
+        }
+        return conditionalResponses.respond(request, validators, httpCacheProperties.getCountries(), () -> {
+            byte[] body = renderedCountryLists.find(region, currency, sort).bytes(coding);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING);
+            if (coding != RenderedBody.Coding.IDENTITY) {
+                response.header(HttpHeaders.CONTENT_ENCODING, coding.token());
+            }
+            return response.body(body);
+        });
+    }
+
+    /**
+     * Typeahead lookup by name, capital or currency code, tolerating accents and small typos.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchCountries(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        return conditionalResponses.respond(request, httpCacheProperties.getCountries(), () ->
+                ResponseEntity.ok(countrySearchService.search(q, limit)));
+    }
+
+    /**
+     * Country count, population, GDP and exchange-rate aggregates per region or currency.
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<?> getCountryStats(
+            @RequestParam(name = "group_by", required = false) String groupBy,
+            WebRequest request) {
+        return conditionalResponses.respond(request, httpCacheProperties.getCountries(), () ->
+                ResponseEntity.ok(countryService.getStats(groupBy)));
+    }
+
+    /**
+     * Server-sent stream of refreshes, country changes and new exchange rates as they commit.
+     * Reconnecting clients resume after the {@code Last-Event-ID} they last received.
+     */
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter getChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return countryChangeFeed.subscribe(lastEventId);
     }
 
     @GetMapping("/{name}")
-    public ResponseEntity<?> getCountryByName(@PathVariable String name) {
-        try {
-            Country country = countryService.getCountryByName(name);
-            return ResponseEntity.ok(country);
-        } catch (NoSuchElementException e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .body(new ErrorResponseDto("Country not found"));
-        }
+    public ResponseEntity<?> getCountryByName(@PathVariable String name, WebRequest request) {
+        return conditionalResponses.respond(request, httpCacheProperties.getCountry(), () -> {
+            try {
+                Country country = countryService.getCountryByName(name);
+                return ResponseEntity.ok(country);
+            } catch (NoSuchElementException e) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(new ErrorResponseDto("Country not found"));
+            }
+        });
     }
 
     @DeleteMapping("/{name}")
@@ -76,17 +173,138 @@ public class CountryController {
         }
     }
 
+    /**
+     * Serves the summary from memory as a byte-range capable resource. Until this process has
+     * rendered one, the copy left on disk is streamed from an open channel. The image
+     * lags the snapshot by a render, so it is validated by its own content rather than by the
+     * snapshot version.
+     */
     @GetMapping("/image")
-    public ResponseEntity<?> getSummaryImage() {
-        File imageFile = imageGenerationService.getSummaryImage();
+    public ResponseEntity<?> getSummaryImage(
+            @RequestParam(required = false) Integer width,
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) String region,
+            WebRequest request) {
+        SummaryImage image = width != null || format != null || region != null
+                ? imageGenerationService.getVariant(width, format, region)
+                : imageGenerationService.getCurrentImage();
+        if (image != null) {
+            ConditionalResponses.Validators validators =
+                    new ConditionalResponses.Validators(image.eTag(), image.renderedAt().toEpochMilli());
+            return conditionalResponses.respond(request, validators, httpCacheProperties.getImage(), () ->
+                    ResponseEntity.ok()
+                            .contentType(MediaType.parseMediaType(image.contentType()))
+                            .body(new ByteArrayResource(image.bytes())));
+        }
+
+        File imageFile = width == null && format == null && region == null
+                ? imageGenerationService.getSummaryImage()
+                : null;
         if (imageFile == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(new ErrorResponseDto("Summary image not found"));
         }
 
-        Resource resource = new FileSystemResource(imageFile);
+        ConditionalResponses.Validators validators = conditionalResponses.fileValidators(imageFile);
+        return conditionalResponses.respond(request, validators, httpCacheProperties.getImage(), () -> {
+            if (request.getHeader(HttpHeaders.RANGE) != null) {
+                return ResponseEntity.ok()
+                        .contentType(MediaType.IMAGE_PNG)
+                        .body(new FileSystemResource(imageFile));
+            }
+            return streamFile(imageFile);
+        });
+    }
+
+    /**
+     * Streams {@code imageFile} from a channel opened before the headers are written. A render
+     * replaces the file by moving a new one into place, so the open channel keeps reading the file
+     * whose size was sent. The servlet output stream has no file descriptor for
+     * {@code transferTo} to hand to sendfile, so this is a plain copy.
+     */
+    private static ResponseEntity<?> streamFile(File imageFile) {
+        FileChannel channel;
+        long length;
+        try {
+            channel = FileChannel.open(imageFile.toPath(), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponseDto("Summary image not found"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            length = channel.size();
+        } catch (IOException e) {
+            try {
+                channel.close();
+            } catch (IOException closing) {
+                e.addSuppressed(closing);
+            }
+            throw new UncheckedIOException(e);
+        }
+        StreamingResponseBody body = out -> {
+            try (channel) {
+                WritableByteChannel target = Channels.newChannel(out);
+                long position = 0;
+                while (position < length) {
+                    long sent = channel.transferTo(position, length - position, target);
+                    if (sent == 0) {
+                        throw new EOFException("Summary image ended at byte " + position + " of " + length);
+                    }
+                    position += sent;
+                }
+            }
+        };
         return ResponseEntity.ok()
                 .contentType(MediaType.IMAGE_PNG)
-                .body(resource);
+                .contentLength(length)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .body(body);
+    }
+
+    /**
+     * Picks gzip or deflate from an {@code Accept-Encoding} header by quality, preferring gzip on
+     * a tie, and falls back to an unencoded body.
+     */
+    static RenderedBody.Coding negotiateCoding(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return RenderedBody.Coding.IDENTITY;
+        }
+        double gzip = -1;
+        double deflate = -1;
+        double wildcard = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1.0;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            switch (coding) {
+                case "gzip", "x-gzip" -> gzip = quality;
+                case "deflate" -> deflate = quality;
+                case "*" -> wildcard = quality;
+                default -> {
+                }
+            }
+        }
+        if (gzip < 0) {
+            gzip = wildcard;
+        }
+        if (deflate < 0) {
+            deflate = wildcard;
+        }
+        if (gzip > 0 && gzip >= deflate) {
+            return RenderedBody.Coding.GZIP;
+        }
+        return deflate > 0 ? RenderedBody.Coding.DEFLATE : RenderedBody.Coding.IDENTITY;
     }
 }
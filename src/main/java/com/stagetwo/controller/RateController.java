@@ -0,0 +1,61 @@
+package com.stagetwo.controller;
+
+import com.stagetwo.dto.ErrorResponseDto;
+import com.stagetwo.service.RateHistoryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.NoSuchElementException;
+
+@RestController
+@RequestMapping("/rates")
+@RequiredArgsConstructor
+public class RateController {
+    private static final Duration DEFAULT_RANGE = Duration.ofDays(90);
+
+    private final RateHistoryService rateHistoryService;
+
+    @GetMapping("/{currency}")
+    public ResponseEntity<?> getRate(@PathVariable String currency, @RequestParam(required = false) String at) {
+        try {
+            Instant time = at != null ? parseTime("at", at) : Instant.now();
+            return ResponseEntity.ok(rateHistoryService.getRate(currency, time));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponseDto("Exchange rate not found"));
+        }
+    }
+
+    @GetMapping("/{currency}/history")
+    public ResponseEntity<?> getHistory(
+            @PathVariable String currency,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String interval) {
+        Instant end = to != null ? parseTime("to", to) : Instant.now();
+        Instant start = from != null ? parseTime("from", from) : end.minus(DEFAULT_RANGE);
+        return ResponseEntity.ok(rateHistoryService.getHistory(currency, start, end,
+                RateHistoryService.Interval.parse(interval)));
+    }
+
+    /**
+     * Accepts an ISO-8601 instant ({@code 2025-10-22T18:00:00Z}) or a date, meaning midnight UTC.
+     */
+    private static Instant parseTime(String name, String value) {
+        try {
+            return value.contains("T") ? Instant.parse(value) : LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(name + " must be an ISO-8601 date or instant");
+        }
+    }
+}
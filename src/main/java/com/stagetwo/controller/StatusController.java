@@ -1,20 +1,37 @@
 package com.stagetwo.controller;
 
+import com.stagetwo.config.HttpCacheProperties;
 import com.stagetwo.dto.StatusResponseDto;
 import com.stagetwo.service.CountryService;
+import com.stagetwo.service.RefreshJobService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequiredArgsConstructor
 public class StatusController {
     private final CountryService countryService;
+    private final RefreshJobService refreshJobService;
+    private final ConditionalResponses conditionalResponses;
+    private final HttpCacheProperties httpCacheProperties;
 
+    /**
+     * The status body also reports whether a refresh is running, which changes without a new
+     * snapshot, so its ETag includes that flag and no Last-Modified is sent.
+     */
     @GetMapping("/status")
-    public ResponseEntity<StatusResponseDto> getStatus() {
-        StatusResponseDto status = countryService.getStatus();
-        return ResponseEntity.ok(status);
+    public ResponseEntity<?> getStatus(WebRequest request) {
+        boolean refreshing = refreshJobService.isRefreshing();
+        ConditionalResponses.Validators snapshot = conditionalResponses.snapshotValidators();
+        ConditionalResponses.Validators validators = new ConditionalResponses.Validators(
+                refreshing ? snapshot.withSuffix("refreshing").eTag() : snapshot.eTag(), -1);
+        return conditionalResponses.respond(request, validators, httpCacheProperties.getStatus(), () -> {
+            StatusResponseDto status = countryService.getStatus();
+            status.setRefreshInProgress(refreshing);
+            return ResponseEntity.ok(status);
+        });
     }
 }
@@ -0,0 +1,31 @@
+package com.stagetwo.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ConversionBatchRequestDto {
+
+    @NotEmpty(message = "At least one conversion is required")
+    @Size(max = 10_000, message = "At most 10000 conversions per request")
+    @Valid
+    private List<Item> conversions;
+
+    @Data
+    public static class Item {
+        @NotBlank(message = "from is required")
+        private String from;
+
+        @NotBlank(message = "to is required")
+        private String to;
+
+        @NotNull(message = "amount is required")
+        private Double amount;
+    }
+}
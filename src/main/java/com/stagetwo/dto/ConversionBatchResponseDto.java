@@ -0,0 +1,16 @@
+package com.stagetwo.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * Converted amounts in the order of the request's conversions.
+ */
+@Data
+public class ConversionBatchResponseDto {
+
+    @JsonProperty("rates_updated_at")
+    private String ratesUpdatedAt;
+
+    private double[] results;
+}
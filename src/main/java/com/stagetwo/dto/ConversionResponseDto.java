@@ -0,0 +1,20 @@
+package com.stagetwo.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+@Data
+public class ConversionResponseDto {
+    private String from;
+
+    private String to;
+
+    private double amount;
+
+    private double rate;
+
+    private double result;
+
+    @JsonProperty("rates_updated_at")
+    private String ratesUpdatedAt;
+}
@@ -0,0 +1,20 @@
+package com.stagetwo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CountryChangeDto {
+
+    // inserted, updated or deleted
+    private String change;
+
+    private String name;
+
+    // All properties of an inserted country, the changed ones of an updated country, with the
+    // property names of GET /countries; none for a deleted country
+    private Map<String, Object> fields;
+}
@@ -0,0 +1,19 @@
+package com.stagetwo.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.stagetwo.entity.Country;
+import lombok.Data;
+
+@Data
+public class CountrySearchHitDto {
+
+    private Country country;
+
+    @JsonProperty("matched_field")
+    private String matchedField;
+
+    @JsonProperty("matched_value")
+    private String matchedValue;
+
+    private int distance;
+}
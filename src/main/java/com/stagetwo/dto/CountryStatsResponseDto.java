@@ -0,0 +1,44 @@
+package com.stagetwo.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CountryStatsResponseDto {
+
+    @JsonProperty("group_by")
+    private String groupBy;
+
+    private List<Group> groups;
+
+    @Data
+    public static class Group {
+        private String key;
+
+        @JsonProperty("country_count")
+        private int countryCount;
+
+        @JsonProperty("total_population")
+        private long totalPopulation;
+
+        @JsonProperty("gdp_sum")
+        private double gdpSum;
+
+        @JsonProperty("gdp_avg")
+        private Double gdpAvg;
+
+        @JsonProperty("gdp_max")
+        private Double gdpMax;
+
+        @JsonProperty("min_exchange_rate")
+        private Double minExchangeRate;
+
+        @JsonProperty("max_exchange_rate")
+        private Double maxExchangeRate;
+
+        @JsonProperty("exchange_rate_spread")
+        private Double exchangeRateSpread;
+    }
+}
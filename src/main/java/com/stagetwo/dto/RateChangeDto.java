@@ -0,0 +1,19 @@
+package com.stagetwo.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class RateChangeDto {
+
+    @JsonProperty("base_code")
+    private String baseCode;
+
+    @JsonProperty("updated_at")
+    private String updatedAt;
+
+    // Only the currencies whose rate is new or changed
+    private Map<String, Double> rates;
+}
@@ -0,0 +1,49 @@
+package com.stagetwo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RateHistoryResponseDto {
+
+    @JsonProperty("currency_code")
+    private String currencyCode;
+
+    @JsonProperty("base_code")
+    private String baseCode;
+
+    private String interval;
+
+    private String from;
+
+    private String to;
+
+    private List<Point> points;
+
+    private List<Bucket> buckets;
+
+    @Data
+    public static class Point {
+        @JsonProperty("observed_at")
+        private String observedAt;
+
+        private double rate;
+    }
+
+    @Data
+    public static class Bucket {
+        private String start;
+
+        private double min;
+
+        private double max;
+
+        private double avg;
+
+        private int samples;
+    }
+}
@@ -0,0 +1,19 @@
+package com.stagetwo.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+@Data
+public class RateResponseDto {
+
+    @JsonProperty("currency_code")
+    private String currencyCode;
+
+    @JsonProperty("base_code")
+    private String baseCode;
+
+    private double rate;
+
+    @JsonProperty("observed_at")
+    private String observedAt;
+}
@@ -0,0 +1,63 @@
+package com.stagetwo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RefreshJobResponseDto {
+
+    private String id;
+
+    private String status;
+
+    @JsonProperty("created_at")
+    private String createdAt;
+
+    @JsonProperty("started_at")
+    private String startedAt;
+
+    @JsonProperty("finished_at")
+    private String finishedAt;
+
+    @JsonProperty("duration_ms")
+    private Long durationMs;
+
+    @JsonProperty("current_phase")
+    private String currentPhase;
+
+    private List<Phase> phases;
+
+    @JsonProperty("refreshed_by")
+    private String refreshedBy;
+
+    private Result result;
+
+    private ErrorResponseDto error;
+
+    @Data
+    public static class Phase {
+        private String name;
+
+        @JsonProperty("duration_ms")
+        private Long durationMs;
+    }
+
+    @Data
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Result {
+        private int inserted;
+
+        private int updated;
+
+        private int unchanged;
+
+        private int removed;
+
+        @JsonProperty("last_known_good")
+        private List<String> lastKnownGood;
+    }
+}
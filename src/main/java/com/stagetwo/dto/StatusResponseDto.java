@@ -11,4 +11,7 @@ public class StatusResponseDto {
 
     @JsonProperty("last_refreshed_at")
     private String lastRefreshedAt;
+
+    @JsonProperty("refresh_in_progress")
+    private boolean refreshInProgress;
 }
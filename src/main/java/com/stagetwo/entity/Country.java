@@ -1,20 +1,28 @@
 package com.stagetwo.entity;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 
 import java.time.LocalDateTime;
+import java.util.Locale;
 
 @Entity
-@Table(name = "countries")
+@Table(name = "countries", indexes = {
+        @Index(name = "ux_countries_name_key", columnList = "name_key", unique = true),
+        @Index(name = "ix_countries_region_key", columnList = "region_key"),
+        @Index(name = "ix_countries_currency_key", columnList = "currency_key"),
+        @Index(name = "ix_countries_estimated_gdp", columnList = "estimated_gdp"),
+        @Index(name = "ix_countries_last_refreshed_at", columnList = "last_refreshed_at")
+})
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class Country {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -46,4 +54,56 @@ public class Country {
 
     @Column(name = "last_refreshed_at")
     private LocalDateTime lastRefreshedAt;
+
+    // Hash of the upstream record this row was last written from (see CountryService)
+    @JsonIgnore
+    @Column(name = "source_hash")
+    private Long sourceHash;
+
+    // Lower-cased copies of the looked-up columns, so lookups compare plain indexed values
+    // instead of upper(column)
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    @Column(name = "name_key", nullable = false)
+    private String nameKey;
+
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    @Column(name = "region_key")
+    private String regionKey;
+
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    @Column(name = "currency_key")
+    private String currencyKey;
+
+    public Country(Long id, String name, String capital, String region, Long population, String currencyCode,
+                   Double exchangeRate, Double estimatedGdp, String flagUrl, LocalDateTime lastRefreshedAt) {
+        this.id = id;
+        this.name = name;
+        this.capital = capital;
+        this.region = region;
+        this.population = population;
+        this.currencyCode = currencyCode;
+        this.exchangeRate = exchangeRate;
+        this.estimatedGdp = estimatedGdp;
+        this.flagUrl = flagUrl;
+        this.lastRefreshedAt = lastRefreshedAt;
+        updateLookupKeys();
+    }
+
+    @PrePersist
+    @PreUpdate
+    void updateLookupKeys() {
+        nameKey = lookupKey(name);
+        regionKey = lookupKey(region);
+        currencyKey = lookupKey(currencyCode);
+    }
+
+    /**
+     * The normalized form stored in the {@code *_key} lookup columns.
+     */
+    public static String lookupKey(String value) {
+        return value != null ? value.toLowerCase(Locale.ROOT) : null;
+    }
 }
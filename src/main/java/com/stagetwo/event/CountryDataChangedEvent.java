@@ -0,0 +1,25 @@
+package com.stagetwo.event;
+
+/**
+ * Published inside the transaction that changed the countries table. Listeners that maintain
+ * read-side copies of the data react after the transaction commits.
+ *
+ * @param type           what kind of change happened
+ * @param countryName    the deleted country for {@link Type#DELETED}, otherwise {@code null}
+ * @param datasetVersion the shared dataset version the delete committed as, otherwise {@code 0}
+ */
+public record CountryDataChangedEvent(Type type, String countryName, long datasetVersion) {
+
+    public enum Type {
+        REFRESHED,
+        DELETED
+    }
+
+    public static CountryDataChangedEvent refreshed() {
+        return new CountryDataChangedEvent(Type.REFRESHED, null, 0);
+    }
+
+    public static CountryDataChangedEvent deleted(String countryName, long datasetVersion) {
+        return new CountryDataChangedEvent(Type.DELETED, countryName, datasetVersion);
+    }
+}
@@ -0,0 +1,19 @@
+package com.stagetwo.event;
+
+import com.stagetwo.service.CountrySnapshot;
+import com.stagetwo.service.SummaryImage;
+
+/**
+ * Published after a new {@link CountrySnapshot} has been swapped in, i.e. after the refresh or
+ * delete that produced it has committed, or after it was restored from the snapshot file at
+ * startup.
+ *
+ * @param snapshot      the snapshot now being served
+ * @param restoredImage the summary image stored with a restored snapshot, otherwise {@code null}
+ */
+public record CountrySnapshotPublishedEvent(CountrySnapshot snapshot, SummaryImage restoredImage) {
+
+    public CountrySnapshotPublishedEvent(CountrySnapshot snapshot) {
+        this(snapshot, null);
+    }
+}
@@ -0,0 +1,13 @@
+package com.stagetwo.event;
+
+import com.stagetwo.service.ExchangeRateTable;
+
+/**
+ * Published after the exchange rates used for conversions were replaced, by a committed refresh
+ * or with rates loaded from the history table.
+ *
+ * @param previous the rates used until now, {@link ExchangeRateTable#EMPTY} if there were none
+ * @param rates    the rates used from now on
+ */
+public record ExchangeRateTableReplacedEvent(ExchangeRateTable previous, ExchangeRateTable rates) {
+}
@@ -0,0 +1,9 @@
+package com.stagetwo.event;
+
+import com.stagetwo.dto.ExchangeRateResponseDto;
+
+/**
+ * Published inside a refresh transaction with the exchange rates that refresh used.
+ */
+public record ExchangeRatesUpdatedEvent(ExchangeRateResponseDto exchangeRates) {
+}
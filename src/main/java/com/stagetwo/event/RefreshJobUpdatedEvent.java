@@ -0,0 +1,11 @@
+package com.stagetwo.event;
+
+import com.stagetwo.dto.RefreshJobResponseDto;
+
+/**
+ * Published when a refresh job starts running and when it finishes.
+ *
+ * @param job the job as it is reported by {@code GET /countries/refresh/{id}} at that moment
+ */
+public record RefreshJobUpdatedEvent(RefreshJobResponseDto job) {
+}
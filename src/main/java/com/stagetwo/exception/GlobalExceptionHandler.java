@@ -1,12 +1,15 @@
 package com.stagetwo.exception;
 
 import com.stagetwo.dto.ErrorResponseDto;
+import com.stagetwo.service.ExchangeRateService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.async.AsyncRequestNotUsableException;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -34,12 +37,27 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
     }
 
+    @ExceptionHandler(ExchangeRateService.ConversionException.class)
+    public ResponseEntity<ErrorResponseDto> handleConversionException(ExchangeRateService.ConversionException ex) {
+        ErrorResponseDto response = new ErrorResponseDto("Validation failed", ex.getErrors());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ErrorResponseDto> handleIllegalArgumentException(IllegalArgumentException ex) {
         ErrorResponseDto response = new ErrorResponseDto("Validation failed", ex.getMessage());
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
     }
 
+    /**
+     * A client of {@code GET /countries/changes} went away, or its stream timed out. The response
+     * is already an event stream, so there is no error body to write.
+     */
+    @ExceptionHandler({AsyncRequestNotUsableException.class, AsyncRequestTimeoutException.class})
+    public ResponseEntity<ErrorResponseDto> handleClosedStream(Exception ex) {
+        return null;
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponseDto> handleGenericException(Exception ex) {
         ErrorResponseDto response = new ErrorResponseDto("Internal server error");
@@ -0,0 +1,12 @@
+package com.stagetwo.exception;
+
+/**
+ * A refresh no longer held the cluster refresh lease when it was about to commit, so another
+ * instance may have refreshed in the meantime. The refresh is rolled back.
+ */
+public class RefreshLeaseLostException extends RuntimeException {
+
+    public RefreshLeaseLostException(String instanceId) {
+        super("Refresh lease of instance " + instanceId + " expired or was taken over");
+    }
+}
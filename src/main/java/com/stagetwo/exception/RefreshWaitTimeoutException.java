@@ -0,0 +1,14 @@
+package com.stagetwo.exception;
+
+import java.time.Duration;
+
+/**
+ * A refresh waited for another instance's refresh longer than {@code cluster.refresh-wait}
+ * allows. Neither refreshes on its behalf; the job fails and can be triggered again.
+ */
+public class RefreshWaitTimeoutException extends RuntimeException {
+
+    public RefreshWaitTimeoutException(String holder, Duration waited) {
+        super("Refresh on instance " + holder + " still running after " + waited);
+    }
+}
@@ -0,0 +1,22 @@
+package com.stagetwo.exception;
+
+/**
+ * An external data source could not be reached (after retries), its circuit breaker is open,
+ * or it returned an unusable payload, and no last-known-good copy could stand in for it.
+ */
+public class UpstreamUnavailableException extends RuntimeException {
+    private final String apiName;
+
+    public UpstreamUnavailableException(String apiName) {
+        this(apiName, null);
+    }
+
+    public UpstreamUnavailableException(String apiName, Throwable cause) {
+        super("Could not fetch data from " + apiName, cause);
+        this.apiName = apiName;
+    }
+
+    public String getApiName() {
+        return apiName;
+    }
+}
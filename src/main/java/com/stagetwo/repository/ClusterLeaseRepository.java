@@ -0,0 +1,106 @@
+package com.stagetwo.repository;
+
+import io.micrometer.observation.annotation.Observed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Named leases in the cluster_lease table, each held by at most one instance. Every call is a
+ * single statement, auto-committed unless noted, so no connection is held while a lease is. Expiry
+ * is checked against the database clock, never the instances' own. Each lease counts the commits of
+ * the work it guards in its generation.
+ */
+@Repository
+@Observed(name = "jdbc.repository")
+@RequiredArgsConstructor
+public class ClusterLeaseRepository {
+    private static final String ACQUIRE =
+            "UPDATE cluster_lease SET owner = ?, expires_at = TIMESTAMPADD(SECOND, ?, CURRENT_TIMESTAMP) " +
+            "WHERE name = ? AND (owner IS NULL OR owner = ?)";
+    private static final String TAKE_OVER =
+            "UPDATE cluster_lease SET owner = ?, expires_at = TIMESTAMPADD(SECOND, ?, CURRENT_TIMESTAMP) " +
+            "WHERE name = ? AND expires_at < CURRENT_TIMESTAMP";
+    private static final String RENEW =
+            "UPDATE cluster_lease SET expires_at = TIMESTAMPADD(SECOND, ?, CURRENT_TIMESTAMP) WHERE name = ? AND owner = ?";
+    private static final String COMMIT =
+            "UPDATE cluster_lease SET expires_at = TIMESTAMPADD(SECOND, ?, CURRENT_TIMESTAMP), generation = generation + 1 " +
+            "WHERE name = ? AND owner = ?";
+    private static final String RELEASE =
+            "UPDATE cluster_lease SET owner = NULL, expires_at = NULL WHERE name = ? AND owner = ?";
+    private static final String SELECT_HOLDER =
+            "SELECT owner FROM cluster_lease WHERE name = ? AND owner IS NOT NULL AND expires_at >= CURRENT_TIMESTAMP";
+    private static final String SELECT_GENERATION = "SELECT generation FROM cluster_lease WHERE name = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Takes or extends lease {@code name} for {@code owner} unless another owner holds it, even if
+     * that owner's lease expired; see {@link #takeOver}.
+     *
+     * @return whether {@code owner} now holds the lease
+     */
+    public boolean tryAcquire(String name, String owner, Duration duration) {
+        long seconds = Math.max(1, duration.toSeconds());
+        return jdbcTemplate.update(ACQUIRE, owner, seconds, name, owner) == 1;
+    }
+
+    /**
+     * Takes lease {@code name} for {@code owner} if its holder let it expire without releasing it.
+     *
+     * @return whether {@code owner} now holds the lease
+     */
+    public boolean takeOver(String name, String owner, Duration duration) {
+        long seconds = Math.max(1, duration.toSeconds());
+        return jdbcTemplate.update(TAKE_OVER, owner, seconds, name) == 1;
+    }
+
+    /**
+     * Extends lease {@code name} if {@code owner} still holds it. Unlike {@link #tryAcquire}, a
+     * lease that was released, or taken over by another owner, in the meantime is not taken
+     * again. Inside a transaction, the lease row stays locked until it ends.
+     *
+     * @return whether {@code owner} still holds the lease
+     */
+    public boolean renew(String name, String owner, Duration duration) {
+        long seconds = Math.max(1, duration.toSeconds());
+        return jdbcTemplate.update(RENEW, seconds, name, owner) == 1;
+    }
+
+    /**
+     * Like {@link #renew}, and counts one more commit in the lease's generation. Must run in the
+     * transaction of the work the lease guards, so the count becomes visible with that work.
+     *
+     * @return whether {@code owner} still holds the lease
+     */
+    public boolean commit(String name, String owner, Duration duration) {
+        long seconds = Math.max(1, duration.toSeconds());
+        return jdbcTemplate.update(COMMIT, seconds, name, owner) == 1;
+    }
+
+    /**
+     * Gives up lease {@code name} if {@code owner} still holds it.
+     */
+    public void release(String name, String owner) {
+        jdbcTemplate.update(RELEASE, name, owner);
+    }
+
+    /**
+     * The owner of lease {@code name}, unless it is free or expired.
+     */
+    public Optional<String> holder(String name) {
+        List<String> owners = jdbcTemplate.queryForList(SELECT_HOLDER, String.class, name);
+        return owners.stream().findFirst();
+    }
+
+    /**
+     * How many times the work lease {@code name} guards has committed.
+     */
+    public long generation(String name) {
+        return jdbcTemplate.queryForObject(SELECT_GENERATION, Long.class, name);
+    }
+}
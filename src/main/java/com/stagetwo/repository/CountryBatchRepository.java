@@ -0,0 +1,139 @@
+package com.stagetwo.repository;
+
+import com.stagetwo.entity.Country;
+import io.micrometer.observation.annotation.Observed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plain JDBC access for the refresh pipeline. The JPA repository issues one
+ * statement per row (and cannot batch inserts because of the IDENTITY id), so
+ * bulk reads and writes of the countries table go through here instead.
+ */
+@Repository
+@Observed(name = "jdbc.repository")
+@RequiredArgsConstructor
+public class CountryBatchRepository {
+    private static final String SELECT_ALL =
+            "SELECT id, name, capital, region, population, currency_code, exchange_rate, " +
+            "estimated_gdp, flag_url, last_refreshed_at, source_hash FROM countries";
+    private static final String INSERT =
+            "INSERT INTO countries (name, capital, region, population, currency_code, exchange_rate, " +
+            "estimated_gdp, flag_url, last_refreshed_at, name_key, region_key, currency_key, source_hash) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE =
+            "UPDATE countries SET name = ?, capital = ?, region = ?, population = ?, currency_code = ?, " +
+            "exchange_rate = ?, estimated_gdp = ?, flag_url = ?, last_refreshed_at = ?, " +
+            "name_key = ?, region_key = ?, currency_key = ?, source_hash = ? WHERE id = ?";
+    private static final String DELETE = "DELETE FROM countries WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${refresh.batch-size:200}")
+    private int batchSize;
+
+    /**
+     * Loads every stored country in a single query.
+     */
+    public List<Country> findAll() {
+        return jdbcTemplate.query(SELECT_ALL, (rs, rowNum) -> mapRow(rs));
+    }
+
+    /**
+     * Loads every stored country in a single query, keyed by lower-cased name.
+     */
+    public Map<String, Country> findAllByName() {
+        Map<String, Country> countries = new HashMap<>();
+        for (Country country : findAll()) {
+            countries.put(nameKey(country.getName()), country);
+        }
+        return countries;
+    }
+
+    public void insertAll(List<Country> countries) {
+        if (countries.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT, countries, batchSize, (ps, country) -> bindColumns(ps, country));
+    }
+
+    public void updateAll(List<Country> countries) {
+        if (countries.isEmpty()) {
+            return;
+        }
+        ParameterizedPreparedStatementSetter<Country> setter = (ps, country) -> {
+            bindColumns(ps, country);
+            ps.setLong(14, country.getId());
+        };
+        jdbcTemplate.batchUpdate(UPDATE, countries, batchSize, setter);
+    }
+
+    public void deleteAll(List<Country> countries) {
+        if (countries.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(DELETE, countries, batchSize, (ps, country) -> ps.setLong(1, country.getId()));
+    }
+
+    public static String nameKey(String name) {
+        return Country.lookupKey(name);
+    }
+
+    private static void bindColumns(PreparedStatement ps, Country country) throws SQLException {
+        ps.setString(1, country.getName());
+        ps.setString(2, country.getCapital());
+        ps.setString(3, country.getRegion());
+        ps.setLong(4, country.getPopulation());
+        ps.setString(5, country.getCurrencyCode());
+        setDouble(ps, 6, country.getExchangeRate());
+        setDouble(ps, 7, country.getEstimatedGdp());
+        ps.setString(8, country.getFlagUrl());
+        ps.setTimestamp(9, country.getLastRefreshedAt() != null ? Timestamp.valueOf(country.getLastRefreshedAt()) : null);
+        ps.setString(10, Country.lookupKey(country.getName()));
+        ps.setString(11, Country.lookupKey(country.getRegion()));
+        ps.setString(12, Country.lookupKey(country.getCurrencyCode()));
+        if (country.getSourceHash() != null) {
+            ps.setLong(13, country.getSourceHash());
+        } else {
+            ps.setNull(13, Types.BIGINT);
+        }
+    }
+
+    private static void setDouble(PreparedStatement ps, int index, Double value) throws SQLException {
+        if (value != null) {
+            ps.setDouble(index, value);
+        } else {
+            ps.setNull(index, Types.DOUBLE);
+        }
+    }
+
+    private static Country mapRow(ResultSet rs) throws SQLException {
+        Timestamp refreshedAt = rs.getTimestamp("last_refreshed_at");
+        Country country = new Country(
+                rs.getLong("id"),
+                rs.getString("name"),
+                rs.getString("capital"),
+                rs.getString("region"),
+                rs.getLong("population"),
+                rs.getString("currency_code"),
+                rs.getObject("exchange_rate", Double.class),
+                rs.getObject("estimated_gdp", Double.class),
+                rs.getString("flag_url"),
+                refreshedAt != null ? refreshedAt.toLocalDateTime() : null
+        );
+        country.setSourceHash(rs.getObject("source_hash", Long.class));
+        return country;
+    }
+}
@@ -2,25 +2,29 @@ package com.stagetwo.repository;
 
 import com.stagetwo.entity.Country;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Optional;
+/**
+ * Reads are served from the in-memory snapshot; what is left here are the per-country writes of
+ * {@code DELETE /countries/{name}}. Case-insensitive lookups go through the lower-cased
+ * {@code name_key} column so each one is an equality match on an index.
+ */
 @Repository
 public interface CountryRepository extends JpaRepository<Country, Long> {
-    Optional<Country> findByNameIgnoreCase(String name);
+    boolean existsByNameKey(String nameKey);
 
-    List<Country> findByRegionIgnoreCase(String region);
+    @Modifying
+    @Query("DELETE FROM Country c WHERE c.nameKey = :nameKey")
+    int deleteByNameKey(@Param("nameKey") String nameKey);
 
-    List<Country> findByCurrencyCodeIgnoreCase(String currencyCode);
-
-    @Query("SELECT MAX(c.lastRefreshedAt) FROM Country c")
-    LocalDateTime findLatestRefreshTime();
-
-    void deleteByNameIgnoreCase(String name);
-
-    boolean existsByNameIgnoreCase(String name);
+    default void deleteByNameIgnoreCase(String name) {
+        deleteByNameKey(Country.lookupKey(name));
+    }
 
+    default boolean existsByNameIgnoreCase(String name) {
+        return existsByNameKey(Country.lookupKey(name));
+    }
 }
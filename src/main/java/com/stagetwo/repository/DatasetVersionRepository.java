@@ -0,0 +1,34 @@
+package com.stagetwo.repository;
+
+import io.micrometer.observation.annotation.Observed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * The single-row dataset_version table: a counter of changes to the countries table shared by
+ * every instance that points at the database.
+ */
+@Repository
+@Observed(name = "jdbc.repository")
+@RequiredArgsConstructor
+public class DatasetVersionRepository {
+    private static final String SELECT = "SELECT version FROM dataset_version WHERE id = 1";
+    private static final String INCREMENT =
+            "UPDATE dataset_version SET version = version + 1, updated_at = CURRENT_TIMESTAMP WHERE id = 1";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public long current() {
+        return jdbcTemplate.queryForObject(SELECT, Long.class);
+    }
+
+    /**
+     * Bumps the version and returns the new value. Must run in the transaction that changed the
+     * data: the row lock orders concurrent writers, and the bump becomes visible with the change.
+     */
+    public long increment() {
+        jdbcTemplate.update(INCREMENT);
+        return current();
+    }
+}
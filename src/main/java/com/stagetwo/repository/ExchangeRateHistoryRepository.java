@@ -0,0 +1,110 @@
+package com.stagetwo.repository;
+
+import com.stagetwo.service.ExchangeRateTable;
+import io.micrometer.observation.annotation.Observed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Plain JDBC access to the append-only exchange_rate_history table. Times are stored as UTC
+ * DATETIMEs so reads and writes do not depend on the JVM or database time zone.
+ */
+@Repository
+@Observed(name = "jdbc.repository")
+@RequiredArgsConstructor
+public class ExchangeRateHistoryRepository {
+    private static final String INSERT =
+            "INSERT INTO exchange_rate_history (currency_code, observed_at, base_code, rate) VALUES (?, ?, ?, ?)";
+    private static final String SELECT_AT =
+            "SELECT currency_code, observed_at, base_code, rate FROM exchange_rate_history " +
+            "WHERE currency_code = ? AND observed_at <= ? ORDER BY observed_at DESC LIMIT 1";
+    private static final String SELECT_RANGE =
+            "SELECT currency_code, observed_at, base_code, rate FROM exchange_rate_history " +
+            "WHERE currency_code = ? AND observed_at >= ? AND observed_at < ? ORDER BY observed_at LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${refresh.batch-size:200}")
+    private int batchSize;
+
+    public record Observation(String currencyCode, Instant observedAt, String baseCode, double rate) {
+    }
+
+    public Optional<Instant> findLatestObservedAt() {
+        LocalDateTime latest = jdbcTemplate.queryForObject(
+                "SELECT MAX(observed_at) FROM exchange_rate_history", LocalDateTime.class);
+        return Optional.ofNullable(latest).map(time -> time.toInstant(ZoneOffset.UTC));
+    }
+
+    /**
+     * Every rate recorded at exactly {@code observedAt}.
+     */
+    public List<Observation> findAllObservedAt(Instant observedAt) {
+        return jdbcTemplate.query(
+                "SELECT currency_code, observed_at, base_code, rate FROM exchange_rate_history WHERE observed_at = ?",
+                (rs, rowNum) -> mapRow(rs), toUtc(observedAt));
+    }
+
+    /**
+     * The last rate of {@code currencyCode} recorded at or before {@code at}. On MySQL the primary
+     * key (currency_code, observed_at) is read backwards from {@code at}, one row.
+     */
+    public Optional<Observation> findAt(String currencyCode, Instant at) {
+        return jdbcTemplate.query(SELECT_AT, (rs, rowNum) -> mapRow(rs), currencyCode, toUtc(at))
+                .stream().findFirst();
+    }
+
+    /**
+     * Streams the rates of {@code currencyCode} recorded in [from, to) in time order, at most
+     * {@code limit} rows, without materialising the result. MySQL Connector/J only honours the
+     * fetch size with {@code useCursorFetch=true} on the connection URL; without it the whole
+     * result is read into memory first.
+     */
+    public void forEachInRange(String currencyCode, Instant from, Instant to, int limit,
+                               Consumer<Observation> consumer) {
+        jdbcTemplate.query(connection -> {
+            var ps = connection.prepareStatement(SELECT_RANGE);
+            ps.setString(1, currencyCode);
+            ps.setObject(2, toUtc(from));
+            ps.setObject(3, toUtc(to));
+            ps.setInt(4, limit);
+            ps.setFetchSize(1000);
+            return ps;
+        }, rs -> {
+            consumer.accept(mapRow(rs));
+        });
+    }
+
+    public void insertAll(Instant observedAt, ExchangeRateTable rates) {
+        LocalDateTime time = toUtc(observedAt);
+        List<Integer> indexes = IntStream.range(0, rates.size()).boxed().toList();
+        jdbcTemplate.batchUpdate(INSERT, indexes, batchSize, (ps, i) -> {
+            ps.setString(1, rates.code(i));
+            ps.setObject(2, time);
+            ps.setString(3, rates.getBaseCode());
+            ps.setDouble(4, rates.rate(i));
+        });
+    }
+
+    private static Observation mapRow(ResultSet rs) throws SQLException {
+        return new Observation(rs.getString("currency_code"),
+                rs.getObject("observed_at", LocalDateTime.class).toInstant(ZoneOffset.UTC),
+                rs.getString("base_code"), rs.getDouble("rate"));
+    }
+
+    private static LocalDateTime toUtc(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+}
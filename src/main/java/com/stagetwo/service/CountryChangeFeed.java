@@ -0,0 +1,353 @@
+package com.stagetwo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stagetwo.config.ChangeFeedProperties;
+import com.stagetwo.dto.CountryChangeDto;
+import com.stagetwo.dto.RateChangeDto;
+import com.stagetwo.dto.RefreshJobResponseDto;
+import com.stagetwo.entity.Country;
+import com.stagetwo.event.CountrySnapshotPublishedEvent;
+import com.stagetwo.event.ExchangeRateTableReplacedEvent;
+import com.stagetwo.event.RefreshJobUpdatedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The server-sent events of {@code GET /countries/changes}. Every change is numbered, serialized
+ * once and kept in a ring buffer of {@code changes.buffer-size} entries:
+ * <ul>
+ *     <li>{@code refresh}: a refresh job started or finished on this instance</li>
+ *     <li>{@code country}: a country was inserted, updated (changed properties only) or deleted.
+ *     These come from the difference between consecutive snapshots, so changes another instance
+ *     made are reported once this instance has reloaded</li>
+ *     <li>{@code rates}: the exchange rates were replaced (new or changed rates only)</li>
+ * </ul>
+ * A client that reconnects with {@code Last-Event-ID} is sent the changes it missed while they are
+ * still buffered; otherwise, and when it falls so far behind that changes were dropped before it
+ * got them, it is sent a {@code reset} event and should reload the countries.
+ *
+ * <p>An idle stream is an asynchronous request and occupies no thread. Events are written on a
+ * virtual thread per subscriber that has events to send, which ends once it has caught up.
+ */
+@Service
+@Slf4j
+public class CountryChangeFeed {
+    static final String REFRESH = "refresh";
+    static final String COUNTRY = "country";
+    static final String RATES = "rates";
+    static final String RESET = "reset";
+
+    private static final String EXPIRED = "Last-Event-ID can no longer be resumed from; reload /countries";
+    private static final String DROPPED = "Changes were dropped before they could be sent; reload /countries";
+
+    private final ChangeFeedProperties properties;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService changeFeedExecutor;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Distinguishes event ids of this process from those of earlier runs, which restart at 1.
+     */
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    // Guarded by this
+    private final Change[] buffer;
+    private long lastSequence;
+    private CountrySnapshot lastSnapshot;
+
+    /**
+     * One buffered change, already serialized.
+     */
+    record Change(long sequence, String type, String json) {
+    }
+
+    public CountryChangeFeed(ChangeFeedProperties properties, ObjectMapper objectMapper,
+                             @Qualifier("changeFeedExecutor") ExecutorService changeFeedExecutor,
+                             MeterRegistry meterRegistry) {
+        if (properties.getBufferSize() < 1) {
+            throw new IllegalArgumentException("changes.buffer-size must be at least 1");
+        }
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.changeFeedExecutor = changeFeedExecutor;
+        this.buffer = new Change[properties.getBufferSize()];
+        Gauge.builder("changes.subscribers", subscribers, Set::size)
+                .description("Open GET /countries/changes streams")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream that starts after the change {@code lastEventId} names, or with the next
+     * change if it is {@code null}. A new stream first announces its position with an id-only
+     * event; one whose {@code lastEventId} can no longer be resumed from starts with a
+     * {@code reset} event instead.
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        SseEmitter emitter = new SseEmitter(properties.getTimeout().toMillis());
+        Subscriber subscriber;
+        synchronized (this) {
+            if (lastEventId == null) {
+                subscriber = new Subscriber(emitter, lastSequence, false, null);
+            } else {
+                long resumeAfter = resumePoint(lastEventId);
+                subscriber = resumeAfter >= 0
+                        ? new Subscriber(emitter, resumeAfter, true, null)
+                        : new Subscriber(emitter, lastSequence, true, EXPIRED);
+            }
+        }
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> {
+            // Ends the stream cleanly; EventSource reconnects and resumes
+            subscribers.remove(subscriber);
+            emitter.complete();
+        });
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscriber.wake();
+        return emitter;
+    }
+
+    /**
+     * Sends a keep-alive comment on every stream.
+     */
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeatDue.set(true);
+            subscriber.wake();
+        }
+    }
+
+    @EventListener
+    public synchronized void onSnapshotPublished(CountrySnapshotPublishedEvent event) {
+        CountrySnapshot previous = lastSnapshot;
+        lastSnapshot = event.snapshot();
+        // The first snapshot is where clients start, with GET /countries
+        if (previous != null) {
+            append(COUNTRY, diff(previous, event.snapshot()));
+        }
+    }
+
+    @EventListener
+    public void onExchangeRatesReplaced(ExchangeRateTableReplacedEvent event) {
+        ExchangeRateTable previous = event.previous();
+        ExchangeRateTable rates = event.rates();
+        Map<String, Double> changed = new TreeMap<>();
+        for (int i = 0; i < rates.size(); i++) {
+            int before = previous.indexOf(rates.code(i));
+            if (before < 0 || previous.rate(before) != rates.rate(i)) {
+                changed.put(rates.code(i), rates.rate(i));
+            }
+        }
+        if (!changed.isEmpty()) {
+            RateChangeDto change = new RateChangeDto();
+            change.setBaseCode(rates.getBaseCode());
+            change.setUpdatedAt(rates.getUpdatedAt());
+            change.setRates(changed);
+            append(RATES, List.of(change));
+        }
+    }
+
+    @EventListener
+    public void onRefreshJobUpdated(RefreshJobUpdatedEvent event) {
+        RefreshJobResponseDto job = event.job();
+        RefreshJobResponseDto change = new RefreshJobResponseDto();
+        change.setId(job.getId());
+        change.setStatus(job.getStatus());
+        change.setStartedAt(job.getStartedAt());
+        change.setFinishedAt(job.getFinishedAt());
+        change.setRefreshedBy(job.getRefreshedBy());
+        change.setResult(job.getResult());
+        change.setError(job.getError());
+        append(REFRESH, List.of(change));
+    }
+
+    /**
+     * The countries deleted from {@code previous}, then those inserted or updated in {@code next},
+     * in id order. Countries both snapshots share unchanged are skipped without being compared.
+     */
+    static List<CountryChangeDto> diff(CountrySnapshot previous, CountrySnapshot next) {
+        List<CountryChangeDto> changes = new ArrayList<>();
+        for (Country country : previous.getCountries()) {
+            if (next.findByName(country.getName()).isEmpty()) {
+                changes.add(change("deleted", country.getName(), null));
+            }
+        }
+        for (Country country : next.getCountries()) {
+            Country before = previous.findByName(country.getName()).orElse(null);
+            if (before == country) {
+                continue;
+            }
+            Map<String, Object> fields = CountryFields.changed(before, country);
+            if (!fields.isEmpty()) {
+                changes.add(change(before == null ? "inserted" : "updated", country.getName(), fields));
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * The buffered changes after {@code sequence}, or {@code null} if some of them were dropped.
+     */
+    synchronized List<Change> since(long sequence) {
+        if (sequence < lastSequence - buffer.length) {
+            return null;
+        }
+        List<Change> changes = new ArrayList<>((int) (lastSequence - sequence));
+        for (long next = sequence + 1; next <= lastSequence; next++) {
+            changes.add(buffer[slot(next)]);
+        }
+        return changes;
+    }
+
+    synchronized long lastSequence() {
+        return lastSequence;
+    }
+
+    String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    /**
+     * The sequence number an event id names, or -1 if it is from another run, ahead of this feed
+     * or too old to resume from.
+     */
+    private long resumePoint(String lastEventId) {
+        int separator = lastEventId.lastIndexOf('-');
+        if (separator < 0 || !lastEventId.substring(0, separator).equals(epoch)) {
+            return -1;
+        }
+        long sequence;
+        try {
+            sequence = Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        return sequence >= 0 && sequence <= lastSequence && sequence >= lastSequence - buffer.length ? sequence : -1;
+    }
+
+    private void append(String type, List<?> payloads) {
+        if (payloads.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            for (Object payload : payloads) {
+                lastSequence++;
+                buffer[slot(lastSequence)] = new Change(lastSequence, type, json(payload));
+            }
+        }
+        subscribers.forEach(Subscriber::wake);
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % buffer.length);
+    }
+
+    private String json(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize change", e);
+        }
+    }
+
+    private static CountryChangeDto change(String change, String name, Map<String, Object> fields) {
+        CountryChangeDto dto = new CountryChangeDto();
+        dto.setChange(change);
+        dto.setName(name);
+        dto.setFields(fields);
+        return dto;
+    }
+
+    /**
+     * One open stream and how far it has been sent. At most one thread sends to it at a time:
+     * {@link #wake()} starts one unless one is already scheduled, and that one keeps going until
+     * the stream has caught up.
+     */
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean heartbeatDue = new AtomicBoolean();
+
+        // Only touched by the sending thread
+        private long cursor;
+        private boolean announced;
+        private String resetReason;
+
+        Subscriber(SseEmitter emitter, long cursor, boolean announced, String resetReason) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+            this.announced = announced;
+            this.resetReason = resetReason;
+        }
+
+        void wake() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    changeFeedExecutor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down
+                    subscribers.remove(this);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                do {
+                    sendPending();
+                    scheduled.set(false);
+                } while ((lastSequence() > cursor || heartbeatDue.get()) && scheduled.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException e) {
+                // The client went away or the stream timed out; the emitter's callbacks finish it
+                subscribers.remove(this);
+                log.debug("Change feed stream closed: {}", e.getMessage());
+            }
+        }
+
+        private void sendPending() throws IOException {
+            List<Change> pending = resetReason != null ? null : since(cursor);
+            while (pending == null) {
+                cursor = lastSequence();
+                emitter.send(SseEmitter.event()
+                        .id(eventId(cursor))
+                        .name(RESET)
+                        .data(json(Map.of("reason", resetReason != null ? resetReason : DROPPED))));
+                resetReason = null;
+                announced = true;
+                pending = since(cursor);
+            }
+            if (!announced) {
+                // Sets the client's last event id, so it can resume from here even if nothing changes
+                emitter.send(SseEmitter.event().id(eventId(cursor)));
+                announced = true;
+            }
+            for (Change change : pending) {
+                emitter.send(SseEmitter.event()
+                        .id(eventId(change.sequence()))
+                        .name(change.type())
+                        .data(change.json()));
+                cursor = change.sequence();
+            }
+            if (heartbeatDue.getAndSet(false) && pending.isEmpty()) {
+                emitter.send(SseEmitter.event().comment("keep-alive"));
+            }
+        }
+    }
+}
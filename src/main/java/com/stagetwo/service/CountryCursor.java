@@ -0,0 +1,58 @@
+package com.stagetwo.service;
+
+import com.stagetwo.entity.Country;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keyset position in a country listing: the sort key (estimated GDP and id) of the last country
+ * on the previous page. Pages resume right after that key, so rows added or removed between
+ * requests never cause skipped or repeated countries. Encoded as an opaque URL-safe string.
+ */
+public record CountryCursor(CountrySnapshot.GdpOrder order, double gdp, long id) {
+
+    public static CountryCursor after(Country last, CountrySnapshot.GdpOrder order) {
+        return new CountryCursor(order, CountrySnapshot.gdp(last), CountrySnapshot.id(last));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor is malformed or was issued for another sort
+     */
+    public static CountryCursor decode(String cursor, CountrySnapshot.GdpOrder expectedOrder) {
+        CountryCursor decoded;
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            decoded = new CountryCursor(CountrySnapshot.GdpOrder.valueOf(parts[0]),
+                    Double.parseDouble(parts[1]), Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (decoded.order != expectedOrder) {
+            throw new IllegalArgumentException("Cursor was issued for a different sort");
+        }
+        return decoded;
+    }
+
+    public String encode() {
+        String raw = order.name() + ":" + gdp + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Index of the first country after this cursor in {@code countries}, which must be ordered by
+     * {@link CountrySnapshot#comparator(CountrySnapshot.GdpOrder)} for this cursor's order.
+     */
+    public int startIndex(List<Country> countries) {
+        Country probe = new Country();
+        probe.setId(id);
+        probe.setEstimatedGdp(gdp);
+        int index = Collections.binarySearch(countries, probe, CountrySnapshot.comparator(order));
+        return index >= 0 ? index + 1 : -(index + 1);
+    }
+}
@@ -0,0 +1,60 @@
+package com.stagetwo.service;
+
+import com.stagetwo.dto.CountryResponseDto;
+import com.stagetwo.entity.Country;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The RestCountries payload of a refresh, handed to the writer in fixed-size chunks of
+ * {@link Country} rows (name, capital, region, population, flag and first currency code set).
+ */
+public interface CountryFeed extends AutoCloseable {
+
+    /**
+     * Passes the feed to {@code consumer} in chunks of at most {@code chunkSize} countries.
+     * The chunk list may be reused between calls.
+     */
+    void forEachChunk(int chunkSize, Consumer<List<Country>> consumer) throws IOException;
+
+    @Override
+    default void close() {
+    }
+
+    /**
+     * A feed over an already deserialized payload.
+     */
+    static CountryFeed of(CountryResponseDto[] countries) {
+        return (chunkSize, consumer) -> {
+            List<Country> chunk = new ArrayList<>(chunkSize);
+            for (CountryResponseDto dto : countries) {
+                chunk.add(toCountry(dto));
+                if (chunk.size() == chunkSize) {
+                    consumer.accept(chunk);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                consumer.accept(chunk);
+            }
+        };
+    }
+
+    static Country toCountry(CountryResponseDto dto) {
+        Country country = new Country();
+        country.setName(dto.getName());
+        country.setCapital(dto.getCapital());
+        country.setRegion(dto.getRegion());
+        country.setPopulation(dto.getPopulation());
+        country.setFlagUrl(dto.getFlag());
+
+        // Only the first currency is stored
+        if (dto.getCurrencies() != null && !dto.getCurrencies().isEmpty()) {
+            country.setCurrencyCode(dto.getCurrencies().get(0).getCode());
+        }
+        return country;
+    }
+}
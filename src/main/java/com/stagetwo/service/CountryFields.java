@@ -0,0 +1,112 @@
+package com.stagetwo.service;
+
+import com.stagetwo.entity.Country;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A {@code fields=} projection of {@link Country}. Only the selected properties are written, in
+ * the order they were requested.
+ */
+public final class CountryFields {
+
+    private enum Field {
+        ID("id", Country::getId),
+        NAME("name", Country::getName),
+        CAPITAL("capital", Country::getCapital),
+        REGION("region", Country::getRegion),
+        POPULATION("population", Country::getPopulation),
+        CURRENCY_CODE("currencyCode", Country::getCurrencyCode),
+        EXCHANGE_RATE("exchangeRate", Country::getExchangeRate),
+        ESTIMATED_GDP("estimatedGdp", Country::getEstimatedGdp),
+        FLAG_URL("flagUrl", Country::getFlagUrl),
+        LAST_REFRESHED_AT("lastRefreshedAt", Country::getLastRefreshedAt);
+
+        private final String property;
+        private final Function<Country, Object> getter;
+
+        Field(String property, Function<Country, Object> getter) {
+            this.property = property;
+            this.getter = getter;
+        }
+
+        static Field of(String property) {
+            for (Field field : values()) {
+                if (field.property.equalsIgnoreCase(property)) {
+                    return field;
+                }
+            }
+            throw new IllegalArgumentException("Unknown field: " + property);
+        }
+    }
+
+    private final List<Field> fields;
+
+    private CountryFields(List<Field> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Parses a comma-separated list of {@link Country} property names.
+     *
+     * @throws IllegalArgumentException if a name is unknown or the list is empty
+     */
+    public static CountryFields parse(String fields) {
+        List<Field> selected = new ArrayList<>();
+        for (String name : fields.split(",")) {
+            if (!name.isBlank()) {
+                Field field = Field.of(name.trim());
+                if (!selected.contains(field)) {
+                    selected.add(field);
+                }
+            }
+        }
+        if (selected.isEmpty()) {
+            throw new IllegalArgumentException("fields must name at least one property");
+        }
+        return new CountryFields(List.copyOf(selected));
+    }
+
+    public List<Map<String, Object>> project(List<Country> countries) {
+        List<Map<String, Object>> rows = new ArrayList<>(countries.size());
+        for (Country country : countries) {
+            Map<String, Object> row = new LinkedHashMap<>(fields.size() * 2);
+            for (Field field : fields) {
+                row.put(field.property, field.getter.apply(country));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * The properties of {@code after} whose values differ from those of {@code before}, with
+     * their new values, or all properties if {@code before} is {@code null}.
+     */
+    public static Map<String, Object> changed(Country before, Country after) {
+        Map<String, Object> changed = new LinkedHashMap<>();
+        for (Field field : Field.values()) {
+            Object value = field.getter.apply(after);
+            if (before == null || !Objects.equals(field.getter.apply(before), value)) {
+                changed.put(field.property, value);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Every property of {@code country}, in a fixed order.
+     */
+    static List<Object> values(Country country) {
+        List<Object> values = new ArrayList<>(Field.values().length);
+        for (Field field : Field.values()) {
+            values.add(field.getter.apply(country));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,11 @@
+package com.stagetwo.service;
+
+import com.stagetwo.entity.Country;
+
+import java.util.List;
+
+/**
+ * One page of a country listing; {@code nextCursor} is {@code null} on the last page.
+ */
+public record CountryPage(List<Country> countries, String nextCursor) {
+}
@@ -0,0 +1,401 @@
+package com.stagetwo.service;
+
+import com.stagetwo.entity.Country;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable typeahead index over country names, capitals and currency codes. Every value is
+ * normalized (accents stripped, lower case, punctuation folded to single spaces) and indexed as a
+ * whole and from each later word, so "kingdom" finds "United Kingdom".
+ *
+ * <p>The terms are sorted, so the terms below any prefix form a contiguous range, and compiled
+ * into a trie laid out breadth first in flat arrays: each node holds its character, the range of
+ * terms below it and where its children start, the children of a node being adjacent. A query
+ * matches every term that starts with its first character followed by a string at most
+ * {@code maxEdits} away from the rest of it, counting insertions, deletions, substitutions and
+ * swaps of adjacent characters as one edit each. The walk carries one row of the edit-distance
+ * matrix per trie level and abandons a branch as soon as every cell in the row is over the bound.
+ * Pinning the first character, as typeahead users rarely mistype it, keeps the walk out of most
+ * of the densely populated top of the trie.
+ */
+public final class CountrySearchIndex {
+
+    public enum Field {
+        NAME,
+        CAPITAL,
+        CURRENCY_CODE
+    }
+
+    public record Hit(Country country, Field field, String value, int distance) {
+    }
+
+    private static final Field[] FIELDS = Field.values();
+
+    private final Country[] countries;
+
+    // Per term, in sorted order
+    private final int[] termCountry;
+    private final byte[] termField;
+
+    /**
+     * Position of each term in the preferred result order when distances are equal: whole names,
+     * whole capitals, currency codes, then later words; shorter terms first.
+     */
+    private final int[] termRank;
+    private final int[] rankTerm;
+
+    // Per trie node, breadth first from the root at 0; the children of node n are
+    // childStart[n] until childStart[n + 1]
+    private final char[] nodeChar;
+    private final int[] nodeFrom;
+    private final int[] nodeTo;
+    private final int[] childStart;
+
+    private CountrySearchIndex(Country[] countries, List<Term> entries) {
+        this.countries = countries;
+        Term[] sorted = entries.toArray(new Term[0]);
+        Arrays.sort(sorted, Comparator.comparing(Term::text));
+        int size = sorted.length;
+        String[] terms = new String[size];
+        termCountry = new int[size];
+        termField = new byte[size];
+        for (int i = 0; i < size; i++) {
+            terms[i] = sorted[i].text();
+            termCountry[i] = sorted[i].country();
+            termField[i] = (byte) sorted[i].field().ordinal();
+        }
+
+        // Kind, then length, then sorted position (which orders equal lengths by text)
+        long[] byPreference = new long[size];
+        for (int i = 0; i < size; i++) {
+            byPreference[i] = (long) sorted[i].kind() << 56 | (long) Math.min(terms[i].length(), 0xFFFFFF) << 32 | i;
+        }
+        Arrays.sort(byPreference);
+        termRank = new int[size];
+        rankTerm = new int[size];
+        for (int rank = 0; rank < size; rank++) {
+            int term = (int) byPreference[rank];
+            termRank[term] = rank;
+            rankTerm[rank] = term;
+        }
+
+        TrieBuilder trie = new TrieBuilder(Math.max(16, size * 2));
+        trie.add('\0', 0, size);
+        int levelStart = 0;
+        for (int depth = 0; levelStart < trie.count; depth++) {
+            int levelEnd = trie.count;
+            for (int node = levelStart; node < levelEnd; node++) {
+                trie.startChildren(node);
+                int i = trie.from[node];
+                int to = trie.to[node];
+                // Terms that end at this node sort first and have no child
+                while (i < to && terms[i].length() == depth) {
+                    i++;
+                }
+                while (i < to) {
+                    char c = terms[i].charAt(depth);
+                    int end = childEnd(terms, depth, c, i, to);
+                    trie.add(c, i, end);
+                    i = end;
+                }
+            }
+            levelStart = levelEnd;
+        }
+        trie.startChildren(trie.count);
+        nodeChar = Arrays.copyOf(trie.chars, trie.count);
+        nodeFrom = Arrays.copyOf(trie.from, trie.count);
+        nodeTo = Arrays.copyOf(trie.to, trie.count);
+        childStart = Arrays.copyOf(trie.childStart, trie.count + 1);
+    }
+
+    public static CountrySearchIndex of(List<Country> countries) {
+        Country[] indexed = countries.toArray(new Country[0]);
+        List<Term> entries = new ArrayList<>(indexed.length * 4);
+        for (int i = 0; i < indexed.length; i++) {
+            addTerms(entries, i, Field.NAME, indexed[i].getName(), true);
+            addTerms(entries, i, Field.CAPITAL, indexed[i].getCapital(), true);
+            addTerms(entries, i, Field.CURRENCY_CODE, indexed[i].getCurrencyCode(), false);
+        }
+        return new CountrySearchIndex(indexed, entries);
+    }
+
+    private static void addTerms(List<Term> entries, int country, Field field, String value, boolean words) {
+        String text = normalize(value);
+        if (text.isEmpty()) {
+            return;
+        }
+        entries.add(new Term(text, country, field, field.ordinal()));
+        if (words) {
+            for (int i = text.indexOf(' '); i >= 0; i = text.indexOf(' ', i + 1)) {
+                entries.add(new Term(text.substring(i + 1), country, field, FIELDS.length + field.ordinal()));
+            }
+        }
+    }
+
+    /**
+     * Lower case without diacritics, with every run of characters other than letters and digits
+     * replaced by one space.
+     */
+    public static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && !normalized.isEmpty()) {
+                    normalized.append(' ');
+                }
+                pendingSpace = false;
+                normalized.append(Character.toLowerCase(c));
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Edits allowed for a normalized query of {@code length} characters: none below 3, one below
+     * 6, two from there on.
+     */
+    static int maxEdits(int length) {
+        return length < 3 ? 0 : length < 6 ? 1 : 2;
+    }
+
+    public int size() {
+        return termCountry.length;
+    }
+
+    /**
+     * Up to {@code limit} countries with a term that starts within {@link #maxEdits} of
+     * {@code query}, closest first, one hit per country (its best term).
+     */
+    public List<Hit> search(String query, int limit) {
+        String q = normalize(query);
+        int first = q.isEmpty() ? -1 : findChild(0, q.charAt(0));
+        if (first < 0 || limit <= 0) {
+            return List.of();
+        }
+        int maxEdits = maxEdits(q.length());
+        TopHits top = new TopHits(limit);
+        // One edit-distance row per trie level; no prefix longer than q plus maxEdits can match
+        int[][] rows = new int[q.length() + maxEdits + 2][q.length() + 1];
+        // Widening the bound one edit at a time stops as soon as closer hits fill the limit
+        for (int edits = 0; edits <= maxEdits && !top.isFull(); edits++) {
+            for (int[] row : rows) {
+                Arrays.fill(row, edits + 1);
+            }
+            for (int j = 0; j <= Math.min(q.length(), edits); j++) {
+                rows[0][j] = j;
+            }
+            walk(q, edits, 0, first, first + 1, '\0', rows, top);
+        }
+
+        List<Hit> hits = new ArrayList<>(top.size);
+        for (long key : top.sorted()) {
+            int term = rankTerm[(int) key];
+            Country country = countries[termCountry[term]];
+            Field field = FIELDS[termField[term]];
+            hits.add(new Hit(country, field, value(country, field), (int) (key >>> 32)));
+        }
+        return hits;
+    }
+
+    /**
+     * Visits the sibling trie nodes {@code [firstNode, endNode)}, {@code depth + 1} characters
+     * deep. {@code rows[depth]} holds the edit distances between their parent's prefix, which
+     * ends in {@code parentChar}, and every prefix of {@code q}. Only the diagonal band within
+     * {@code maxEdits} is computed; every cell outside it stays at {@code maxEdits + 1}.
+     */
+    private void walk(String q, int maxEdits, int depth, int firstNode, int endNode, char parentChar,
+                      int[][] rows, TopHits top) {
+        int[] row = rows[depth];
+        int[] next = rows[depth + 1];
+        int last = q.length();
+        int from = Math.max(1, depth + 1 - maxEdits);
+        int to = Math.min(last, depth + 1 + maxEdits);
+        next[0] = Math.min(depth + 1, maxEdits + 1);
+
+        for (int node = firstNode; node < endNode; node++) {
+            char c = nodeChar[node];
+            int best = next[0];
+            for (int j = from; j <= to; j++) {
+                int substitution = row[j - 1] + (q.charAt(j - 1) == c ? 0 : 1);
+                next[j] = Math.min(substitution, Math.min(row[j], next[j - 1]) + 1);
+                if (j > 1 && depth > 0 && c == q.charAt(j - 2) && parentChar == q.charAt(j - 1)) {
+                    // Two adjacent characters swapped count as one edit
+                    next[j] = Math.min(next[j], rows[depth - 1][j - 2] + 1);
+                }
+                best = Math.min(best, next[j]);
+            }
+
+            int distance = next[last];
+            if (distance <= maxEdits) {
+                // The query is within reach of this prefix, so it matches every term below it
+                top.offerRange(this, nodeFrom[node], nodeTo[node], distance);
+            }
+            // Going deeper can only help while some cell is within the bound and below the match
+            if (best <= maxEdits && best < Math.min(distance, maxEdits + 1) && !top.excludes(best)) {
+                walk(q, maxEdits, depth + 1, childStart[node], childStart[node + 1], c, rows, top);
+            }
+        }
+    }
+
+    private int findChild(int node, char c) {
+        for (int child = childStart[node]; child < childStart[node + 1]; child++) {
+            if (nodeChar[child] == c) {
+                return child;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * End of the run of terms in {@code [from, to)} with {@code c} at {@code depth}.
+     */
+    private static int childEnd(String[] terms, int depth, char c, int from, int to) {
+        int low = from + 1;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (terms[mid].charAt(depth) == c) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static String value(Country country, Field field) {
+        return switch (field) {
+            case NAME -> country.getName();
+            case CAPITAL -> country.getCapital();
+            case CURRENCY_CODE -> country.getCurrencyCode();
+        };
+    }
+
+    private record Term(String text, int country, Field field, int kind) {
+    }
+
+    private static final class TrieBuilder {
+        private char[] chars;
+        private int[] from;
+        private int[] to;
+        private int[] childStart;
+        private int count;
+
+        TrieBuilder(int capacity) {
+            chars = new char[capacity];
+            from = new int[capacity];
+            to = new int[capacity];
+            childStart = new int[capacity + 1];
+        }
+
+        void add(char c, int termFrom, int termTo) {
+            if (count == chars.length) {
+                int capacity = count * 2;
+                chars = Arrays.copyOf(chars, capacity);
+                from = Arrays.copyOf(from, capacity);
+                to = Arrays.copyOf(to, capacity);
+                childStart = Arrays.copyOf(childStart, capacity + 1);
+            }
+            chars[count] = c;
+            from[count] = termFrom;
+            to[count] = termTo;
+            count++;
+        }
+
+        void startChildren(int node) {
+            childStart[node] = count;
+        }
+    }
+
+    /**
+     * The best {@code limit} hits seen so far, one per country, as keys of edit distance (high
+     * half) and term rank (low half); smaller keys are better.
+     */
+    private static final class TopHits {
+        private final long[] keys;
+        private final int[] countries;
+        private int size;
+        private int worst;
+
+        TopHits(int limit) {
+            keys = new long[limit];
+            countries = new int[limit];
+        }
+
+        boolean isFull() {
+            return size == keys.length;
+        }
+
+        /**
+         * Whether every hit at {@code distance} or more would lose to the ones already held.
+         */
+        boolean excludes(int distance) {
+            return isFull() && (int) (keys[worst] >>> 32) < distance;
+        }
+
+        void offerRange(CountrySearchIndex index, int from, int to, int distance) {
+            if (excludes(distance)) {
+                return;
+            }
+            for (int term = from; term < to; term++) {
+                long key = (long) distance << 32 | index.termRank[term];
+                if (isFull() && key >= keys[worst]) {
+                    continue;
+                }
+                offer(key, index.termCountry[term]);
+            }
+        }
+
+        private void offer(long key, int country) {
+            for (int i = 0; i < size; i++) {
+                if (countries[i] == country) {
+                    if (key < keys[i]) {
+                        keys[i] = key;
+                        worst = findWorst();
+                    }
+                    return;
+                }
+            }
+            if (size < keys.length) {
+                keys[size] = key;
+                countries[size++] = country;
+            } else {
+                keys[worst] = key;
+                countries[worst] = country;
+            }
+            worst = findWorst();
+        }
+
+        private int findWorst() {
+            int worst = 0;
+            for (int i = 1; i < size; i++) {
+                if (keys[i] > keys[worst]) {
+                    worst = i;
+                }
+            }
+            return worst;
+        }
+
+        long[] sorted() {
+            long[] sorted = Arrays.copyOf(keys, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
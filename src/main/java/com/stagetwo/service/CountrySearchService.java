@@ -0,0 +1,76 @@
+package com.stagetwo.service;
+
+import com.stagetwo.dto.CountrySearchHitDto;
+import com.stagetwo.event.CountrySnapshotPublishedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Typeahead search over the current snapshot. The {@link CountrySearchIndex} is rebuilt once per
+ * published snapshot, so a keystroke costs one walk of an in-memory index and never a query.
+ */
+@Service
+@RequiredArgsConstructor
+public class CountrySearchService {
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 50;
+
+    private final CountrySnapshotService countrySnapshotService;
+
+    private volatile VersionedIndex index = new VersionedIndex(0, CountrySearchIndex.of(List.of()));
+
+    @EventListener
+    public void onSnapshotPublished(CountrySnapshotPublishedEvent event) {
+        indexFor(event.snapshot());
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code query} is blank or {@code limit} is outside 1-50
+     */
+    public List<CountrySearchHitDto> search(String query, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("q is required");
+        }
+        int max = limit != null ? limit : DEFAULT_LIMIT;
+        if (max < 1 || max > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        return indexFor(countrySnapshotService.current()).search(query, max).stream()
+                .map(CountrySearchService::toDto)
+                .toList();
+    }
+
+    /**
+     * The index of {@code snapshot}, built here if the publish event has not done so yet. An
+     * index is only kept if no newer one has been stored in the meantime.
+     */
+    private CountrySearchIndex indexFor(CountrySnapshot snapshot) {
+        VersionedIndex current = index;
+        if (current.version == snapshot.getVersion()) {
+            return current.index;
+        }
+        CountrySearchIndex built = CountrySearchIndex.of(snapshot.getCountries());
+        synchronized (this) {
+            if (index.version < snapshot.getVersion()) {
+                index = new VersionedIndex(snapshot.getVersion(), built);
+            }
+        }
+        return built;
+    }
+
+    private static CountrySearchHitDto toDto(CountrySearchIndex.Hit hit) {
+        CountrySearchHitDto dto = new CountrySearchHitDto();
+        dto.setCountry(hit.country());
+        dto.setMatchedField(hit.field().name().toLowerCase(Locale.ROOT));
+        dto.setMatchedValue(hit.value());
+        dto.setDistance(hit.distance());
+        return dto;
+    }
+
+    private record VersionedIndex(long version, CountrySearchIndex index) {
+    }
+}
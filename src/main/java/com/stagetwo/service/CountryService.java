@@ -1,145 +1,300 @@
 package com.stagetwo.service;
 
-import com.stagetwo.dto.CountryResponseDto;
+import com.stagetwo.dto.CountryStatsResponseDto;
 import com.stagetwo.dto.ExchangeRateResponseDto;
 import com.stagetwo.dto.StatusResponseDto;
 import com.stagetwo.entity.Country;
+import com.stagetwo.event.CountryDataChangedEvent;
+import com.stagetwo.event.ExchangeRatesUpdatedEvent;
+import com.stagetwo.exception.RefreshLeaseLostException;
+import com.stagetwo.exception.UpstreamUnavailableException;
+import com.stagetwo.repository.CountryBatchRepository;
 import com.stagetwo.repository.CountryRepository;
+import com.stagetwo.repository.DatasetVersionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class CountryService {
     private final CountryRepository countryRepository;
-    private final RestTemplate restTemplate;
-    private final ImageGenerationService imageGenerationService;
+    private final CountryBatchRepository countryBatchRepository;
+    private final DatasetVersionRepository datasetVersionRepository;
+    private final UpstreamFetchService upstreamFetchService;
+    private final TransactionTemplate transactionTemplate;
+    private final CountrySnapshotService countrySnapshotService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObservationRegistry observationRegistry;
+    private final MeterRegistry meterRegistry;
 
-    private static final String COUNTRIES_API = "https://restcountries.com/v2/all?fields=name,capital,region,population,flag,currencies";
-    private static final String EXCHANGE_RATE_API = "https://open.er-api.com/v6/latest/USD";
     private static final Random random = new Random();
 
-    @Transactional
-    public void refreshCountries() {
-        try {
-            // Fetch countries data
-            CountryResponseDto[] countries = restTemplate.getForObject(COUNTRIES_API, CountryResponseDto[].class);
-            if (countries == null || countries.length == 0) {
-                throw new RuntimeException("Could not fetch data from RestCountries API");
+    @Value("${refresh.batch-size:200}")
+    private int batchSize;
+
+    public RefreshResult refreshCountries() {
+        return refreshCountries(RefreshProgress.NONE);
+    }
+
+    /**
+     * Runs one refresh inside a {@code refresh} observation, with a {@code refresh.phase}
+     * observation per phase.
+     */
+    public RefreshResult refreshCountries(RefreshProgress progress) {
+        Observation observation = Observation.start("refresh", observationRegistry);
+        try (Observation.Scope scope = observation.openScope();
+             ObservedRefreshProgress phases = new ObservedRefreshProgress(progress, observationRegistry, observation)) {
+            try {
+                RefreshResult result = refresh(phases);
+                countRows(result);
+                return result;
+            } catch (RuntimeException e) {
+                phases.error(e);
+                observation.error(e);
+                throw e;
             }
+        } finally {
+            observation.stop();
+        }
+    }
 
-            // Fetch exchange rates
-            ExchangeRateResponseDto exchangeRates = restTemplate.getForObject(EXCHANGE_RATE_API, ExchangeRateResponseDto.class);
-            if (exchangeRates == null || exchangeRates.getRates() == null) {
-                throw new RuntimeException("Could not fetch data from Exchange Rate API");
+    private RefreshResult refresh(RefreshProgress progress) {
+        try {
+            // Fetch both upstream payloads before a database connection is taken
+            progress.enterPhase("fetch");
+            UpstreamFetchService.UpstreamData upstream = upstreamFetchService.fetch();
+            try (CountryFeed countries = upstream.countries()) {
+                return transactionTemplate.execute(status ->
+                        applyRefresh(countries, upstream.exchangeRates(), upstream.lastKnownGood(), progress));
             }
+        } catch (UpstreamUnavailableException | RefreshLeaseLostException e) {
+            log.error("Error refreshing countries", e);
+            throw e;
+        } catch (Exception e) {
+            log.error("Error refreshing countries", e);
+            throw new RuntimeException("Refresh failed: " + e.getMessage(), e);
+        }
+    }
+
+    private void countRows(RefreshResult result) {
+        meterRegistry.counter("refresh.rows", "operation", "inserted").increment(result.inserted());
+        meterRegistry.counter("refresh.rows", "operation", "updated").increment(result.updated());
+        meterRegistry.counter("refresh.rows", "operation", "unchanged").increment(result.unchanged());
+        meterRegistry.counter("refresh.rows", "operation", "removed").increment(result.removed());
+    }
+
+    private RefreshResult applyRefresh(CountryFeed countries, ExchangeRateResponseDto exchangeRates,
+                                       List<String> lastKnownGood, RefreshProgress progress) {
+        progress.enterPhase("persist");
+
+        // Diff the feed against what is stored, loaded in a single query, one chunk at a time
+        RefreshDiff diff = new RefreshDiff(countryBatchRepository.findAllByName(), exchangeRates.getRates(), LocalDateTime.now());
+        try {
+            countries.forEachChunk(batchSize, chunk -> writeChunk(chunk, diff));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (diff.seen.isEmpty()) {
+            throw new UpstreamUnavailableException(UpstreamFetchService.COUNTRIES_API);
+        }
+        // Countries that are no longer in the feed are removed
+        List<Country> removed = diff.existing.entrySet().stream()
+                .filter(entry -> !diff.seen.contains(entry.getKey()))
+                .map(Map.Entry::getValue)
+                .toList();
+        countryBatchRepository.deleteAll(removed);
+        progress.beforeCommit();
 
-            LocalDateTime now = LocalDateTime.now();
-            Map<String, Double> rates = exchangeRates.getRates();
-
-            // Process each country
-            for (CountryResponseDto dto : countries) {
-                Country country = new Country();
-
-                // Basic fields
-                country.setName(dto.getName());
-                country.setCapital(dto.getCapital());
-                country.setRegion(dto.getRegion());
-                country.setPopulation(dto.getPopulation());
-                country.setFlagUrl(dto.getFlag());
-                country.setLastRefreshedAt(now);
-
-                // Currency handling
-                if (dto.getCurrencies() != null && !dto.getCurrencies().isEmpty()) {
-                    String currencyCode = dto.getCurrencies().get(0).getCode();
-                    country.setCurrencyCode(currencyCode);
-
-                    // Get exchange rate
-                    Double exchangeRate = rates.get(currencyCode);
-                    country.setExchangeRate(exchangeRate);
-
-                    // Calculate estimated GDP
-                    if (exchangeRate != null && exchangeRate > 0) {
-                        double randomMultiplier = 1000 + random.nextDouble() * 1000; // 1000-2000
-                        double estimatedGdp = (dto.getPopulation() * randomMultiplier) / exchangeRate;
-                        country.setEstimatedGdp(estimatedGdp);
-                    } else {
-                        country.setEstimatedGdp(null);
-                    }
-                } else {
-                    // No currency
-                    country.setCurrencyCode(null);
-                    country.setExchangeRate(null);
-                    country.setEstimatedGdp(0.0);
-                }
-
-                // Update or insert
-                Optional<Country> existing = countryRepository.findByNameIgnoreCase(dto.getName());
-                if (existing.isPresent()) {
-                    country.setId(existing.get().getId());
-                }
-                countryRepository.save(country);
+        RefreshResult result = new RefreshResult(diff.inserted, diff.updated, diff.unchanged, removed.size(), lastKnownGood);
+        log.info("Refresh diff: {} inserted, {} updated, {} unchanged, {} removed",
+                result.inserted(), result.updated(), result.unchanged(), result.removed());
+
+        // The snapshot and summary image are rebuilt once this transaction has committed, and
+        // only if a row changed; other instances see the bumped version and reload theirs
+        if (result.hasChanges()) {
+            datasetVersionRepository.increment();
+            eventPublisher.publishEvent(CountryDataChangedEvent.refreshed());
+        }
+        eventPublisher.publishEvent(new ExchangeRatesUpdatedEvent(exchangeRates));
+
+        log.info("Successfully refreshed {} countries", diff.seen.size());
+        return result;
+    }
+
+    private void writeChunk(List<Country> chunk, RefreshDiff diff) {
+        List<Country> inserts = new ArrayList<>();
+        List<Country> updates = new ArrayList<>();
+        for (Country country : chunk) {
+            if (country.getName() == null || country.getName().isBlank()) {
+                continue;
+            }
+            String key = CountryBatchRepository.nameKey(country.getName());
+            if (!diff.seen.add(key)) {
+                continue;
             }
 
-            // Generate summary image
-            long totalCountries = countryRepository.count();
-            List<Country> topCountries = getTopCountriesByGdp(5);
-            imageGenerationService.generateSummaryImage(totalCountries, topCountries, now);
+            if (country.getCurrencyCode() != null) {
+                country.setExchangeRate(diff.rates.get(country.getCurrencyCode()));
+            }
+            country.setSourceHash(sourceHash(country));
+            Country current = diff.existing.get(key);
+            if (current != null && storedSourceHash(current) == country.getSourceHash()
+                    && Objects.equals(current.getExchangeRate(), country.getExchangeRate())) {
+                diff.unchanged++;
+                continue;
+            }
 
-            log.info("Successfully refreshed {} countries", totalCountries);
-        } catch (Exception e) {
-            log.error("Error refreshing countries", e);
-            throw new RuntimeException("External data source unavailable: " + e.getMessage());
+            applyEstimatedGdp(country, current);
+            country.setLastRefreshedAt(diff.now);
+            if (current == null) {
+                inserts.add(country);
+            } else {
+                country.setId(current.getId());
+                updates.add(country);
+            }
         }
+
+        countryBatchRepository.insertAll(inserts);
+        countryBatchRepository.updateAll(updates);
+        diff.inserted += inserts.size();
+        diff.updated += updates.size();
     }
 
-    public List<Country> getAllCountries(String region, String currency, String sort) {
-        List<Country> countries;
+    private void applyEstimatedGdp(Country country, Country current) {
+        if (country.getCurrencyCode() == null) {
+            // No currency
+            country.setEstimatedGdp(0.0);
+            return;
+        }
 
-        // Apply filters
-        if (region != null && !region.isEmpty()) {
-            countries = countryRepository.findByRegionIgnoreCase(region);
-        } else if (currency != null && !currency.isEmpty()) {
-            countries = countryRepository.findByCurrencyCodeIgnoreCase(currency);
-        } else {
-            countries = countryRepository.findAll();
-        }
-
-        // Apply sorting
-        if (sort != null && !sort.isEmpty()) {
-            if (sort.equalsIgnoreCase("gdp_desc")) {
-                countries = countries.stream()
-                        .sorted((c1, c2) -> {
-                            Double gdp1 = c1.getEstimatedGdp() != null ? c1.getEstimatedGdp() : 0.0;
-                            Double gdp2 = c2.getEstimatedGdp() != null ? c2.getEstimatedGdp() : 0.0;
-                            return Double.compare(gdp2, gdp1);
-                        })
-                        .collect(Collectors.toList());
-            } else if (sort.equalsIgnoreCase("gdp_asc")) {
-                countries = countries.stream()
-                        .sorted((c1, c2) -> {
-                            Double gdp1 = c1.getEstimatedGdp() != null ? c1.getEstimatedGdp() : 0.0;
-                            Double gdp2 = c2.getEstimatedGdp() != null ? c2.getEstimatedGdp() : 0.0;
-                            return Double.compare(gdp1, gdp2);
-                        })
-                        .collect(Collectors.toList());
+        Double exchangeRate = country.getExchangeRate();
+        if (exchangeRate != null && exchangeRate > 0) {
+            double multiplier = storedGdpMultiplier(current, country);
+            if (Double.isNaN(multiplier)) {
+                multiplier = 1000 + random.nextDouble() * 1000; // 1000-2000
             }
+            country.setEstimatedGdp((country.getPopulation() * multiplier) / exchangeRate);
+        } else {
+            country.setEstimatedGdp(null);
         }
+    }
+
+    /**
+     * The random multiplier the stored GDP estimate was computed with, so an exchange-rate
+     * change moves the estimate by the rate alone instead of re-rolling it. NaN if the stored
+     * row has no usable estimate or its population changed.
+     */
+    private static double storedGdpMultiplier(Country current, Country incoming) {
+        if (current == null || current.getEstimatedGdp() == null || current.getExchangeRate() == null
+                || !(current.getExchangeRate() > 0) || current.getPopulation() == null || current.getPopulation() <= 0
+                || !Objects.equals(current.getPopulation(), incoming.getPopulation())) {
+            return Double.NaN;
+        }
+        double multiplier = current.getEstimatedGdp() * current.getExchangeRate() / current.getPopulation();
+        return multiplier >= 1000 && multiplier <= 2000 ? multiplier : Double.NaN;
+    }
+
+    private static long storedSourceHash(Country current) {
+        return current.getSourceHash() != null ? current.getSourceHash() : sourceHash(current);
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the upstream fields of {@code country} (exchange rate excluded),
+     * with text trimmed and null kept distinct from empty. Rows written before the hash column
+     * existed hash to the same value from their stored columns.
+     */
+    static long sourceHash(Country country) {
+        long hash = 0xcbf29ce484222325L;
+        hash = hashField(hash, country.getName());
+        hash = hashField(hash, country.getCapital());
+        hash = hashField(hash, country.getRegion());
+        hash = hashField(hash, country.getPopulation() != null ? country.getPopulation().toString() : null);
+        hash = hashField(hash, country.getCurrencyCode());
+        hash = hashField(hash, country.getFlagUrl());
+        return hash;
+    }
+
+    private static long hashField(long hash, String value) {
+        if (value == null) {
+            return (hash ^ 0x1) * 0x100000001b3L;
+        }
+        String normalized = value.strip();
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            hash = (hash ^ (c & 0xff)) * 0x100000001b3L;
+            hash = (hash ^ (c >>> 8)) * 0x100000001b3L;
+        }
+        // Field separator (a zero byte), so ("ab", "c") and ("a", "bc") differ
+        return hash * 0x100000001b3L;
+    }
+
+    public List<Country> getAllCountries(String region, String currency, String sort, Integer limit) {
+        return getCountries(region, currency, sort, limit, null).countries();
+    }
+
+    List<Country> getAllCountries(CountrySnapshot snapshot, String region, String currency, String sort, Integer limit) {
+        return getCountries(snapshot, region, currency, sort, limit, null).countries();
+    }
 
-        return countries;
+    /**
+     * A page of countries matching all given filters. {@code after} is the cursor returned with
+     * the previous page and must have been issued for the same sort.
+     */
+    public CountryPage getCountries(String region, String currency, String sort, Integer limit, String after) {
+        return getCountries(countrySnapshotService.current(), region, currency, sort, limit, after);
+    }
+
+    CountryPage getCountries(CountrySnapshot snapshot, String region, String currency, String sort,
+                             Integer limit, String after) {
+        CountrySnapshot.GdpOrder order = parseSort(sort);
+        if (limit != null && limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative");
+        }
+
+        // Each partition already holds its GDP orderings
+        List<Country> countries = snapshot.find(region, currency, order);
+
+        int from = 0;
+        if (after != null && !after.isEmpty()) {
+            from = CountryCursor.decode(after, order).startIndex(countries);
+        }
+        int to = limit != null ? (int) Math.min(countries.size(), (long) from + limit) : countries.size();
+        List<Country> page = countries.subList(from, to);
+
+        String nextCursor = null;
+        if (to < countries.size() && !page.isEmpty()) {
+            nextCursor = CountryCursor.after(page.get(page.size() - 1), order).encode();
+        }
+        return new CountryPage(page, nextCursor);
+    }
+
+    static CountrySnapshot.GdpOrder parseSort(String sort) {
+        if (sort != null && sort.equalsIgnoreCase("gdp_desc")) {
+            return CountrySnapshot.GdpOrder.DESC;
+        }
+        if (sort != null && sort.equalsIgnoreCase("gdp_asc")) {
+            return CountrySnapshot.GdpOrder.ASC;
+        }
+        return CountrySnapshot.GdpOrder.NONE;
     }
 
     public Country getCountryByName(String name) {
-        return countryRepository.findByNameIgnoreCase(name)
+        return countrySnapshotService.current().findByName(name)
                 .orElseThrow(() -> new NoSuchElementException("Country not found"));
     }
 
@@ -149,13 +304,15 @@ public class CountryService {
             throw new NoSuchElementException("Country not found");
         }
         countryRepository.deleteByNameIgnoreCase(name);
+        eventPublisher.publishEvent(CountryDataChangedEvent.deleted(name, datasetVersionRepository.increment()));
     }
 
     public StatusResponseDto getStatus() {
+        CountrySnapshot snapshot = countrySnapshotService.current();
         StatusResponseDto response = new StatusResponseDto();
-        response.setTotalCountries(countryRepository.count());
+        response.setTotalCountries(snapshot.size());
 
-        LocalDateTime lastRefresh = countryRepository.findLatestRefreshTime();
+        LocalDateTime lastRefresh = snapshot.getLastRefreshedAt();
         if (lastRefresh != null) {
             response.setLastRefreshedAt(lastRefresh.format(DateTimeFormatter.ISO_DATE_TIME));
         }
@@ -163,13 +320,50 @@ public class CountryService {
         return response;
     }
 
-    private List<Country> getTopCountriesByGdp(int limit) {
-        return countryRepository.findAll().stream()
-                .filter(c -> c.getEstimatedGdp() != null && c.getEstimatedGdp() > 0)
-                .sorted((c1, c2) -> Double.compare(c2.getEstimatedGdp(), c1.getEstimatedGdp()))
-                .limit(limit)
-                .collect(Collectors.toList());
+    /**
+     * Aggregates per region or per currency, kept with the snapshot, so a read costs one entry per
+     * group.
+     *
+     * @throws IllegalArgumentException if {@code groupBy} is neither {@code region} nor {@code currency}
+     */
+    public CountryStatsResponseDto getStats(String groupBy) {
+        CountryStats.GroupBy grouping = CountryStats.GroupBy.parse(groupBy);
+        List<CountryStatsResponseDto.Group> groups = new ArrayList<>();
+        for (CountryStats.Group group : countrySnapshotService.current().getStats().groups(grouping)) {
+            CountryStatsResponseDto.Group dto = new CountryStatsResponseDto.Group();
+            dto.setKey(group.name());
+            dto.setCountryCount(group.countries());
+            dto.setTotalPopulation(group.population());
+            dto.setGdpSum(group.gdpSum());
+            dto.setGdpAvg(group.gdpAverage());
+            dto.setGdpMax(group.gdpMax());
+            dto.setMinExchangeRate(group.minExchangeRate());
+            dto.setMaxExchangeRate(group.maxExchangeRate());
+            dto.setExchangeRateSpread(group.exchangeRateSpread());
+            groups.add(dto);
+        }
+        CountryStatsResponseDto response = new CountryStatsResponseDto();
+        response.setGroupBy(grouping.name().toLowerCase(Locale.ROOT));
+        response.setGroups(groups);
+        return response;
     }
 
+    /**
+     * State of one refresh while the feed is written chunk by chunk.
+     */
+    private static final class RefreshDiff {
+        private final Map<String, Country> existing;
+        private final Map<String, Double> rates;
+        private final LocalDateTime now;
+        private final Set<String> seen = new HashSet<>();
+        private int inserted;
+        private int updated;
+        private int unchanged;
 
+        private RefreshDiff(Map<String, Country> existing, Map<String, Double> rates, LocalDateTime now) {
+            this.existing = existing;
+            this.rates = rates;
+            this.now = now;
+        }
+    }
 }
@@ -0,0 +1,334 @@
+package com.stagetwo.service;
+
+import com.stagetwo.entity.Country;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable, versioned view of the countries table, in id order, with case-insensitive indexes by
+ * name, region and currency code. Every partition (all countries, each region, each currency) also
+ * keeps an estimated-GDP ordering computed once when the snapshot is built, so sorted and top-N
+ * reads are list views rather than per-request sorts, along with the {@link CountryStats} of the
+ * regions and currencies. A new instance is built for every change; readers never lock.
+ */
+public final class CountrySnapshot {
+    /**
+     * Descending estimated GDP, missing GDP counted as zero, ties broken by id.
+     */
+    private static final Comparator<Country> GDP_DESC = (c1, c2) -> {
+        int byGdp = Double.compare(gdp(c2), gdp(c1));
+        return byGdp != 0 ? byGdp : Long.compare(id(c1), id(c2));
+    };
+
+    private static final Comparator<Country> ID_ASC = Comparator.comparingLong(CountrySnapshot::id);
+
+    public enum GdpOrder {
+        NONE,
+        DESC,
+        ASC
+    }
+
+    private final long version;
+    private final long datasetVersion;
+    private final Partition all;
+    private final Map<String, Country> byName;
+    private final Map<String, Partition> byRegion;
+    private final Map<String, Partition> byCurrency;
+    private final LocalDateTime lastRefreshedAt;
+    private final Instant lastModified;
+    private final CountryStats stats;
+
+    // Computed on first use; a racing second computation yields the same value
+    private volatile String contentHash;
+
+    private CountrySnapshot(long version, long datasetVersion, List<Country> countries, Instant modifiedAt,
+                            CountryStats stats) {
+        this.version = version;
+        this.datasetVersion = datasetVersion;
+        this.all = Partition.of(countries);
+        this.stats = stats;
+
+        Map<String, Country> names = new HashMap<>();
+        Map<String, List<Country>> regions = new HashMap<>();
+        Map<String, List<Country>> currencies = new HashMap<>();
+        LocalDateTime latest = null;
+        for (Country country : countries) {
+            names.put(key(country.getName()), country);
+            if (country.getRegion() != null) {
+                regions.computeIfAbsent(key(country.getRegion()), k -> new ArrayList<>()).add(country);
+            }
+            if (country.getCurrencyCode() != null) {
+                currencies.computeIfAbsent(key(country.getCurrencyCode()), k -> new ArrayList<>()).add(country);
+            }
+            if (country.getLastRefreshedAt() != null
+                    && (latest == null || country.getLastRefreshedAt().isAfter(latest))) {
+                latest = country.getLastRefreshedAt();
+            }
+        }
+        this.byName = Map.copyOf(names);
+        this.byRegion = freeze(regions);
+        this.byCurrency = freeze(currencies);
+        this.lastRefreshedAt = latest;
+        Instant refreshedAt = latest != null ? latest.atZone(ZoneId.systemDefault()).toInstant() : null;
+        this.lastModified = modifiedAt != null && (refreshedAt == null || modifiedAt.isAfter(refreshedAt))
+                ? modifiedAt : refreshedAt;
+    }
+
+    public static CountrySnapshot of(long version, Collection<Country> countries) {
+        return of(version, 0, countries, null);
+    }
+
+    /**
+     * A snapshot of {@code countries} as of shared dataset version {@code datasetVersion}.
+     * {@code modifiedAt} is when the data last changed if that is later than the latest refresh,
+     * as after a delete, or {@code null}.
+     */
+    public static CountrySnapshot of(long version, long datasetVersion, Collection<Country> countries,
+                                     Instant modifiedAt) {
+        List<Country> byId = new ArrayList<>(countries);
+        byId.sort(ID_ASC);
+        return new CountrySnapshot(version, datasetVersion, byId, modifiedAt, CountryStats.of(byId));
+    }
+
+    /**
+     * Returns a copy of this snapshot without the named country, under a new version.
+     */
+    public CountrySnapshot without(String name, long newVersion) {
+        return without(name, newVersion, datasetVersion);
+    }
+
+    /**
+     * Returns a copy of this snapshot without the named country, under a new version and the
+     * dataset version the delete committed as.
+     */
+    public CountrySnapshot without(String name, long newVersion, long newDatasetVersion) {
+        Country removed = byName.get(key(name));
+        List<Country> remaining = new ArrayList<>(all.countries());
+        CountryStats nextStats = stats;
+        if (removed != null) {
+            remaining.remove(removed);
+            nextStats = stats.without(removed,
+                    othersIn(byRegion, removed.getRegion(), removed),
+                    othersIn(byCurrency, removed.getCurrencyCode(), removed));
+        }
+        return new CountrySnapshot(newVersion, newDatasetVersion, remaining, Instant.now(), nextStats);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * The shared dataset version this snapshot was loaded at; it may include later changes.
+     */
+    public long getDatasetVersion() {
+        return datasetVersion;
+    }
+
+    public List<Country> getCountries() {
+        return all.countries();
+    }
+
+    public List<Country> getCountries(GdpOrder order) {
+        return all.ordered(order);
+    }
+
+    public Optional<Country> findByName(String name) {
+        return Optional.ofNullable(byName.get(key(name)));
+    }
+
+    public List<Country> findByRegion(String region) {
+        return findByRegion(region, GdpOrder.NONE);
+    }
+
+    public List<Country> findByRegion(String region, GdpOrder order) {
+        return byRegion.getOrDefault(key(region), Partition.EMPTY).ordered(order);
+    }
+
+    /**
+     * Countries matching every given filter ({@code null} or empty means no filter), in
+     * {@code order}. Unfiltered and single-filter queries are list views; combining region and
+     * currency filters the smaller partition.
+     */
+    public List<Country> find(String region, String currencyCode, GdpOrder order) {
+        boolean filterRegion = region != null && !region.isEmpty();
+        boolean filterCurrency = currencyCode != null && !currencyCode.isEmpty();
+        if (filterRegion && filterCurrency) {
+            List<Country> inRegion = findByRegion(region, order);
+            List<Country> inCurrency = findByCurrencyCode(currencyCode, order);
+            boolean scanRegion = inRegion.size() <= inCurrency.size();
+            String wanted = key(scanRegion ? currencyCode : region);
+            List<Country> matches = new ArrayList<>();
+            for (Country country : scanRegion ? inRegion : inCurrency) {
+                String value = scanRegion ? country.getCurrencyCode() : country.getRegion();
+                if (value != null && key(value).equals(wanted)) {
+                    matches.add(country);
+                }
+            }
+            return Collections.unmodifiableList(matches);
+        }
+        if (filterRegion) {
+            return findByRegion(region, order);
+        }
+        if (filterCurrency) {
+            return findByCurrencyCode(currencyCode, order);
+        }
+        return getCountries(order);
+    }
+
+    /**
+     * The ordering of lists returned for {@code order}: ascending id for {@link GdpOrder#NONE},
+     * otherwise estimated GDP with ties broken by id. Total, so it can position keyset cursors.
+     */
+    public static Comparator<Country> comparator(GdpOrder order) {
+        return switch (order) {
+            case NONE -> ID_ASC;
+            case DESC -> GDP_DESC;
+            case ASC -> GDP_DESC.reversed();
+        };
+    }
+
+    public boolean hasRegion(String region) {
+        return byRegion.containsKey(key(region));
+    }
+
+    public boolean hasCurrencyCode(String currencyCode) {
+        return byCurrency.containsKey(key(currencyCode));
+    }
+
+    public List<Country> findByCurrencyCode(String currencyCode) {
+        return findByCurrencyCode(currencyCode, GdpOrder.NONE);
+    }
+
+    public List<Country> findByCurrencyCode(String currencyCode, GdpOrder order) {
+        return byCurrency.getOrDefault(key(currencyCode), Partition.EMPTY).ordered(order);
+    }
+
+    /**
+     * Up to {@code limit} countries with a positive estimated GDP, highest first.
+     */
+    public List<Country> topByGdp(int limit) {
+        List<Country> ordered = all.byGdpDesc();
+        int end = 0;
+        while (end < ordered.size() && end < limit && gdp(ordered.get(end)) > 0) {
+            end++;
+        }
+        return ordered.subList(0, end);
+    }
+
+    public int size() {
+        return all.countries().size();
+    }
+
+    public CountryStats getStats() {
+        return stats;
+    }
+
+    public LocalDateTime getLastRefreshedAt() {
+        return lastRefreshedAt;
+    }
+
+    /**
+     * When the data in this snapshot last changed: the latest refresh timestamp, or the time of a
+     * later delete. {@code null} for an empty table that was never refreshed.
+     */
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * A digest of every property of every country. Snapshots holding the same countries have the
+     * same hash, whichever process built them and at whatever version.
+     */
+    public String getContentHash() {
+        String hash = contentHash;
+        if (hash == null) {
+            hash = digest(all.countries());
+            contentHash = hash;
+        }
+        return hash;
+    }
+
+    private static String digest(List<Country> countries) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (Country country : countries) {
+            for (Object value : CountryFields.values(country)) {
+                // A one-byte marker keeps null distinct from any text; a zero byte separates values
+                digest.update(value != null ? value.toString().getBytes(StandardCharsets.UTF_8) : new byte[]{1});
+                digest.update((byte) 0);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, 16);
+    }
+
+    private static String key(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    static double gdp(Country country) {
+        return country.getEstimatedGdp() != null ? country.getEstimatedGdp() : 0.0;
+    }
+
+    static long id(Country country) {
+        return country.getId() != null ? country.getId() : Long.MAX_VALUE;
+    }
+
+    private static List<Country> othersIn(Map<String, Partition> index, String value, Country removed) {
+        if (value == null) {
+            return List.of();
+        }
+        List<Country> others = new ArrayList<>(index.getOrDefault(key(value), Partition.EMPTY).countries());
+        others.remove(removed);
+        return others;
+    }
+
+    private static Map<String, Partition> freeze(Map<String, List<Country>> index) {
+        Map<String, Partition> frozen = new HashMap<>();
+        index.forEach((key, value) -> frozen.put(key, Partition.of(value)));
+        return Map.copyOf(frozen);
+    }
+
+    /**
+     * A group of countries in stored order plus the same countries by GDP (the ascending list is a
+     * reversed view of the descending one).
+     */
+    private record Partition(List<Country> countries, List<Country> byGdpDesc, List<Country> byGdpAsc) {
+        static final Partition EMPTY = new Partition(List.of(), List.of(), List.of());
+
+        static Partition of(List<Country> countries) {
+            Country[] sorted = countries.toArray(new Country[0]);
+            Arrays.sort(sorted, GDP_DESC);
+            List<Country> byGdpDesc = List.of(sorted);
+            return new Partition(Collections.unmodifiableList(countries), byGdpDesc, byGdpDesc.reversed());
+        }
+
+        List<Country> ordered(GdpOrder order) {
+            return switch (order) {
+                case NONE -> countries;
+                case DESC -> byGdpDesc;
+                case ASC -> byGdpAsc;
+            };
+        }
+    }
+}
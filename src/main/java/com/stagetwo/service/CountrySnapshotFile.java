@@ -0,0 +1,249 @@
+package com.stagetwo.service;
+
+import com.stagetwo.entity.Country;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary encoding of a {@link CountrySnapshot} and its summary image, written after each change and
+ * memory-mapped at startup so the first requests are served without reading the table.
+ *
+ * <p>Layout (big-endian): a fixed header, a table of the distinct strings, one fixed-width record
+ * per country referring to strings by index, the PNG, and a CRC32C of everything before it. The
+ * format version is checked on read; a file of another version, or a damaged one, is rejected.
+ */
+public final class CountrySnapshotFile {
+    static final int MAGIC = 0x43534E50; // "CSNP"
+    static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 8 + 4 + 4 + 4;
+    private static final int RECORD_BYTES = 1 + 8 + 4 + 4 + 4 + 8 + 4 + 8 + 8 + 4 + 8 + 4 + 8;
+    private static final int NO_STRING = -1;
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    // Bits of a record's null mask
+    private static final int HAS_ID = 1;
+    private static final int HAS_POPULATION = 1 << 1;
+    private static final int HAS_EXCHANGE_RATE = 1 << 2;
+    private static final int HAS_ESTIMATED_GDP = 1 << 3;
+    private static final int HAS_LAST_REFRESHED_AT = 1 << 4;
+    private static final int HAS_SOURCE_HASH = 1 << 5;
+
+    /**
+     * What a snapshot file holds: the snapshot, and the summary image if one was stored with it.
+     */
+    public record Contents(CountrySnapshot snapshot, SummaryImage image) {
+    }
+
+    private CountrySnapshotFile() {
+    }
+
+    /**
+     * Encodes {@code snapshot} and {@code image} (may be {@code null}) and atomically replaces
+     * {@code file} with the result.
+     */
+    public static void write(Path file, CountrySnapshot snapshot, SummaryImage image) throws IOException {
+        ByteBuffer encoded = encode(snapshot, image);
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tempFile = Files.createTempFile(dir, "countries-", ".snapshot.tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                while (encoded.hasRemaining()) {
+                    channel.write(encoded);
+                }
+            }
+            try {
+                Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Maps {@code file} and decodes it into a snapshot numbered {@code version}.
+     *
+     * @throws IOException if the file cannot be read, is of another format version or is damaged
+     */
+    public static Contents read(Path file, long version) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + Long.BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a snapshot file: " + file);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return decode(mapped, version);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Truncated snapshot file: " + file, e);
+        }
+    }
+
+    static ByteBuffer encode(CountrySnapshot snapshot, SummaryImage image) {
+        List<Country> countries = snapshot.getCountries();
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        int stringBytes = 0;
+        for (Country country : countries) {
+            for (String value : new String[]{country.getName(), country.getCapital(), country.getRegion(),
+                    country.getCurrencyCode(), country.getFlagUrl()}) {
+                if (value != null && strings.putIfAbsent(value, strings.size()) == null) {
+                    stringBytes += Integer.BYTES + value.getBytes(StandardCharsets.UTF_8).length;
+                }
+            }
+        }
+        byte[] png = image != null ? image.bytes() : new byte[0];
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + stringBytes + countries.size() * RECORD_BYTES
+                + png.length + Long.BYTES);
+        buffer.putInt(MAGIC)
+                .putInt(FORMAT_VERSION)
+                .putLong(snapshot.getDatasetVersion())
+                .putLong(snapshot.getLastModified() != null ? snapshot.getLastModified().toEpochMilli() : NO_TIME)
+                .putLong(image != null ? image.renderedAt().toEpochMilli() : NO_TIME)
+                .putInt(strings.size())
+                .putInt(countries.size())
+                .putInt(png.length);
+        for (String value : strings.keySet()) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            buffer.putInt(utf8.length).put(utf8);
+        }
+        for (Country country : countries) {
+            putRecord(buffer, country, strings);
+        }
+        buffer.put(png);
+
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(crc.getValue());
+        return buffer.flip();
+    }
+
+    static Contents decode(ByteBuffer buffer, long version) throws IOException {
+        int checked = buffer.limit() - Long.BYTES;
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(0, checked));
+        if (crc.getValue() != buffer.getLong(checked)) {
+            throw new IOException("Snapshot file checksum mismatch");
+        }
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a snapshot file");
+        }
+        int formatVersion = buffer.getInt();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException("Unsupported snapshot file version " + formatVersion);
+        }
+        long datasetVersion = buffer.getLong();
+        long lastModified = buffer.getLong();
+        long imageRenderedAt = buffer.getLong();
+        int stringCount = buffer.getInt();
+        int rowCount = buffer.getInt();
+        int imageLength = buffer.getInt();
+
+        String[] strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            byte[] utf8 = new byte[buffer.getInt()];
+            buffer.get(utf8);
+            strings[i] = new String(utf8, StandardCharsets.UTF_8);
+        }
+        List<Country> countries = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            countries.add(getRecord(buffer, strings));
+        }
+        SummaryImage image = null;
+        if (imageLength > 0) {
+            byte[] png = new byte[imageLength];
+            buffer.get(png);
+            image = SummaryImage.of(png, "image/png", Instant.ofEpochMilli(imageRenderedAt));
+        }
+        if (buffer.position() != checked) {
+            throw new IOException("Unexpected data after the snapshot");
+        }
+
+        CountrySnapshot snapshot = CountrySnapshot.of(version, datasetVersion, countries,
+                lastModified != NO_TIME ? Instant.ofEpochMilli(lastModified) : null);
+        return new Contents(snapshot, image);
+    }
+
+    private static void putRecord(ByteBuffer buffer, Country country, Map<String, Integer> strings) {
+        int mask = (country.getId() != null ? HAS_ID : 0)
+                | (country.getPopulation() != null ? HAS_POPULATION : 0)
+                | (country.getExchangeRate() != null ? HAS_EXCHANGE_RATE : 0)
+                | (country.getEstimatedGdp() != null ? HAS_ESTIMATED_GDP : 0)
+                | (country.getLastRefreshedAt() != null ? HAS_LAST_REFRESHED_AT : 0)
+                | (country.getSourceHash() != null ? HAS_SOURCE_HASH : 0);
+        LocalDateTime refreshedAt = country.getLastRefreshedAt();
+        buffer.put((byte) mask)
+                .putLong(country.getId() != null ? country.getId() : 0)
+                .putInt(index(strings, country.getName()))
+                .putInt(index(strings, country.getCapital()))
+                .putInt(index(strings, country.getRegion()))
+                .putLong(country.getPopulation() != null ? country.getPopulation() : 0)
+                .putInt(index(strings, country.getCurrencyCode()))
+                .putDouble(country.getExchangeRate() != null ? country.getExchangeRate() : 0)
+                .putDouble(country.getEstimatedGdp() != null ? country.getEstimatedGdp() : 0)
+                .putInt(index(strings, country.getFlagUrl()))
+                .putLong(refreshedAt != null ? refreshedAt.toEpochSecond(ZoneOffset.UTC) : 0)
+                .putInt(refreshedAt != null ? refreshedAt.getNano() : 0)
+                .putLong(country.getSourceHash() != null ? country.getSourceHash() : 0);
+    }
+
+    private static Country getRecord(ByteBuffer buffer, String[] strings) {
+        int mask = buffer.get();
+        long id = buffer.getLong();
+        String name = string(strings, buffer.getInt());
+        String capital = string(strings, buffer.getInt());
+        String region = string(strings, buffer.getInt());
+        long population = buffer.getLong();
+        String currencyCode = string(strings, buffer.getInt());
+        double exchangeRate = buffer.getDouble();
+        double estimatedGdp = buffer.getDouble();
+        String flagUrl = string(strings, buffer.getInt());
+        long refreshedSeconds = buffer.getLong();
+        int refreshedNanos = buffer.getInt();
+        long sourceHash = buffer.getLong();
+
+        Country country = new Country(
+                (mask & HAS_ID) != 0 ? id : null,
+                name,
+                capital,
+                region,
+                (mask & HAS_POPULATION) != 0 ? population : null,
+                currencyCode,
+                (mask & HAS_EXCHANGE_RATE) != 0 ? exchangeRate : null,
+                (mask & HAS_ESTIMATED_GDP) != 0 ? estimatedGdp : null,
+                flagUrl,
+                (mask & HAS_LAST_REFRESHED_AT) != 0
+                        ? LocalDateTime.ofEpochSecond(refreshedSeconds, refreshedNanos, ZoneOffset.UTC)
+                        : null);
+        country.setSourceHash((mask & HAS_SOURCE_HASH) != 0 ? sourceHash : null);
+        return country;
+    }
+
+    private static int index(Map<String, Integer> strings, String value) {
+        return value != null ? strings.get(value) : NO_STRING;
+    }
+
+    private static String string(String[] strings, int index) {
+        return index != NO_STRING ? strings[index] : null;
+    }
+}
@@ -0,0 +1,144 @@
+package com.stagetwo.service;
+
+import com.stagetwo.event.CountryDataChangedEvent;
+import com.stagetwo.event.CountrySnapshotPublishedEvent;
+import com.stagetwo.repository.CountryBatchRepository;
+import com.stagetwo.repository.DatasetVersionRepository;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+
+/**
+ * Holds the current {@link CountrySnapshot}. Reads are a single volatile load; writers build a
+ * new snapshot after each committed refresh or delete and publish it with one reference write.
+ * Each snapshot remembers the shared dataset version it was loaded at, so changes committed by
+ * other instances are picked up by {@link #reloadIfBehind()}. At startup the first snapshot is
+ * restored from the snapshot file when there is one, and checked against the database in the
+ * background.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CountrySnapshotService {
+    private final CountryBatchRepository countryBatchRepository;
+    private final DatasetVersionRepository datasetVersionRepository;
+    private final CountrySnapshotStore countrySnapshotStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObservationRegistry observationRegistry;
+
+    private volatile CountrySnapshot snapshot;
+    private boolean restored;
+
+    public CountrySnapshot current() {
+        CountrySnapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = restoreOrLoad();
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Strong entity tag for everything derived from {@code snapshot}. It is taken from the
+     * content, so instances serving the same data, and the same instance after a restart, send
+     * the same tag.
+     */
+    public String entityTag(CountrySnapshot snapshot) {
+        return snapshot.getContentHash();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        current();
+        if (isRestored()) {
+            Thread.ofVirtual().name("snapshot-verify").start(this::verifyRestored);
+        }
+    }
+
+    @TransactionalEventListener
+    public synchronized void onCountryDataChanged(CountryDataChangedEvent event) {
+        long nextVersion = snapshot != null ? snapshot.getVersion() + 1 : 1;
+        // A delete is applied to the current snapshot only if no other instance changed the data
+        // in between; otherwise the snapshot would miss that change
+        if (event.type() == CountryDataChangedEvent.Type.DELETED && snapshot != null
+                && event.datasetVersion() == snapshot.getDatasetVersion() + 1) {
+            publish(snapshot.without(event.countryName(), nextVersion, event.datasetVersion()));
+        } else {
+            load(nextVersion);
+        }
+        log.debug("Published country snapshot version {}", snapshot.getVersion());
+    }
+
+    /**
+     * Reloads the snapshot if another instance changed the data since it was loaded.
+     *
+     * @return whether a new snapshot was published
+     */
+    public synchronized boolean reloadIfBehind() {
+        if (snapshot == null || datasetVersionRepository.current() <= snapshot.getDatasetVersion()) {
+            return false;
+        }
+        load(snapshot.getVersion() + 1);
+        log.info("Reloaded country snapshot at dataset version {}", snapshot.getDatasetVersion());
+        return true;
+    }
+
+    /**
+     * Replaces a snapshot restored from file unless the database is still at its dataset version.
+     * A database that was reset, or restored from a backup, can be at a lower version.
+     */
+    synchronized void verifyRestored() {
+        if (!restored) {
+            return;
+        }
+        restored = false;
+        long shared = datasetVersionRepository.current();
+        if (shared != snapshot.getDatasetVersion()) {
+            log.info("Restored snapshot is at dataset version {}, database at {}; reloading",
+                    snapshot.getDatasetVersion(), shared);
+            load(snapshot.getVersion() + 1);
+        }
+    }
+
+    synchronized boolean isRestored() {
+        return restored;
+    }
+
+    private CountrySnapshot restoreOrLoad() {
+        Optional<CountrySnapshotFile.Contents> contents = countrySnapshotStore.restore(1);
+        if (contents.isEmpty()) {
+            return load(1);
+        }
+        restored = true;
+        snapshot = contents.get().snapshot();
+        eventPublisher.publishEvent(new CountrySnapshotPublishedEvent(snapshot, contents.get().image()));
+        return snapshot;
+    }
+
+    private CountrySnapshot load(long version) {
+        // Loading the table and building the name, region, currency and GDP indexes. The shared
+        // version is read first, so a change committed in between is only ever loaded twice
+        long datasetVersion = datasetVersionRepository.current();
+        return publish(Observation.createNotStarted("snapshot.build", observationRegistry)
+                .observe(() -> CountrySnapshot.of(version, datasetVersion, countryBatchRepository.findAll(), null)));
+    }
+
+    private CountrySnapshot publish(CountrySnapshot next) {
+        snapshot = next;
+        restored = false;
+        eventPublisher.publishEvent(new CountrySnapshotPublishedEvent(next));
+        return next;
+    }
+}
@@ -0,0 +1,58 @@
+package com.stagetwo.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+/**
+ * Keeps the latest snapshot and summary image in {@code snapshot.file} (see
+ * {@link CountrySnapshotFile}), so a restarted instance serves them before it has read the table.
+ * An empty {@code snapshot.file} turns this off. Failures are logged and never propagate: the
+ * table is always there to fall back on.
+ */
+@Service
+@Slf4j
+public class CountrySnapshotStore {
+    private final Path file;
+
+    public CountrySnapshotStore(@Value("${snapshot.file:}") String file) {
+        this.file = file.isBlank() ? null : Paths.get(file);
+    }
+
+    /**
+     * The stored snapshot, numbered {@code version}, if there is a readable one.
+     */
+    public Optional<CountrySnapshotFile.Contents> restore(long version) {
+        if (file == null || !Files.exists(file)) {
+            return Optional.empty();
+        }
+        long start = System.nanoTime();
+        try {
+            CountrySnapshotFile.Contents contents = CountrySnapshotFile.read(file, version);
+            log.info("Restored {} countries at dataset version {} from {} in {} ms", contents.snapshot().size(),
+                    contents.snapshot().getDatasetVersion(), file, (System.nanoTime() - start) / 1_000_000);
+            return Optional.of(contents);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable snapshot file {}: {}", file, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public void save(CountrySnapshot snapshot, SummaryImage image) {
+        if (file == null) {
+            return;
+        }
+        try {
+            CountrySnapshotFile.write(file, snapshot, image);
+            log.debug("Stored snapshot version {} in {}", snapshot.getVersion(), file);
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to store snapshot version {} in {}", snapshot.getVersion(), file, e);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.stagetwo.service;
+
+import com.stagetwo.entity.Country;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-region and per-currency aggregates of a {@link CountrySnapshot}: country count, total
+ * population, estimated-GDP sum, average and maximum, and the exchange-rate range. Computed in one
+ * pass over the rows when a snapshot is built from the table, then carried from snapshot to
+ * snapshot: a delete subtracts the removed row from its two groups, rescanning a group only when
+ * the row held its maximum GDP or an end of its rate range.
+ */
+public final class CountryStats {
+    /**
+     * Below this many rows the pass runs on the calling thread; forking costs more than it saves.
+     */
+    static final int PARALLEL_THRESHOLD = 10_000;
+
+    public enum GroupBy {
+        REGION,
+        CURRENCY;
+
+        /**
+         * @throws IllegalArgumentException for anything but {@code region} or {@code currency}
+         */
+        public static GroupBy parse(String value) {
+            if (value == null || value.isEmpty()) {
+                return REGION;
+            }
+            return switch (value.toLowerCase(Locale.ROOT)) {
+                case "region" -> REGION;
+                case "currency" -> CURRENCY;
+                default -> throw new IllegalArgumentException("group_by must be region or currency");
+            };
+        }
+    }
+
+    /**
+     * Aggregates of one group. GDP figures cover the countries with an estimated GDP; the
+     * optional values are {@code null} when no country in the group has one.
+     */
+    public record Group(String name, int countries, long population, int countriesWithGdp, double gdpSum,
+                        Double gdpMax, Double minExchangeRate, Double maxExchangeRate) {
+
+        public Double gdpAverage() {
+            return countriesWithGdp > 0 ? gdpSum / countriesWithGdp : null;
+        }
+
+        public Double exchangeRateSpread() {
+            return minExchangeRate != null ? maxExchangeRate - minExchangeRate : null;
+        }
+    }
+
+    private static final Comparator<Group> BY_NAME = Comparator.comparing(Group::name, String.CASE_INSENSITIVE_ORDER);
+
+    private final Map<String, Group> byRegion;
+    private final Map<String, Group> byCurrency;
+    private final List<Group> regions;
+    private final List<Group> currencies;
+
+    private CountryStats(Map<String, Group> byRegion, Map<String, Group> byCurrency) {
+        this.byRegion = byRegion;
+        this.byCurrency = byCurrency;
+        this.regions = sorted(byRegion.values());
+        this.currencies = sorted(byCurrency.values());
+    }
+
+    static CountryStats of(List<Country> countries) {
+        Pass pass = (countries.size() >= PARALLEL_THRESHOLD ? countries.parallelStream() : countries.stream())
+                .collect(Pass::new, Pass::add, Pass::merge);
+        return new CountryStats(Pass.finish(pass.regions), Pass.finish(pass.currencies));
+    }
+
+    /**
+     * These aggregates with {@code removed} taken out. {@code regionMembers} and
+     * {@code currencyMembers} are the countries left in its region and currency group, read only
+     * if an extreme of that group has to be found again.
+     */
+    CountryStats without(Country removed, List<Country> regionMembers, List<Country> currencyMembers) {
+        return new CountryStats(
+                without(byRegion, removed.getRegion(), removed, regionMembers),
+                without(byCurrency, removed.getCurrencyCode(), removed, currencyMembers));
+    }
+
+    /**
+     * Groups in name order.
+     */
+    public List<Group> groups(GroupBy groupBy) {
+        return groupBy == GroupBy.REGION ? regions : currencies;
+    }
+
+    private static Map<String, Group> without(Map<String, Group> groups, String name, Country removed,
+                                              List<Country> members) {
+        Group group = name != null ? groups.get(key(name)) : null;
+        if (group == null) {
+            return groups;
+        }
+        Map<String, Group> next = new HashMap<>(groups);
+        if (group.countries() <= 1) {
+            next.remove(key(name));
+            return Map.copyOf(next);
+        }
+
+        Double gdp = removed.getEstimatedGdp();
+        Double rate = removed.getExchangeRate();
+        boolean heldExtreme = (gdp != null && gdp.equals(group.gdpMax()))
+                || (rate != null && (rate.equals(group.minExchangeRate()) || rate.equals(group.maxExchangeRate())));
+        Group updated;
+        if (heldExtreme) {
+            Accumulator rescan = new Accumulator(group.name());
+            members.forEach(rescan::add);
+            updated = rescan.toGroup();
+        } else {
+            updated = new Group(group.name(), group.countries() - 1, group.population() - population(removed),
+                    group.countriesWithGdp() - (gdp != null ? 1 : 0), group.gdpSum() - (gdp != null ? gdp : 0),
+                    group.gdpMax(), group.minExchangeRate(), group.maxExchangeRate());
+        }
+        next.put(key(name), updated);
+        return Map.copyOf(next);
+    }
+
+    private static List<Group> sorted(Collection<Group> groups) {
+        List<Group> sorted = new ArrayList<>(groups);
+        sorted.sort(BY_NAME);
+        return List.copyOf(sorted);
+    }
+
+    private static String key(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static long population(Country country) {
+        return country.getPopulation() != null ? country.getPopulation() : 0;
+    }
+
+    /**
+     * Both groupings of one pass, per thread when the pass runs in parallel.
+     */
+    private static final class Pass {
+        private final Map<String, Accumulator> regions = new HashMap<>();
+        private final Map<String, Accumulator> currencies = new HashMap<>();
+
+        void add(Country country) {
+            if (country.getRegion() != null) {
+                regions.computeIfAbsent(key(country.getRegion()), k -> new Accumulator(country.getRegion())).add(country);
+            }
+            if (country.getCurrencyCode() != null) {
+                currencies.computeIfAbsent(key(country.getCurrencyCode()), k -> new Accumulator(country.getCurrencyCode()))
+                        .add(country);
+            }
+        }
+
+        void merge(Pass other) {
+            other.regions.forEach((key, value) -> regions.merge(key, value, Accumulator::merge));
+            other.currencies.forEach((key, value) -> currencies.merge(key, value, Accumulator::merge));
+        }
+
+        static Map<String, Group> finish(Map<String, Accumulator> groups) {
+            Map<String, Group> finished = new HashMap<>();
+            groups.forEach((key, value) -> finished.put(key, value.toGroup()));
+            return Map.copyOf(finished);
+        }
+    }
+
+    private static final class Accumulator {
+        private final String name;
+        private int countries;
+        private long population;
+        private int countriesWithGdp;
+        private double gdpSum;
+        private double gdpMax = Double.NEGATIVE_INFINITY;
+        private double minRate = Double.POSITIVE_INFINITY;
+        private double maxRate = Double.NEGATIVE_INFINITY;
+
+        Accumulator(String name) {
+            this.name = name;
+        }
+
+        void add(Country country) {
+            countries++;
+            population += population(country);
+            if (country.getEstimatedGdp() != null) {
+                countriesWithGdp++;
+                gdpSum += country.getEstimatedGdp();
+                gdpMax = Math.max(gdpMax, country.getEstimatedGdp());
+            }
+            if (country.getExchangeRate() != null) {
+                minRate = Math.min(minRate, country.getExchangeRate());
+                maxRate = Math.max(maxRate, country.getExchangeRate());
+            }
+        }
+
+        Accumulator merge(Accumulator other) {
+            countries += other.countries;
+            population += other.population;
+            countriesWithGdp += other.countriesWithGdp;
+            gdpSum += other.gdpSum;
+            gdpMax = Math.max(gdpMax, other.gdpMax);
+            minRate = Math.min(minRate, other.minRate);
+            maxRate = Math.max(maxRate, other.maxRate);
+            return this;
+        }
+
+        Group toGroup() {
+            boolean hasRate = minRate != Double.POSITIVE_INFINITY;
+            return new Group(name, countries, population, countriesWithGdp, gdpSum,
+                    countriesWithGdp > 0 ? gdpMax : null, hasRate ? minRate : null, hasRate ? maxRate : null);
+        }
+    }
+}
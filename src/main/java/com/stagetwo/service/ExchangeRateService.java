@@ -0,0 +1,166 @@
+package com.stagetwo.service;
+
+import com.stagetwo.dto.ConversionBatchRequestDto;
+import com.stagetwo.dto.ConversionBatchResponseDto;
+import com.stagetwo.dto.ConversionResponseDto;
+import com.stagetwo.dto.ExchangeRateResponseDto;
+import com.stagetwo.event.ExchangeRateTableReplacedEvent;
+import com.stagetwo.event.ExchangeRatesUpdatedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Currency conversion against the exchange rates of the last committed refresh. The rate
+ * table is immutable and replaced with a single reference write when a refresh commits; each
+ * replacement is announced with an {@link ExchangeRateTableReplacedEvent}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExchangeRateService {
+    private final ApplicationEventPublisher eventPublisher;
+
+    private volatile ExchangeRateTable table = ExchangeRateTable.EMPTY;
+
+    public ExchangeRateTable current() {
+        return table;
+    }
+
+    @TransactionalEventListener
+    public synchronized void onExchangeRatesUpdated(ExchangeRatesUpdatedEvent event) {
+        ExchangeRateResponseDto rates = event.exchangeRates();
+        if (rates.getRates() == null || rates.getRates().isEmpty()) {
+            return;
+        }
+        install(ExchangeRateTable.of(rates.getBaseCode(), rates.getTimeLastUpdateUtc(), rates.getRates()));
+        log.debug("Loaded {} exchange rates", table.size());
+    }
+
+    /**
+     * Installs rates restored from the history table, unless a refresh got there first.
+     */
+    synchronized void loadIfEmpty(ExchangeRateTable rates) {
+        if (table.isEmpty() && !rates.isEmpty()) {
+            install(rates);
+            log.info("Loaded {} exchange rates from {}", rates.size(), rates.getUpdatedAt());
+        }
+    }
+
+    /**
+     * Installs rates restored from the history table in place of {@code expected}, unless a
+     * refresh replaced that table first.
+     */
+    synchronized void replace(ExchangeRateTable expected, ExchangeRateTable rates) {
+        if (table == expected && !rates.isEmpty()) {
+            install(rates);
+            log.info("Reloaded {} exchange rates from {}", rates.size(), rates.getUpdatedAt());
+        }
+    }
+
+    private void install(ExchangeRateTable rates) {
+        ExchangeRateTable previous = table;
+        table = rates;
+        eventPublisher.publishEvent(new ExchangeRateTableReplacedEvent(previous, rates));
+    }
+
+    /**
+     * @throws IllegalArgumentException if a currency has no rate or the amount is not finite
+     * @throws NoSuchElementException   if no rates have been loaded yet
+     */
+    public ConversionResponseDto convert(String from, String to, double amount) {
+        ExchangeRateTable rates = loadedTable();
+        int fromIndex = indexOf(rates, from);
+        int toIndex = indexOf(rates, to);
+        requireFinite(amount);
+
+        ConversionResponseDto response = new ConversionResponseDto();
+        response.setFrom(rates.code(fromIndex));
+        response.setTo(rates.code(toIndex));
+        response.setAmount(amount);
+        response.setRate(rates.crossRate(fromIndex, toIndex));
+        response.setResult(rates.convert(fromIndex, toIndex, amount));
+        response.setRatesUpdatedAt(rates.getUpdatedAt());
+        return response;
+    }
+
+    /**
+     * Converts every item against one rate table. Fails as a whole, naming each bad item, if any
+     * currency is unknown or amount is not finite.
+     */
+    public ConversionBatchResponseDto convertAll(List<ConversionBatchRequestDto.Item> items) {
+        ExchangeRateTable rates = loadedTable();
+        double[] results = new double[items.size()];
+        Map<String, String> errors = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            ConversionBatchRequestDto.Item item = items.get(i);
+            int fromIndex = rates.indexOf(item.getFrom());
+            int toIndex = rates.indexOf(item.getTo());
+            if (fromIndex < 0) {
+                errors.put("conversions[" + i + "].from", "Unknown currency: " + item.getFrom());
+            }
+            if (toIndex < 0) {
+                errors.put("conversions[" + i + "].to", "Unknown currency: " + item.getTo());
+            }
+            if (!Double.isFinite(item.getAmount())) {
+                errors.put("conversions[" + i + "].amount", "amount must be a finite number");
+            }
+            if (errors.isEmpty()) {
+                results[i] = rates.convert(fromIndex, toIndex, item.getAmount());
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new ConversionException(errors);
+        }
+
+        ConversionBatchResponseDto response = new ConversionBatchResponseDto();
+        response.setRatesUpdatedAt(rates.getUpdatedAt());
+        response.setResults(results);
+        return response;
+    }
+
+    private ExchangeRateTable loadedTable() {
+        ExchangeRateTable rates = table;
+        if (rates.isEmpty()) {
+            throw new NoSuchElementException("Exchange rates not loaded");
+        }
+        return rates;
+    }
+
+    private static int indexOf(ExchangeRateTable rates, String code) {
+        int index = rates.indexOf(code);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown currency: " + code);
+        }
+        return index;
+    }
+
+    private static void requireFinite(double amount) {
+        if (!Double.isFinite(amount)) {
+            throw new IllegalArgumentException("amount must be a finite number");
+        }
+    }
+
+    /**
+     * Invalid items of a batch conversion, keyed by the offending property path.
+     */
+    public static class ConversionException extends IllegalArgumentException {
+        private final Map<String, String> errors;
+
+        public ConversionException(Map<String, String> errors) {
+            super("Invalid conversions");
+            this.errors = errors;
+        }
+
+        public Map<String, String> getErrors() {
+            return errors;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.stagetwo.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable exchange-rate table. Three-letter ISO codes are packed into an int (26^3 values),
+ * which indexes straight into a slot array holding each currency's position in a
+ * {@code double[]} of rates, so resolving codes and computing cross rates allocates nothing.
+ * Rates are units of each currency per one unit of the base currency.
+ */
+public final class ExchangeRateTable {
+    private static final int CODE_SPACE = 26 * 26 * 26;
+
+    public static final ExchangeRateTable EMPTY = new ExchangeRateTable(null, null, List.of(), new double[0]);
+
+    private final String baseCode;
+    private final String updatedAt;
+    private final String[] codes;
+    private final double[] rates;
+    private final short[] slots = new short[CODE_SPACE];
+
+    private ExchangeRateTable(String baseCode, String updatedAt, List<String> codes, double[] rates) {
+        this.baseCode = baseCode;
+        this.updatedAt = updatedAt;
+        this.codes = codes.toArray(new String[0]);
+        this.rates = rates;
+        for (int i = 0; i < this.codes.length; i++) {
+            slots[pack(this.codes[i])] = (short) (i + 1);
+        }
+    }
+
+    /**
+     * Builds a table from an upstream rate map, skipping codes that are not three ASCII letters
+     * and rates that are missing or not positive.
+     */
+    public static ExchangeRateTable of(String baseCode, String updatedAt, Map<String, Double> rates) {
+        List<String> codes = new ArrayList<>(rates.size());
+        double[] values = new double[rates.size()];
+        for (Map.Entry<String, Double> entry : rates.entrySet()) {
+            String code = entry.getKey();
+            Double rate = entry.getValue();
+            if (code == null || pack(code) < 0 || rate == null || !(rate > 0) || Double.isInfinite(rate)) {
+                continue;
+            }
+            values[codes.size()] = rate;
+            codes.add(code.toUpperCase(Locale.ROOT));
+        }
+        return new ExchangeRateTable(baseCode, updatedAt, codes, Arrays.copyOf(values, codes.size()));
+    }
+
+    /**
+     * Position of {@code code} (case-insensitive) in this table, or -1 if it has no rate.
+     */
+    public int indexOf(CharSequence code) {
+        int packed = code != null ? pack(code) : -1;
+        return packed < 0 ? -1 : slots[packed] - 1;
+    }
+
+    public String code(int index) {
+        return codes[index];
+    }
+
+    public double rate(int index) {
+        return rates[index];
+    }
+
+    /**
+     * Units of {@code to} per unit of {@code from}.
+     */
+    public double crossRate(int from, int to) {
+        return rates[to] / rates[from];
+    }
+
+    public double convert(int from, int to, double amount) {
+        return amount / rates[from] * rates[to];
+    }
+
+    public int size() {
+        return codes.length;
+    }
+
+    public boolean isEmpty() {
+        return codes.length == 0;
+    }
+
+    public String getBaseCode() {
+        return baseCode;
+    }
+
+    public String getUpdatedAt() {
+        return updatedAt;
+    }
+
+    private static int pack(CharSequence code) {
+        if (code.length() != 3) {
+            return -1;
+        }
+        int packed = 0;
+        for (int i = 0; i < 3; i++) {
+            char c = code.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                c -= 'a' - 'A';
+            }
+            if (c < 'A' || c > 'Z') {
+                return -1;
+            }
+            packed = packed * 26 + (c - 'A');
+        }
+        return packed;
+    }
+}
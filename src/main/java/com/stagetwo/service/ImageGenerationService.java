@@ -2,68 +2,331 @@ package com.stagetwo.service;
 
 
 import com.stagetwo.entity.Country;
+import com.stagetwo.event.CountrySnapshotPublishedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Renders {@code summary.png} from each published snapshot on a dedicated thread, after the
+ * change that produced the snapshot has committed, so a render or disk failure never affects a
+ * refresh. Fonts, colours and the canvas are created once and reused by that thread. The latest
+ * encoded image is also kept in memory; resized, JPEG and per-region variants are rendered on
+ * first request, once per key however many requests ask for it at the same time, and kept in a
+ * bounded LRU cache keyed by snapshot version. Once rendered, the
+ * snapshot and image are stored together for the next startup, which serves them without
+ * rendering.
+ */
 @Service
 @Slf4j
 public class ImageGenerationService {
-    private static final String CACHE_DIR = "cache";
     private static final String IMAGE_FILE = "summary.png";
     private static final int IMAGE_WIDTH = 800;
     private static final int IMAGE_HEIGHT = 600;
+    private static final int MIN_WIDTH = 100;
+    private static final int MAX_WIDTH = 1600;
 
+    private static final Color BACKGROUND = new Color(240, 248, 255);
+    private static final Color HEADER = new Color(70, 130, 180);
+    private static final Color FOOTER_TEXT = new Color(100, 100, 100);
+    private static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 32);
+    private static final Font TOTAL_FONT = new Font("Arial", Font.BOLD, 24);
+    private static final Font SUBTITLE_FONT = new Font("Arial", Font.BOLD, 22);
+    private static final Font ROW_FONT = new Font("Arial", Font.PLAIN, 18);
+    private static final Font FOOTER_FONT = new Font("Arial", Font.ITALIC, 16);
+
+    /**
+     * Formats accepted by {@code ?format=}, with the ImageIO writer and content type of each.
+     * ImageIO has no WebP writer, so WebP is not offered.
+     */
+    private enum Format {
+        PNG("png", "image/png"),
+        JPEG("jpeg", "image/jpeg");
+
+        private final String writer;
+        private final String contentType;
+
+        Format(String writer, String contentType) {
+            this.writer = writer;
+            this.contentType = contentType;
+        }
+
+        static Format of(String format) {
+            return switch (format.toLowerCase(Locale.ROOT)) {
+                case "png" -> PNG;
+                case "jpg", "jpeg" -> JPEG;
+                default -> throw new IllegalArgumentException("Unsupported image format: " + format);
+            };
+        }
+    }
+
+    private final Path cacheDir;
+    private final Executor imageExecutor;
+    private final CountrySnapshotService countrySnapshotService;
+    private final CountrySnapshotStore countrySnapshotStore;
+    private final Timer renderTimer;
+    private final Timer encodeTimer;
+    private final Counter variantHits;
+    private final Counter variantMisses;
+    private final Map<VariantKey, CompletableFuture<SummaryImage>> variants;
+
+    private final AtomicReference<CountrySnapshot> pending = new AtomicReference<>();
+    private volatile SummaryImage current;
+
+    // Only touched by the image thread
+    private BufferedImage canvas;
+    private Summary lastRendered;
+
+    public ImageGenerationService(@Value("${image.cache-dir:cache}") String cacheDir,
+                                  @Value("${image.variant-cache-size:32}") int variantCacheSize,
+                                  @Qualifier("imageExecutor") Executor imageExecutor,
+                                  CountrySnapshotService countrySnapshotService,
+                                  CountrySnapshotStore countrySnapshotStore,
+                                  MeterRegistry meterRegistry) {
+        this.cacheDir = Paths.get(cacheDir);
+        this.imageExecutor = imageExecutor;
+        this.countrySnapshotService = countrySnapshotService;
+        this.countrySnapshotStore = countrySnapshotStore;
+        this.renderTimer = Timer.builder("summary.image.render")
+                .description("Time to draw the summary image")
+                .register(meterRegistry);
+        this.encodeTimer = Timer.builder("summary.image.encode")
+                .description("Time to encode the summary image and store it")
+                .register(meterRegistry);
+        this.variantHits = meterRegistry.counter("cache.gets", "cache", "image_variants", "result", "hit");
+        this.variantMisses = meterRegistry.counter("cache.gets", "cache", "image_variants", "result", "miss");
+        this.variants = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<VariantKey, CompletableFuture<SummaryImage>> eldest) {
+                return size() > variantCacheSize;
+            }
+        };
+    }
+
+    /**
+     * Queues a render of the newest snapshot. Snapshots published while a render is queued are
+     * coalesced; only the latest one is drawn. A snapshot restored with its image is served with
+     * that image and not drawn again.
+     */
+    @EventListener
+    public void onSnapshotPublished(CountrySnapshotPublishedEvent event) {
+        if (event.restoredImage() != null) {
+            current = event.restoredImage();
+            CountrySnapshot snapshot = event.snapshot();
+            imageExecutor.execute(() -> lastRendered = Summary.of(snapshot.size(), snapshot.topByGdp(5)));
+            return;
+        }
+        if (pending.getAndSet(event.snapshot()) == null) {
+            imageExecutor.execute(this::renderPending);
+        }
+    }
+
+    private void renderPending() {
+        CountrySnapshot snapshot = pending.getAndSet(null);
+        if (snapshot == null) {
+            return;
+        }
+        SummaryImage image = null;
+        if (snapshot.getLastRefreshedAt() != null) {
+            try {
+                generateSummaryImage(snapshot.size(), snapshot.topByGdp(5), snapshot.getLastRefreshedAt());
+                image = current;
+            } catch (RuntimeException e) {
+                log.error("Failed to generate summary image for snapshot version {}", snapshot.getVersion(), e);
+            }
+        }
+        countrySnapshotStore.save(snapshot, image);
+    }
+
+    /**
+     * Draws the summary, keeps the PNG in memory and atomically replaces {@code summary.png}.
+     * Does nothing if the total and the top countries are the same as in the last image written.
+     */
     public void generateSummaryImage(long totalCountries, List<Country> topCountries, LocalDateTime lastRefreshed) {
+        Summary summary = Summary.of(totalCountries, topCountries);
+        Path outputFile = cacheDir.resolve(IMAGE_FILE);
+        if (summary.equals(lastRendered) && Files.exists(outputFile)) {
+            log.debug("Summary unchanged, keeping {}", outputFile);
+            return;
+        }
+
+        if (canvas == null) {
+            canvas = new BufferedImage(IMAGE_WIDTH, IMAGE_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        }
+        renderTimer.record(() -> draw(canvas, "Country Data Summary", totalCountries, topCountries, lastRefreshed));
+
+        try {
+            Timer.Sample encode = Timer.start();
+            try {
+                byte[] png = encode(canvas, Format.PNG);
+                Files.createDirectories(cacheDir);
+                Path tempFile = Files.createTempFile(cacheDir, "summary-", ".png.tmp");
+                try {
+                    Files.write(tempFile, png);
+                    moveIntoPlace(tempFile, outputFile);
+                } finally {
+                    Files.deleteIfExists(tempFile);
+                }
+                current = SummaryImage.of(png, Format.PNG.contentType);
+            } finally {
+                encode.stop(encodeTimer);
+            }
+
+            lastRendered = summary;
+            log.info("Summary image generated successfully at {}", outputFile.toAbsolutePath());
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Failed to generate summary image", e);
+            throw new RuntimeException("Failed to generate summary image", e);
+        }
+    }
+
+    /**
+     * The latest rendered summary, or {@code null} if nothing has been rendered by this process
+     * yet (an image left on disk by an earlier run is still available from
+     * {@link #getSummaryImage()}).
+     */
+    public SummaryImage getCurrentImage() {
+        return current;
+    }
+
+    /**
+     * A resized, re-encoded and/or per-region summary of the current snapshot, rendered on first
+     * request. Returns {@code null} if no refresh has happened yet.
+     *
+     * @throws IllegalArgumentException for an unsupported format, a width outside 100-1600 or an
+     *                                  unknown region
+     */
+    public SummaryImage getVariant(Integer width, String format, String region) {
+        Format imageFormat = format != null ? Format.of(format) : Format.PNG;
+        int imageWidth = width != null ? width : IMAGE_WIDTH;
+        if (imageWidth < MIN_WIDTH || imageWidth > MAX_WIDTH) {
+            throw new IllegalArgumentException("width must be between " + MIN_WIDTH + " and " + MAX_WIDTH);
+        }
+        CountrySnapshot snapshot = countrySnapshotService.current();
+        if (snapshot.getLastRefreshedAt() == null) {
+            return null;
+        }
+        if (region != null && !snapshot.hasRegion(region)) {
+            throw new IllegalArgumentException("Unknown region: " + region);
+        }
+
+        VariantKey key = new VariantKey(snapshot.getVersion(),
+                region != null ? region.toLowerCase(Locale.ROOT) : null, imageWidth, imageFormat);
+        CompletableFuture<SummaryImage> cached;
+        CompletableFuture<SummaryImage> rendering = new CompletableFuture<>();
+        synchronized (variants) {
+            cached = variants.putIfAbsent(key, rendering);
+        }
+        if (cached != null) {
+            // Rendered already, or being rendered by the request that missed first
+            variantHits.increment();
+            try {
+                return cached.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        variantMisses.increment();
+
         try {
-            // Create cache directory if it doesn't exist
-            Path cachePath = Paths.get(CACHE_DIR);
-            if (!Files.exists(cachePath)) {
-                Files.createDirectories(cachePath);
+            SummaryImage rendered = renderVariant(snapshot, region, imageWidth, imageFormat);
+            rendering.complete(rendered);
+            return rendered;
+        } catch (RuntimeException e) {
+            // Not cached, so the next request tries again
+            synchronized (variants) {
+                variants.remove(key, rendering);
             }
+            rendering.completeExceptionally(e);
+            throw e;
+        }
+    }
 
-            BufferedImage image = new BufferedImage(IMAGE_WIDTH, IMAGE_HEIGHT, BufferedImage.TYPE_INT_RGB);
-            Graphics2D g2d = image.createGraphics();
+    private SummaryImage renderVariant(CountrySnapshot snapshot, String region, int width, Format format) {
+        BufferedImage image = new BufferedImage(IMAGE_WIDTH, IMAGE_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        renderTimer.record(() -> {
+            if (region != null) {
+                List<Country> inRegion = snapshot.findByRegion(region, CountrySnapshot.GdpOrder.DESC);
+                List<Country> top = inRegion.stream()
+                        .filter(country -> country.getEstimatedGdp() != null && country.getEstimatedGdp() > 0)
+                        .limit(5)
+                        .toList();
+                String title = "Country Data Summary: " + inRegion.getFirst().getRegion();
+                draw(image, title, inRegion.size(), top, snapshot.getLastRefreshedAt());
+            } else {
+                draw(image, "Country Data Summary", snapshot.size(), snapshot.topByGdp(5), snapshot.getLastRefreshedAt());
+            }
+        });
 
+        Timer.Sample encode = Timer.start();
+        try {
+            return SummaryImage.of(encode(scale(image, width), format), format.contentType);
+        } finally {
+            encode.stop(encodeTimer);
+        }
+    }
+
+    private static void draw(BufferedImage target, String title, long totalCountries, List<Country> topCountries,
+                             LocalDateTime lastRefreshed) {
+        Graphics2D g2d = target.createGraphics();
+        try {
             // Enable anti-aliasing
             g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
             g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
 
-            // Background
-            g2d.setColor(new Color(240, 248, 255));
+            // Background (also clears the previous render)
+            g2d.setColor(BACKGROUND);
             g2d.fillRect(0, 0, IMAGE_WIDTH, IMAGE_HEIGHT);
 
             // Header
-            g2d.setColor(new Color(70, 130, 180));
+            g2d.setColor(HEADER);
             g2d.fillRect(0, 0, IMAGE_WIDTH, 80);
 
             // Title
             g2d.setColor(Color.WHITE);
-            g2d.setFont(new Font("Arial", Font.BOLD, 32));
-            g2d.drawString("Country Data Summary", 50, 50);
+            g2d.setFont(TITLE_FONT);
+            g2d.drawString(title, 50, 50);
 
             // Total countries
             g2d.setColor(Color.BLACK);
-            g2d.setFont(new Font("Arial", Font.BOLD, 24));
+            g2d.setFont(TOTAL_FONT);
             g2d.drawString("Total Countries: " + totalCountries, 50, 130);
 
             // Top 5 countries header
-            g2d.setFont(new Font("Arial", Font.BOLD, 22));
+            g2d.setFont(SUBTITLE_FONT);
             g2d.drawString("Top 5 Countries by Estimated GDP:", 50, 180);
 
             // Draw top countries
-            g2d.setFont(new Font("Arial", Font.PLAIN, 18));
+            g2d.setFont(ROW_FONT);
             int yPos = 220;
             int rank = 1;
 
@@ -75,26 +338,72 @@ public class ImageGenerationService {
             }
 
             // Last refreshed
-            g2d.setFont(new Font("Arial", Font.ITALIC, 16));
-            g2d.setColor(new Color(100, 100, 100));
+            g2d.setFont(FOOTER_FONT);
+            g2d.setColor(FOOTER_TEXT);
             String timestamp = lastRefreshed.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
             g2d.drawString("Last Refreshed: " + timestamp, 50, IMAGE_HEIGHT - 30);
-
+        } finally {
             g2d.dispose();
+        }
+    }
 
-            // Save image
-            File outputFile = new File(CACHE_DIR + File.separator + IMAGE_FILE);
-            ImageIO.write(image, "png", outputFile);
+    private static BufferedImage scale(BufferedImage image, int width) {
+        if (width == image.getWidth()) {
+            return image;
+        }
+        int height = Math.max(1, Math.round((float) image.getHeight() * width / image.getWidth()));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = scaled.createGraphics();
+        try {
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2d.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g2d.dispose();
+        }
+        return scaled;
+    }
 
-            log.info("Summary image generated successfully at {}", outputFile.getAbsolutePath());
+    private static byte[] encode(BufferedImage image, Format format) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+        try {
+            if (!ImageIO.write(image, format.writer, out)) {
+                throw new IllegalStateException("No ImageIO writer for " + format.writer);
+            }
         } catch (IOException e) {
-            log.error("Failed to generate summary image", e);
-            throw new RuntimeException("Failed to generate summary image", e);
+            throw new UncheckedIOException(e);
         }
+        return out.toByteArray();
     }
 
+    private static void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * The on-disk copy of the summary, used until this process has rendered one itself.
+     */
     public File getSummaryImage() {
-        File imageFile = new File(CACHE_DIR + File.separator + IMAGE_FILE);
+        File imageFile = cacheDir.resolve(IMAGE_FILE).toFile();
         return imageFile.exists() ? imageFile : null;
     }
+
+    /**
+     * What the image shows, apart from the timestamp.
+     */
+    private record Summary(long totalCountries, List<String> topCountries) {
+        static Summary of(long totalCountries, List<Country> topCountries) {
+            List<String> rows = new ArrayList<>(topCountries.size());
+            for (Country country : topCountries) {
+                rows.add(country.getName() + "=" + country.getEstimatedGdp());
+            }
+            return new Summary(totalCountries, rows);
+        }
+    }
+
+    private record VariantKey(long version, String region, int width, Format format) {
+    }
 }
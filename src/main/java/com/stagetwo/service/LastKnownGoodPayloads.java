@@ -0,0 +1,75 @@
+package com.stagetwo.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * The last successfully fetched payload of each upstream, one file per upstream. Files are
+ * written to a temporary file and renamed into place, so a reader never sees a partial copy.
+ * Saving never fails a refresh; it only logs.
+ */
+@Slf4j
+public class LastKnownGoodPayloads {
+    private final Path dir;
+    private final Duration maxAge;
+
+    public LastKnownGoodPayloads(Path dir, Duration maxAge) {
+        this.dir = dir;
+        this.maxAge = maxAge;
+    }
+
+    @FunctionalInterface
+    public interface PayloadWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    public void save(String name, PayloadWriter writer) {
+        try {
+            Files.createDirectories(dir);
+            Path temp = Files.createTempFile(dir, name + "-", ".tmp");
+            try {
+                try (OutputStream out = Files.newOutputStream(temp)) {
+                    writer.writeTo(out);
+                }
+                Files.move(temp, dir.resolve(name), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not save last-known-good payload {}", name, e);
+        }
+    }
+
+    public void save(String name, Path payload) {
+        save(name, out -> Files.copy(payload, out));
+    }
+
+    /**
+     * The saved payload, unless there is none or it is older than the configured maximum age.
+     */
+    public Optional<Path> find(String name) {
+        Path file = dir.resolve(name);
+        try {
+            if (!Files.isRegularFile(file)) {
+                return Optional.empty();
+            }
+            Instant savedAt = Files.getLastModifiedTime(file).toInstant();
+            if (savedAt.isBefore(Instant.now().minus(maxAge))) {
+                log.warn("Last-known-good payload {} from {} is too old to use", name, savedAt);
+                return Optional.empty();
+            }
+            return Optional.of(file);
+        } catch (IOException e) {
+            log.warn("Could not read last-known-good payload {}", name, e);
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.stagetwo.service;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Wraps each refresh phase in a {@code refresh.phase} observation (a timer tagged with the
+ * phase, and a child span of the refresh when tracing is on) before passing it on.
+ */
+class ObservedRefreshProgress implements RefreshProgress, AutoCloseable {
+    private final RefreshProgress delegate;
+    private final ObservationRegistry registry;
+    private final Observation parent;
+    private Observation current;
+
+    ObservedRefreshProgress(RefreshProgress delegate, ObservationRegistry registry, Observation parent) {
+        this.delegate = delegate;
+        this.registry = registry;
+        this.parent = parent;
+    }
+
+    @Override
+    public void enterPhase(String phase) {
+        close();
+        current = Observation.createNotStarted("refresh.phase", registry)
+                .contextualName("refresh " + phase)
+                .lowCardinalityKeyValue("phase", phase)
+                .parentObservation(parent)
+                .start();
+        delegate.enterPhase(phase);
+    }
+
+    @Override
+    public void beforeCommit() {
+        delegate.beforeCommit();
+    }
+
+    void error(Throwable error) {
+        if (current != null) {
+            current.error(error);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (current != null) {
+            current.stop();
+            current = null;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.stagetwo.service;
+
+import com.stagetwo.dto.ExchangeRateResponseDto;
+import com.stagetwo.dto.RateHistoryResponseDto;
+import com.stagetwo.dto.RateResponseDto;
+import com.stagetwo.event.ExchangeRatesUpdatedEvent;
+import com.stagetwo.repository.ExchangeRateHistoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+/**
+ * Records every upstream exchange-rate update in the history table and answers point-in-time
+ * and range queries over it. Range queries stream rows from the database and downsample them
+ * on the fly, so memory use depends on the number of buckets, not the number of rows.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RateHistoryService {
+    public static final int MAX_RAW_POINTS = 10_000;
+
+    private final ExchangeRateHistoryRepository historyRepository;
+    private final ExchangeRateService exchangeRateService;
+
+    public enum Interval {
+        RAW, DAY, WEEK;
+
+        public static Interval parse(String value) {
+            if (value == null || value.isBlank()) {
+                return RAW;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("interval must be raw, day or week");
+            }
+        }
+
+        Instant bucketStart(Instant time) {
+            ZonedDateTime day = time.atZone(ZoneOffset.UTC).truncatedTo(ChronoUnit.DAYS);
+            return switch (this) {
+                case RAW -> time;
+                case DAY -> day.toInstant();
+                case WEEK -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).toInstant();
+            };
+        }
+    }
+
+    /**
+     * Appends the rates of a refresh. Runs inside the refresh transaction, so a rolled back
+     * refresh leaves no history behind. An update the upstream already reported (same
+     * {@code time_last_update_utc}) is not stored twice.
+     */
+    @EventListener
+    public void onExchangeRatesUpdated(ExchangeRatesUpdatedEvent event) {
+        ExchangeRateResponseDto dto = event.exchangeRates();
+        if (dto.getRates() == null || dto.getBaseCode() == null) {
+            log.warn("Exchange rates without base currency or rates, not recorded in history");
+            return;
+        }
+        Instant observedAt = observedAt(dto.getTimeLastUpdateUtc());
+        Instant latest = historyRepository.findLatestObservedAt().orElse(Instant.MIN);
+        if (!observedAt.isAfter(latest)) {
+            log.debug("Exchange rates of {} already recorded", observedAt);
+            return;
+        }
+        ExchangeRateTable rates = ExchangeRateTable.of(dto.getBaseCode().toUpperCase(Locale.ROOT),
+                dto.getTimeLastUpdateUtc(), dto.getRates());
+        historyRepository.insertAll(observedAt, rates);
+        log.info("Recorded {} exchange rates observed at {}", rates.size(), observedAt);
+    }
+
+    /**
+     * Loads the latest recorded rates for conversions, so /convert works after a restart
+     * without waiting for a refresh.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadLatestRates() {
+        latestRates().ifPresent(exchangeRateService::loadIfEmpty);
+    }
+
+    /**
+     * Loads the latest recorded rates for conversions if they are newer than the loaded ones, as
+     * after a refresh on another instance.
+     */
+    public void reloadLatestRates() {
+        historyRepository.findLatestObservedAt().ifPresent(latest -> {
+            ExchangeRateTable loaded = exchangeRateService.current();
+            if (loaded.isEmpty() || observedAt(loaded.getUpdatedAt()).isBefore(latest)) {
+                exchangeRateService.replace(loaded, ratesObservedAt(latest));
+            }
+        });
+    }
+
+    private Optional<ExchangeRateTable> latestRates() {
+        return historyRepository.findLatestObservedAt().map(this::ratesObservedAt);
+    }
+
+    private ExchangeRateTable ratesObservedAt(Instant observedAt) {
+        List<ExchangeRateHistoryRepository.Observation> observations = historyRepository.findAllObservedAt(observedAt);
+        Map<String, Double> rates = new HashMap<>();
+        observations.forEach(observation -> rates.put(observation.currencyCode(), observation.rate()));
+        String baseCode = observations.isEmpty() ? null : observations.get(0).baseCode();
+        String updatedAt = DateTimeFormatter.RFC_1123_DATE_TIME.format(observedAt.atOffset(ZoneOffset.UTC));
+        return ExchangeRateTable.of(baseCode, updatedAt, rates);
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code currencyCode} is not a three-letter code
+     * @throws NoSuchElementException   if no rate was recorded for it at or before {@code at}
+     */
+    public RateResponseDto getRate(String currencyCode, Instant at) {
+        String code = normalizeCode(currencyCode);
+        ExchangeRateHistoryRepository.Observation observation = historyRepository.findAt(code, at)
+                .orElseThrow(() -> new NoSuchElementException("No exchange rate for " + code + " at " + at));
+        RateResponseDto response = new RateResponseDto();
+        response.setCurrencyCode(observation.currencyCode());
+        response.setBaseCode(observation.baseCode());
+        response.setRate(observation.rate());
+        response.setObservedAt(observation.observedAt().toString());
+        return response;
+    }
+
+    /**
+     * Rates recorded in [from, to), as raw observations or as daily/weekly (UTC, weeks start on
+     * Monday) min/max/avg buckets. Raw ranges are limited to {@value #MAX_RAW_POINTS} points.
+     */
+    public RateHistoryResponseDto getHistory(String currencyCode, Instant from, Instant to, Interval interval) {
+        String code = normalizeCode(currencyCode);
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+
+        RateHistoryResponseDto response = new RateHistoryResponseDto();
+        response.setCurrencyCode(code);
+        response.setInterval(interval.name().toLowerCase(Locale.ROOT));
+        response.setFrom(from.toString());
+        response.setTo(to.toString());
+
+        if (interval == Interval.RAW) {
+            List<RateHistoryResponseDto.Point> points = new ArrayList<>();
+            historyRepository.forEachInRange(code, from, to, MAX_RAW_POINTS + 1, observation -> {
+                response.setBaseCode(observation.baseCode());
+                RateHistoryResponseDto.Point point = new RateHistoryResponseDto.Point();
+                point.setObservedAt(observation.observedAt().toString());
+                point.setRate(observation.rate());
+                points.add(point);
+            });
+            if (points.size() > MAX_RAW_POINTS) {
+                throw new IllegalArgumentException("More than " + MAX_RAW_POINTS
+                        + " rates in range, use interval=day or interval=week");
+            }
+            response.setPoints(points);
+            return response;
+        }
+
+        List<RateHistoryResponseDto.Bucket> buckets = new ArrayList<>();
+        BucketAccumulator accumulator = new BucketAccumulator(interval, buckets);
+        historyRepository.forEachInRange(code, from, to, Integer.MAX_VALUE, observation -> {
+            response.setBaseCode(observation.baseCode());
+            accumulator.add(observation.observedAt(), observation.rate());
+        });
+        accumulator.flush();
+        response.setBuckets(buckets);
+        return response;
+    }
+
+    static Instant observedAt(String timeLastUpdateUtc) {
+        if (timeLastUpdateUtc != null) {
+            try {
+                return ZonedDateTime.parse(timeLastUpdateUtc, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            } catch (DateTimeParseException e) {
+                log.warn("Unparseable time_last_update_utc '{}', using the current time", timeLastUpdateUtc);
+            }
+        }
+        return Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    private static String normalizeCode(String currencyCode) {
+        if (currencyCode == null || !currencyCode.matches("[A-Za-z]{3}")) {
+            throw new IllegalArgumentException("currency must be a three-letter code");
+        }
+        return currencyCode.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Folds time-ordered rates into buckets, emitting each bucket when the next one starts.
+     */
+    private static final class BucketAccumulator {
+        private final Interval interval;
+        private final List<RateHistoryResponseDto.Bucket> buckets;
+        private Instant start;
+        private double min;
+        private double max;
+        private double sum;
+        private int samples;
+
+        BucketAccumulator(Interval interval, List<RateHistoryResponseDto.Bucket> buckets) {
+            this.interval = interval;
+            this.buckets = buckets;
+        }
+
+        void add(Instant time, double rate) {
+            Instant bucket = interval.bucketStart(time);
+            if (!bucket.equals(start)) {
+                flush();
+                start = bucket;
+                min = Double.POSITIVE_INFINITY;
+                max = Double.NEGATIVE_INFINITY;
+                sum = 0;
+            }
+            min = Math.min(min, rate);
+            max = Math.max(max, rate);
+            sum += rate;
+            samples++;
+        }
+
+        void flush() {
+            if (samples == 0) {
+                return;
+            }
+            RateHistoryResponseDto.Bucket bucket = new RateHistoryResponseDto.Bucket();
+            bucket.setStart(start.toString());
+            bucket.setMin(min);
+            bucket.setMax(max);
+            bucket.setAvg(sum / samples);
+            bucket.setSamples(samples);
+            buckets.add(bucket);
+            samples = 0;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.stagetwo.service;
+
+import com.stagetwo.dto.ErrorResponseDto;
+import com.stagetwo.dto.RefreshJobResponseDto;
+
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One background run of the refresh pipeline. Updated by the refresh thread and read by
+ * pollers, so every access is synchronized.
+ */
+public class RefreshJob implements RefreshProgress {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final Instant createdAt = Instant.now();
+    private final List<PhaseTiming> phases = new ArrayList<>();
+    private Status status = Status.QUEUED;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private long startNanos;
+    private long finishNanos;
+    private ErrorResponseDto error;
+    private RefreshResult result;
+    private String refreshedBy;
+
+    public String getId() {
+        return id;
+    }
+
+    public synchronized Status getStatus() {
+        return status;
+    }
+
+    public synchronized boolean isDone() {
+        return status == Status.SUCCEEDED || status == Status.FAILED;
+    }
+
+    synchronized void start() {
+        status = Status.RUNNING;
+        startedAt = Instant.now();
+        startNanos = System.nanoTime();
+    }
+
+    @Override
+    public synchronized void enterPhase(String phase) {
+        long now = System.nanoTime();
+        endCurrentPhase(now);
+        phases.add(new PhaseTiming(phase, now));
+    }
+
+    /**
+     * @param result      the row counts, or {@code null} if another instance ran the refresh
+     * @param refreshedBy the instance that ran the refresh
+     */
+    synchronized void succeed(RefreshResult result, String refreshedBy) {
+        this.result = result;
+        this.refreshedBy = refreshedBy;
+        finish(Status.SUCCEEDED);
+    }
+
+    synchronized void fail(ErrorResponseDto error) {
+        this.error = error;
+        finish(Status.FAILED);
+    }
+
+    private void finish(Status finalStatus) {
+        finishNanos = System.nanoTime();
+        endCurrentPhase(finishNanos);
+        finishedAt = Instant.now();
+        status = finalStatus;
+    }
+
+    private void endCurrentPhase(long now) {
+        if (!phases.isEmpty()) {
+            phases.get(phases.size() - 1).end(now);
+        }
+    }
+
+    public synchronized RefreshJobResponseDto toResponse() {
+        RefreshJobResponseDto response = new RefreshJobResponseDto();
+        response.setId(id);
+        response.setStatus(status.name().toLowerCase());
+        response.setCreatedAt(format(createdAt));
+        response.setStartedAt(format(startedAt));
+        response.setFinishedAt(format(finishedAt));
+        if (startedAt != null) {
+            long end = finishedAt != null ? finishNanos : System.nanoTime();
+            response.setDurationMs((end - startNanos) / 1_000_000);
+        }
+        if (status == Status.RUNNING && !phases.isEmpty()) {
+            response.setCurrentPhase(phases.get(phases.size() - 1).name);
+        }
+
+        List<RefreshJobResponseDto.Phase> phaseResponses = new ArrayList<>();
+        for (PhaseTiming timing : phases) {
+            RefreshJobResponseDto.Phase phase = new RefreshJobResponseDto.Phase();
+            phase.setName(timing.name);
+            phase.setDurationMs(((timing.endNanos != 0 ? timing.endNanos : System.nanoTime()) - timing.startNanos) / 1_000_000);
+            phaseResponses.add(phase);
+        }
+        response.setPhases(phaseResponses);
+        response.setRefreshedBy(refreshedBy);
+        if (result != null) {
+            RefreshJobResponseDto.Result counts = new RefreshJobResponseDto.Result();
+            counts.setInserted(result.inserted());
+            counts.setUpdated(result.updated());
+            counts.setUnchanged(result.unchanged());
+            counts.setRemoved(result.removed());
+            if (!result.lastKnownGood().isEmpty()) {
+                counts.setLastKnownGood(result.lastKnownGood());
+            }
+            response.setResult(counts);
+        }
+        response.setError(error);
+        return response;
+    }
+
+    private static String format(Instant instant) {
+        return instant != null ? DateTimeFormatter.ISO_INSTANT.format(instant) : null;
+    }
+
+    private static final class PhaseTiming {
+        private final String name;
+        private final long startNanos;
+        private long endNanos;
+
+        private PhaseTiming(String name, long startNanos) {
+            this.name = name;
+            this.startNanos = startNanos;
+        }
+
+        private void end(long now) {
+            if (endNanos == 0) {
+                endNanos = now;
+            }
+        }
+    }
+}
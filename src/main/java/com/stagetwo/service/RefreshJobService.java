@@ -0,0 +1,210 @@
+package com.stagetwo.service;
+
+import com.stagetwo.config.ClusterProperties;
+import com.stagetwo.dto.ErrorResponseDto;
+import com.stagetwo.event.RefreshJobUpdatedEvent;
+import com.stagetwo.exception.RefreshLeaseLostException;
+import com.stagetwo.exception.RefreshWaitTimeoutException;
+import com.stagetwo.exception.UpstreamUnavailableException;
+import com.stagetwo.repository.ClusterLeaseRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs refreshes as background jobs. Triggers that arrive while a job is queued or running
+ * join that job instead of starting another one. Across instances sharing the database, a job
+ * first takes the refresh lease; if another instance holds it, the job waits for that refresh
+ * and, if it committed, succeeds with its outcome instead of fetching the upstreams again. The
+ * lease is renewed while the refresh runs and checked once more inside its transaction, so a
+ * refresh that lost it, to another instance after a stall for example, rolls back instead of
+ * committing alongside that instance's. A {@link RefreshJobUpdatedEvent} is published when a job
+ * starts and when it finishes.
+ */
+@Service
+@Slf4j
+public class RefreshJobService {
+    private static final int RETAINED_JOBS = 50;
+    static final String REFRESH_LEASE = "refresh";
+
+    private final CountryService countryService;
+    private final ExecutorService refreshExecutor;
+    private final ClusterLeaseRepository clusterLeaseRepository;
+    private final ClusterProperties clusterProperties;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Map<String, RefreshJob> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RefreshJob> eldest) {
+            return size() > RETAINED_JOBS;
+        }
+    };
+    private RefreshJob inFlight;
+
+    public RefreshJobService(CountryService countryService, @Qualifier("refreshExecutor") ExecutorService refreshExecutor,
+                             ClusterLeaseRepository clusterLeaseRepository, ClusterProperties clusterProperties,
+                             ApplicationEventPublisher eventPublisher) {
+        this.countryService = countryService;
+        this.refreshExecutor = refreshExecutor;
+        this.clusterLeaseRepository = clusterLeaseRepository;
+        this.clusterProperties = clusterProperties;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Returns the queued or running job, or starts a new one if there is none.
+     */
+    public synchronized RefreshJob trigger() {
+        if (inFlight != null && !inFlight.isDone()) {
+            return inFlight;
+        }
+
+        RefreshJob job = new RefreshJob();
+        jobs.put(job.getId(), job);
+        inFlight = job;
+        refreshExecutor.execute(() -> run(job));
+        return job;
+    }
+
+    public synchronized Optional<RefreshJob> findJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    public synchronized boolean isRefreshing() {
+        return inFlight != null && !inFlight.isDone();
+    }
+
+    private void run(RefreshJob job) {
+        job.start();
+        eventPublisher.publishEvent(new RefreshJobUpdatedEvent(job.toResponse()));
+        String instanceId = clusterProperties.getInstanceId();
+        try {
+            job.enterPhase("lease");
+            Optional<String> joined = awaitRefreshLease(instanceId);
+            if (joined.isPresent()) {
+                job.succeed(null, joined.get());
+            } else {
+                try (HeldLease lease = new HeldLease(job, instanceId)) {
+                    job.succeed(countryService.refreshCountries(lease), instanceId);
+                }
+            }
+        } catch (UpstreamUnavailableException e) {
+            job.fail(new ErrorResponseDto("External data source unavailable", e.getMessage()));
+        } catch (RefreshLeaseLostException e) {
+            job.fail(new ErrorResponseDto("Refresh lease lost", e.getMessage()));
+        } catch (RefreshWaitTimeoutException e) {
+            job.fail(new ErrorResponseDto("Refresh still running on another instance", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Refresh job {} failed", job.getId(), e);
+            job.fail(new ErrorResponseDto("Internal server error"));
+        }
+        log.info("Refresh job {} finished: {}", job.getId(), job.getStatus());
+        eventPublisher.publishEvent(new RefreshJobUpdatedEvent(job.toResponse()));
+    }
+
+    /**
+     * Takes the refresh lease for this instance, waiting up to {@code cluster.refresh-wait} while
+     * another instance holds it. Returns that instance if it released the lease after its refresh
+     * committed; this instance then gives the lease back, and the changes reach it through the
+     * shared dataset version. If that refresh failed, or its instance died and the lease expired,
+     * this instance keeps the lease and refreshes itself.
+     */
+    private Optional<String> awaitRefreshLease(String instanceId) throws InterruptedException {
+        Duration lease = clusterProperties.getRefreshLease();
+        long generation = clusterLeaseRepository.generation(REFRESH_LEASE);
+        if (clusterLeaseRepository.tryAcquire(REFRESH_LEASE, instanceId, lease)) {
+            return Optional.empty();
+        }
+        String holder = clusterLeaseRepository.holder(REFRESH_LEASE).orElse(null);
+        if (holder != null) {
+            log.info("Refresh running on instance {}, waiting for it", holder);
+        }
+        long deadline = System.nanoTime() + clusterProperties.getRefreshWait().toNanos();
+        while (!clusterLeaseRepository.tryAcquire(REFRESH_LEASE, instanceId, lease)) {
+            if (clusterLeaseRepository.takeOver(REFRESH_LEASE, instanceId, lease)) {
+                log.warn("Refresh lease of instance {} expired, refreshing on this instance instead", holder);
+                return Optional.empty();
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                throw new RefreshWaitTimeoutException(holder, clusterProperties.getRefreshWait());
+            }
+            Thread.sleep(clusterProperties.getLeaseRetryInterval());
+        }
+        if (holder == null || clusterLeaseRepository.generation(REFRESH_LEASE) == generation) {
+            log.info("Refresh on instance {} did not commit, refreshing on this instance instead", holder);
+            return Optional.empty();
+        }
+        clusterLeaseRepository.release(REFRESH_LEASE, instanceId);
+        return Optional.of(holder);
+    }
+
+    /**
+     * The refresh lease while this instance's refresh runs: renewed every third of
+     * {@code cluster.refresh-lease} on a virtual thread, checked before the refresh commits and
+     * released on close. Passes the refresh's phases on to its job.
+     */
+    private final class HeldLease implements RefreshProgress, AutoCloseable {
+        private final RefreshJob job;
+        private final String instanceId;
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private final Thread renewer;
+
+        HeldLease(RefreshJob job, String instanceId) {
+            this.job = job;
+            this.instanceId = instanceId;
+            this.renewer = Thread.ofVirtual().name("refresh-lease-renewal").start(this::renewPeriodically);
+        }
+
+        @Override
+        public void enterPhase(String phase) {
+            job.enterPhase(phase);
+        }
+
+        /**
+         * Renews the lease and counts the commit in the refresh transaction, which keeps the lease
+         * row locked until the commit, so no other instance can take the lease in between.
+         */
+        @Override
+        public void beforeCommit() {
+            if (!clusterLeaseRepository.commit(REFRESH_LEASE, instanceId, clusterProperties.getRefreshLease())) {
+                throw new RefreshLeaseLostException(instanceId);
+            }
+        }
+
+        private void renewPeriodically() {
+            Duration interval = clusterProperties.getRefreshLease().dividedBy(3);
+            try {
+                // Not interrupted when the refresh ends, which could close a pooled connection mid-statement
+                while (!finished.await(interval.toNanos(), TimeUnit.NANOSECONDS)) {
+                    try {
+                        if (!clusterLeaseRepository.renew(REFRESH_LEASE, instanceId, clusterProperties.getRefreshLease())) {
+                            log.warn("Refresh lease of instance {} was lost; the refresh will roll back", instanceId);
+                            return;
+                        }
+                    } catch (RuntimeException e) {
+                        // Tried again next interval; the lease lasts three of them
+                        log.warn("Could not renew the refresh lease", e);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void close() throws InterruptedException {
+            finished.countDown();
+            renewer.join();
+            clusterLeaseRepository.release(REFRESH_LEASE, instanceId);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.stagetwo.service;
+
+/**
+ * Receives the phase transitions of a running refresh, and has the last word on whether it
+ * commits.
+ */
+public interface RefreshProgress {
+    RefreshProgress NONE = phase -> {
+    };
+
+    /**
+     * Marks the start of {@code phase}; the previous phase, if any, ends here.
+     */
+    void enterPhase(String phase);
+
+    /**
+     * Called inside the refresh transaction once the rows are written, before anything is
+     * published; an exception rolls the refresh back.
+     */
+    default void beforeCommit() {
+    }
+}
@@ -0,0 +1,19 @@
+package com.stagetwo.service;
+
+import java.util.List;
+
+/**
+ * Row counts of one completed refresh.
+ *
+ * @param lastKnownGood the upstreams whose last-known-good payload was used instead of fresh data
+ */
+public record RefreshResult(int inserted, int updated, int unchanged, int removed, List<String> lastKnownGood) {
+
+    public RefreshResult(int inserted, int updated, int unchanged, int removed) {
+        this(inserted, updated, unchanged, removed, List.of());
+    }
+
+    public boolean hasChanges() {
+        return inserted > 0 || updated > 0 || removed > 0;
+    }
+}
@@ -0,0 +1,68 @@
+package com.stagetwo.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A JSON response body serialized once, together with its gzip and deflate (zlib) encodings.
+ * The arrays are shared between requests and must not be modified.
+ */
+public final class RenderedBody {
+
+    public enum Coding {
+        IDENTITY(null),
+        GZIP("gzip"),
+        DEFLATE("deflate");
+
+        private final String token;
+
+        Coding(String token) {
+            this.token = token;
+        }
+
+        /**
+         * The {@code Content-Encoding} value, or {@code null} for an unencoded body.
+         */
+        public String token() {
+            return token;
+        }
+    }
+
+    private final byte[] identity;
+    private final byte[] gzip;
+    private final byte[] deflate;
+
+    private RenderedBody(byte[] identity, byte[] gzip, byte[] deflate) {
+        this.identity = identity;
+        this.gzip = gzip;
+        this.deflate = deflate;
+    }
+
+    public static RenderedBody of(byte[] json) {
+        try {
+            ByteArrayOutputStream gzipped = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (OutputStream out = new GZIPOutputStream(gzipped)) {
+                out.write(json);
+            }
+            ByteArrayOutputStream deflated = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (OutputStream out = new DeflaterOutputStream(deflated)) {
+                out.write(json);
+            }
+            return new RenderedBody(json, gzipped.toByteArray(), deflated.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public byte[] bytes(Coding coding) {
+        return switch (coding) {
+            case IDENTITY -> identity;
+            case GZIP -> gzip;
+            case DEFLATE -> deflate;
+        };
+    }
+}
@@ -0,0 +1,108 @@
+package com.stagetwo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stagetwo.entity.Country;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serialized {@code GET /countries} bodies for the common query shapes (no filter, one region or
+ * one currency, any sort, no paging or projection). Each body is rendered and compressed the first time it is
+ * asked for under a snapshot version and reused until the next version is published.
+ */
+@Service
+public class RenderedCountryLists {
+    private final CountrySnapshotService countrySnapshotService;
+    private final CountryService countryService;
+    private final ObjectMapper objectMapper;
+    private final Counter hits;
+    private final Counter misses;
+
+    private volatile VersionCache cache = new VersionCache(0);
+
+    public RenderedCountryLists(CountrySnapshotService countrySnapshotService, CountryService countryService,
+                                ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.countrySnapshotService = countrySnapshotService;
+        this.countryService = countryService;
+        this.objectMapper = objectMapper;
+        this.hits = meterRegistry.counter("cache.gets", "cache", "country_lists", "result", "hit");
+        this.misses = meterRegistry.counter("cache.gets", "cache", "country_lists", "result", "miss");
+    }
+
+    /**
+     * Whether a query is answered from {@link #find}; other shapes are serialized per request.
+     */
+    public static boolean isCommonShape(String region, String currency, Integer limit, String after, String fields) {
+        boolean bothFilters = region != null && !region.isEmpty() && currency != null && !currency.isEmpty();
+        return !bothFilters && limit == null && after == null && fields == null;
+    }
+
+    public RenderedBody find(String region, String currency, String sort) {
+        CountrySnapshot snapshot = countrySnapshotService.current();
+        CountrySnapshot.GdpOrder order = CountryService.parseSort(sort);
+        String key;
+        if (region != null && !region.isEmpty()) {
+            key = snapshot.hasRegion(region) ? "region:" + region.toLowerCase(Locale.ROOT) : null;
+        } else if (currency != null && !currency.isEmpty()) {
+            key = snapshot.hasCurrencyCode(currency) ? "currency:" + currency.toLowerCase(Locale.ROOT) : null;
+        } else {
+            key = "all";
+        }
+
+        // Unknown filter values would only grow the cache with empty lists
+        VersionCache bodies = cacheFor(snapshot);
+        if (key == null || bodies == null) {
+            return render(countryService.getAllCountries(snapshot, region, currency, sort, null));
+        }
+        RenderedBody body = bodies.entries.get(key + "|" + order);
+        if (body != null) {
+            hits.increment();
+            return body;
+        }
+        misses.increment();
+        return bodies.entries.computeIfAbsent(key + "|" + order,
+                k -> render(countryService.getAllCountries(snapshot, region, currency, sort, null)));
+    }
+
+    /**
+     * The cache for {@code snapshot}'s version, or {@code null} if a newer version is already cached.
+     */
+    private VersionCache cacheFor(CountrySnapshot snapshot) {
+        VersionCache current = cache;
+        if (current.version == snapshot.getVersion()) {
+            return current;
+        }
+        synchronized (this) {
+            current = cache;
+            if (current.version < snapshot.getVersion()) {
+                current = new VersionCache(snapshot.getVersion());
+                cache = current;
+            }
+            return current.version == snapshot.getVersion() ? current : null;
+        }
+    }
+
+    private RenderedBody render(List<Country> countries) {
+        try {
+            return RenderedBody.of(objectMapper.writeValueAsBytes(countries));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize countries", e);
+        }
+    }
+
+    private static final class VersionCache {
+        private final long version;
+        private final Map<String, RenderedBody> entries = new ConcurrentHashMap<>();
+
+        private VersionCache(long version) {
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.stagetwo.service;
+
+import com.stagetwo.config.UpstreamProperties;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.core.IntervalFunction;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Guards the calls to one external API: bounded retries with jittered exponential backoff
+ * around a circuit breaker around a bulkhead. Each retry attempt counts as one call for the
+ * breaker; a rejected call (open circuit, full bulkhead) is not retried.
+ */
+@Slf4j
+public class ResilientUpstream {
+    private final String apiName;
+    private final Retry retry;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+
+    public ResilientUpstream(String apiName, UpstreamProperties.Endpoint endpoint, MeterRegistry meterRegistry) {
+        this.apiName = apiName;
+        this.retry = Retry.of(apiName, RetryConfig.custom()
+                .maxAttempts(Math.max(1, endpoint.getMaxAttempts()))
+                .intervalFunction(IntervalFunction.ofExponentialRandomBackoff(endpoint.getRetryBackoff(), 2.0, 0.5))
+                .retryOnException(ResilientUpstream::isRetryable)
+                .build());
+        this.circuitBreaker = CircuitBreaker.of(apiName, CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(endpoint.getSlidingWindowSize())
+                .minimumNumberOfCalls(endpoint.getSlidingWindowSize())
+                .failureRateThreshold(endpoint.getFailureRateThreshold())
+                .waitDurationInOpenState(endpoint.getOpenStateDuration())
+                .permittedNumberOfCallsInHalfOpenState(1)
+                .ignoreExceptions(BulkheadFullException.class)
+                .build());
+        this.bulkhead = Bulkhead.of(apiName, BulkheadConfig.custom()
+                .maxConcurrentCalls(endpoint.getMaxConcurrentCalls())
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        circuitBreaker.getEventPublisher().onStateTransition(event ->
+                log.warn("{} circuit breaker: {}", apiName, event.getStateTransition()));
+
+        Counter retries = meterRegistry.counter("upstream.retries", "api", apiName);
+        retry.getEventPublisher().onRetry(event -> retries.increment());
+        Gauge.builder("upstream.circuit.open", circuitBreaker, breaker -> breaker.getState() == CircuitBreaker.State.CLOSED ? 0 : 1)
+                .description("1 while calls to the upstream are rejected or probing (open or half-open circuit)")
+                .tag("api", apiName)
+                .register(meterRegistry);
+    }
+
+    public <T> T call(Supplier<T> supplier) {
+        return Retry.decorateSupplier(retry,
+                CircuitBreaker.decorateSupplier(circuitBreaker,
+                        Bulkhead.decorateSupplier(bulkhead, supplier))).get();
+    }
+
+    public String getApiName() {
+        return apiName;
+    }
+
+    /**
+     * Rejections and client errors other than 429 would fail the same way again.
+     */
+    private static boolean isRetryable(Throwable e) {
+        if (e instanceof CallNotPermittedException || e instanceof BulkheadFullException) {
+            return false;
+        }
+        Throwable cause = e;
+        while (cause != null) {
+            if (cause instanceof HttpClientErrorException clientError) {
+                return clientError.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS);
+            }
+            cause = cause.getCause();
+        }
+        return true;
+    }
+}
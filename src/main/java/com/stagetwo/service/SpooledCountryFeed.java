@@ -0,0 +1,157 @@
+package com.stagetwo.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.stagetwo.entity.Country;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A RestCountries payload spooled to a temporary file and parsed token by token with Jackson's
+ * streaming parser. Countries are mapped straight to {@link Country} rows and handed out in
+ * chunks, so memory use does not grow with the size of the feed.
+ */
+@Slf4j
+public class SpooledCountryFeed implements CountryFeed {
+    private final Path file;
+    private final JsonFactory jsonFactory;
+    private final Consumer<Path> onParsed;
+
+    public SpooledCountryFeed(Path file, JsonFactory jsonFactory) {
+        this(file, jsonFactory, parsed -> {
+        });
+    }
+
+    /**
+     * @param onParsed called with the file once it has been read to the end and held at least
+     *                 one country, before the feed deletes it
+     */
+    public SpooledCountryFeed(Path file, JsonFactory jsonFactory, Consumer<Path> onParsed) {
+        this.file = file;
+        this.jsonFactory = jsonFactory;
+        this.onParsed = onParsed;
+    }
+
+    @Override
+    public void forEachChunk(int chunkSize, Consumer<List<Country>> consumer) throws IOException {
+        long count;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            count = read(in, jsonFactory, chunkSize, consumer);
+        }
+        if (count > 0) {
+            onParsed.accept(file);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete spooled feed {}", file, e);
+        }
+    }
+
+    /**
+     * Parses a JSON array of RestCountries objects from {@code in}.
+     *
+     * @return the number of countries read
+     */
+    public static long read(InputStream in, JsonFactory jsonFactory, int chunkSize,
+                            Consumer<List<Country>> consumer) throws IOException {
+        long count = 0;
+        List<Country> chunk = new ArrayList<>(chunkSize);
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array of countries");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                chunk.add(readCountry(parser));
+                count++;
+                if (chunk.size() == chunkSize) {
+                    consumer.accept(chunk);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            consumer.accept(chunk);
+        }
+        return count;
+    }
+
+    private static Country readCountry(JsonParser parser) throws IOException {
+        Country country = new Country();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "name" -> country.setName(readText(parser));
+                case "capital" -> country.setCapital(readText(parser));
+                case "region" -> country.setRegion(readText(parser));
+                case "population" -> country.setPopulation(readLong(parser));
+                case "flag" -> country.setFlagUrl(readText(parser));
+                case "currencies" -> country.setCurrencyCode(readFirstCurrencyCode(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        return country;
+    }
+
+    private static String readText(JsonParser parser) throws IOException {
+        if (parser.currentToken().isStructStart()) {
+            parser.skipChildren();
+            return null;
+        }
+        return parser.getValueAsString();
+    }
+
+    private static Long readLong(JsonParser parser) throws IOException {
+        if (parser.currentToken().isNumeric()) {
+            return parser.getValueAsLong();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static String readFirstCurrencyCode(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        String code = null;
+        boolean first = true;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if (first && "code".equals(field)) {
+                    code = readText(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            first = false;
+        }
+        return code;
+    }
+}
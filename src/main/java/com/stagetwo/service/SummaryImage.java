@@ -0,0 +1,22 @@
+package com.stagetwo.service;
+
+import java.time.Instant;
+import java.util.zip.CRC32C;
+
+/**
+ * An encoded summary image held in memory. The ETag is derived from the bytes, so identical
+ * renders share it. The array is shared between requests and must not be modified.
+ */
+public record SummaryImage(byte[] bytes, String contentType, String eTag, Instant renderedAt) {
+
+    public static SummaryImage of(byte[] bytes, String contentType) {
+        return of(bytes, contentType, Instant.now());
+    }
+
+    public static SummaryImage of(byte[] bytes, String contentType, Instant renderedAt) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+        String eTag = Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(bytes.length);
+        return new SummaryImage(bytes, contentType, eTag, renderedAt);
+    }
+}
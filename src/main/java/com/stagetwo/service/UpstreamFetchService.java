@@ -0,0 +1,243 @@
+package com.stagetwo.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stagetwo.config.UpstreamProperties;
+import com.stagetwo.dto.CountryResponseDto;
+import com.stagetwo.dto.ExchangeRateResponseDto;
+import com.stagetwo.exception.UpstreamUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Fetches the RestCountries and exchange-rate payloads for a refresh. Both calls run at the
+ * same time, so a refresh waits for the slower upstream rather than the sum of both.
+ * <p>
+ * Each upstream is called through its own {@link ResilientUpstream}. A successful payload is
+ * saved as that upstream's last-known-good copy; when an upstream fails, its copy stands in, so
+ * a refresh still applies the fresh data of the other one. If both fail, the fetch fails.
+ */
+@Service
+@Slf4j
+public class UpstreamFetchService {
+    public static final String COUNTRIES_API = "RestCountries API";
+    public static final String EXCHANGE_RATE_API = "Exchange Rate API";
+
+    private static final String COUNTRIES_PAYLOAD = "countries.json";
+    private static final String EXCHANGE_RATES_PAYLOAD = "exchange-rates.json";
+
+    private final RestTemplate countriesRestTemplate;
+    private final RestTemplate exchangeRatesRestTemplate;
+    private final UpstreamProperties properties;
+    private final ExecutorService upstreamExecutor;
+    private final ObjectMapper objectMapper;
+    private final JsonFactory jsonFactory;
+    private final ResilientUpstream countriesUpstream;
+    private final ResilientUpstream exchangeRatesUpstream;
+    private final LastKnownGoodPayloads lastKnownGood;
+    private final ObservationRegistry observationRegistry;
+
+    public UpstreamFetchService(@Qualifier("countries") RestTemplate countriesRestTemplate,
+                                @Qualifier("exchangeRates") RestTemplate exchangeRatesRestTemplate,
+                                UpstreamProperties properties,
+                                @Qualifier("upstreamExecutor") ExecutorService upstreamExecutor,
+                                ObjectMapper objectMapper,
+                                ObservationRegistry observationRegistry,
+                                MeterRegistry meterRegistry) {
+        this.countriesRestTemplate = countriesRestTemplate;
+        this.exchangeRatesRestTemplate = exchangeRatesRestTemplate;
+        this.properties = properties;
+        this.upstreamExecutor = upstreamExecutor;
+        this.objectMapper = objectMapper;
+        this.jsonFactory = objectMapper.getFactory();
+        this.observationRegistry = observationRegistry;
+        this.countriesUpstream = new ResilientUpstream(COUNTRIES_API, properties.getCountries(), meterRegistry);
+        this.exchangeRatesUpstream = new ResilientUpstream(EXCHANGE_RATE_API, properties.getExchangeRates(), meterRegistry);
+        this.lastKnownGood = new LastKnownGoodPayloads(Path.of(properties.getLastKnownGoodDir()),
+                properties.getLastKnownGoodMaxAge());
+    }
+
+    /**
+     * Fetches both payloads. The caller must close the returned feed.
+     *
+     * @throws UpstreamUnavailableException if an upstream failed and has no usable
+     *                                      last-known-good payload, or both upstreams failed
+     */
+    public UpstreamData fetch() {
+        CompletableFuture<Fetched<CountryFeed>> countries = CompletableFuture.supplyAsync(() ->
+                fetchOrFallback(countriesUpstream, this::fetchCountries, COUNTRIES_PAYLOAD, this::readCountries),
+                upstreamExecutor);
+        CompletableFuture<Fetched<ExchangeRateResponseDto>> exchangeRates = CompletableFuture.supplyAsync(() ->
+                fetchOrFallback(exchangeRatesUpstream, this::fetchExchangeRates, EXCHANGE_RATES_PAYLOAD, this::readExchangeRates),
+                upstreamExecutor);
+        Fetched<CountryFeed> fetchedCountries;
+        Fetched<ExchangeRateResponseDto> fetchedRates;
+        try {
+            fetchedCountries = countries.join();
+            fetchedRates = exchangeRates.join();
+        } catch (CompletionException e) {
+            // Don't leak a spooled feed when only the exchange rates failed
+            countries.thenAccept(fetched -> fetched.value().close());
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+
+        if (fetchedCountries.lastKnownGood() && fetchedRates.lastKnownGood()) {
+            fetchedCountries.value().close();
+            throw new UpstreamUnavailableException(COUNTRIES_API + " and " + EXCHANGE_RATE_API);
+        }
+        List<String> fallbacks = new ArrayList<>();
+        if (fetchedCountries.lastKnownGood()) {
+            fallbacks.add(COUNTRIES_API);
+        }
+        if (fetchedRates.lastKnownGood()) {
+            fallbacks.add(EXCHANGE_RATE_API);
+        }
+        return new UpstreamData(fetchedCountries.value(), fetchedRates.value(), fallbacks);
+    }
+
+    /**
+     * Observed as {@code upstream.fetch}, tagged with the API and whether the payload is fresh
+     * or last-known-good; retries and backoff waits are included.
+     */
+    private <T> Fetched<T> fetchOrFallback(ResilientUpstream upstream, Supplier<T> fetch,
+                                           String payload, Function<Path, T> readLastKnownGood) {
+        Observation observation = Observation.createNotStarted("upstream.fetch", observationRegistry)
+                .contextualName("fetch " + upstream.getApiName())
+                .lowCardinalityKeyValue("api", upstream.getApiName())
+                .start();
+        try {
+            Fetched<T> fetched = fetchOrFallback(upstream, fetch, payload, readLastKnownGood, observation);
+            observation.lowCardinalityKeyValue("source", fetched.lastKnownGood() ? "last_known_good" : "upstream");
+            return fetched;
+        } catch (RuntimeException e) {
+            observation.lowCardinalityKeyValue("source", "none");
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
+    }
+
+    private <T> Fetched<T> fetchOrFallback(ResilientUpstream upstream, Supplier<T> fetch, String payload,
+                                           Function<Path, T> readLastKnownGood, Observation observation) {
+        try {
+            return new Fetched<>(upstream.call(fetch), false);
+        } catch (RuntimeException e) {
+            observation.event(Observation.Event.of("upstream.failed", e.toString()));
+            Path saved = lastKnownGood.find(payload).orElseThrow(() ->
+                    new UpstreamUnavailableException(upstream.getApiName(), e));
+            log.warn("{} unavailable ({}), using last-known-good payload {}", upstream.getApiName(), e.toString(), saved);
+            try {
+                return new Fetched<>(readLastKnownGood.apply(saved), true);
+            } catch (RuntimeException readFailure) {
+                e.addSuppressed(readFailure);
+                throw new UpstreamUnavailableException(upstream.getApiName(), e);
+            }
+        }
+    }
+
+    private CountryFeed fetchCountries() {
+        if (properties.isStreaming()) {
+            return spoolCountries();
+        }
+
+        CountryResponseDto[] countries = countriesRestTemplate.getForObject(properties.getCountries().getUrl(), CountryResponseDto[].class);
+        if (countries == null || countries.length == 0) {
+            throw new IllegalStateException("Empty RestCountries payload");
+        }
+        lastKnownGood.save(COUNTRIES_PAYLOAD, out -> objectMapper.writeValue(out, countries));
+        return CountryFeed.of(countries);
+    }
+
+    /**
+     * Copies the response body to a temporary file without buffering it in memory. The file
+     * becomes the last-known-good payload only once the refresh has parsed it, so a truncated or
+     * malformed body never replaces a good one.
+     */
+    private CountryFeed spoolCountries() {
+        try {
+            Path file = Files.createTempFile("countries-", ".json");
+            try {
+                countriesRestTemplate.execute(properties.getCountries().getUrl(), HttpMethod.GET, null, response -> {
+                    try (InputStream body = response.getBody()) {
+                        Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                Files.deleteIfExists(file);
+                throw e;
+            }
+            return new SpooledCountryFeed(file, jsonFactory, parsed -> lastKnownGood.save(COUNTRIES_PAYLOAD, parsed));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ExchangeRateResponseDto fetchExchangeRates() {
+        ExchangeRateResponseDto exchangeRates =
+                exchangeRatesRestTemplate.getForObject(properties.getExchangeRates().getUrl(), ExchangeRateResponseDto.class);
+        if (exchangeRates == null || exchangeRates.getRates() == null) {
+            throw new IllegalStateException("Empty exchange-rate payload");
+        }
+        lastKnownGood.save(EXCHANGE_RATES_PAYLOAD, out -> objectMapper.writeValue(out, exchangeRates));
+        return exchangeRates;
+    }
+
+    /**
+     * Streams the saved feed from a private copy, since the feed deletes its file on close.
+     */
+    private CountryFeed readCountries(Path saved) {
+        try {
+            Path copy = Files.createTempFile("countries-", ".json");
+            Files.copy(saved, copy, StandardCopyOption.REPLACE_EXISTING);
+            return new SpooledCountryFeed(copy, jsonFactory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ExchangeRateResponseDto readExchangeRates(Path saved) {
+        try {
+            return objectMapper.readValue(saved.toFile(), ExchangeRateResponseDto.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Fetched<T>(T value, boolean lastKnownGood) {
+    }
+
+    /**
+     * @param lastKnownGood the upstreams whose last-known-good payload stood in for a failed fetch
+     */
+    public record UpstreamData(CountryFeed countries, ExchangeRateResponseDto exchangeRates, List<String> lastKnownGood) {
+
+        public UpstreamData(CountryFeed countries, ExchangeRateResponseDto exchangeRates) {
+            this(countries, exchangeRates, List.of());
+        }
+    }
+}
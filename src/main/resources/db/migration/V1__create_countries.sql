@@ -0,0 +1,16 @@
+-- Schema as previously created by ddl-auto=update. Existing databases are baselined at this
+-- version (spring.flyway.baseline-on-migrate), so it only runs on empty ones.
+CREATE TABLE IF NOT EXISTS countries (
+    id                BIGINT       NOT NULL AUTO_INCREMENT,
+    name              VARCHAR(255) NOT NULL,
+    capital           VARCHAR(255),
+    region            VARCHAR(255),
+    population        BIGINT       NOT NULL,
+    currency_code     VARCHAR(255),
+    exchange_rate     DOUBLE,
+    estimated_gdp     DOUBLE,
+    flag_url          VARCHAR(255),
+    last_refreshed_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_countries_name UNIQUE (name)
+);
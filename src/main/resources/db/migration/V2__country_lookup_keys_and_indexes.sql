@@ -0,0 +1,18 @@
+-- Lower-cased lookup columns, so case-insensitive lookups are plain equality matches on an
+-- index instead of upper(column) = upper(?)
+ALTER TABLE countries ADD COLUMN name_key VARCHAR(255);
+ALTER TABLE countries ADD COLUMN region_key VARCHAR(255);
+ALTER TABLE countries ADD COLUMN currency_key VARCHAR(255);
+
+UPDATE countries
+SET name_key     = LOWER(name),
+    region_key   = LOWER(region),
+    currency_key = LOWER(currency_code);
+
+ALTER TABLE countries MODIFY COLUMN name_key VARCHAR(255) NOT NULL;
+
+CREATE UNIQUE INDEX ux_countries_name_key ON countries (name_key);
+CREATE INDEX ix_countries_region_key ON countries (region_key);
+CREATE INDEX ix_countries_currency_key ON countries (currency_key);
+CREATE INDEX ix_countries_estimated_gdp ON countries (estimated_gdp);
+CREATE INDEX ix_countries_last_refreshed_at ON countries (last_refreshed_at);
@@ -0,0 +1,13 @@
+-- Append-only history of upstream exchange rates, one row per currency per upstream update.
+-- The primary key clusters each currency's rows in time order (InnoDB), so point lookups and
+-- range reads for one currency are a single index range scan however long the history grows.
+CREATE TABLE exchange_rate_history (
+    currency_code CHAR(3) NOT NULL,
+    observed_at DATETIME NOT NULL,
+    base_code CHAR(3) NOT NULL,
+    rate DOUBLE NOT NULL,
+    PRIMARY KEY (currency_code, observed_at)
+);
+
+-- Finds the latest update (deduplication, loading rates at startup) without a full scan
+CREATE INDEX ix_exchange_rate_history_observed_at ON exchange_rate_history (observed_at);
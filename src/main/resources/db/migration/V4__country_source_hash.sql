@@ -0,0 +1,3 @@
+-- Hash of the normalized upstream record a row was written from, so a refresh can skip
+-- countries whose upstream data did not change. NULL for rows written before this column.
+ALTER TABLE countries ADD COLUMN source_hash BIGINT;
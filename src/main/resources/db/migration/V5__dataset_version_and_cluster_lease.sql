@@ -0,0 +1,20 @@
+-- Version of the countries data shared by every instance. Bumped in the transaction of each
+-- refresh that changed rows and of each delete, so instances can tell cheaply that their
+-- in-memory copy is behind.
+CREATE TABLE dataset_version (
+    id INT NOT NULL PRIMARY KEY,
+    version BIGINT NOT NULL,
+    updated_at TIMESTAMP(3) NULL
+);
+
+INSERT INTO dataset_version (id, version) VALUES (1, 0);
+
+-- Named leases held by one instance at a time until released or expired; the refresh lease keeps
+-- refreshes single-flight across instances without holding a connection for the upstream fetch.
+CREATE TABLE cluster_lease (
+    name VARCHAR(64) NOT NULL PRIMARY KEY,
+    owner VARCHAR(128) NULL,
+    expires_at TIMESTAMP(3) NULL
+);
+
+INSERT INTO cluster_lease (name) VALUES ('refresh');
@@ -0,0 +1,4 @@
+-- Counts the commits of the work each lease guards, bumped in the same transaction, so an
+-- instance that waited for the holder can tell whether the holder's refresh actually committed;
+-- the dataset version only moves when rows changed.
+ALTER TABLE cluster_lease ADD COLUMN generation BIGINT NOT NULL DEFAULT 0;
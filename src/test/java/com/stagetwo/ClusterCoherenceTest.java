@@ -0,0 +1,132 @@
+package com.stagetwo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stagetwo.benchmark.SyntheticCountries;
+import com.stagetwo.service.CountryService;
+import com.stagetwo.service.CountrySnapshotService;
+import com.stagetwo.service.ExchangeRateService;
+import com.stagetwo.service.RefreshJob;
+import com.stagetwo.service.RefreshJobService;
+import com.stagetwo.support.StubUpstreamServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Two instances of the application against one embedded database, as replicas behind a load
+ * balancer share one MySQL.
+ */
+class ClusterCoherenceTest {
+    private static final int COUNTRIES = 30;
+
+    private static StubUpstreamServer countriesApi;
+    private static StubUpstreamServer ratesApi;
+    private static ConfigurableApplicationContext first;
+    private static ConfigurableApplicationContext second;
+
+    @BeforeAll
+    static void startInstances() throws Exception {
+        ObjectMapper json = new ObjectMapper();
+        countriesApi = new StubUpstreamServer().respondWith(json.writeValueAsString(SyntheticCountries.feed(COUNTRIES)));
+        ratesApi = new StubUpstreamServer().respondWith(json.writeValueAsString(SyntheticCountries.rates(0)));
+        first = start("first");
+        second = start("second");
+    }
+
+    @AfterAll
+    static void stopInstances() {
+        Stream.of(second, first, countriesApi, ratesApi).forEach(resource -> {
+            try {
+                if (resource != null) {
+                    resource.close();
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private static ConfigurableApplicationContext start(String instanceId) {
+        return new SpringApplicationBuilder(CurrencyexchangeapiApplication.class)
+                .profiles("test")
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:cluster_db;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--cluster.instance-id=" + instanceId,
+                        "--cluster.poll-interval=100ms",
+                        "--cluster.lease-retry-interval=50ms",
+                        "--cluster.refresh-lease=1s",
+                        "--upstream.countries.url=" + countriesApi.url("/countries"),
+                        "--upstream.exchange-rates.url=" + ratesApi.url("/rates"),
+                        "--image.cache-dir=target/test-cache/" + instanceId,
+                        "--upstream.last-known-good-dir=target/test-cache/" + instanceId + "/upstream",
+                        "--logging.level.root=WARN");
+    }
+
+    @Test
+    void refreshesAndDeletesOnOneInstanceReachTheOther() {
+        RefreshJob job = first.getBean(RefreshJobService.class).trigger();
+        await().until(job::isDone);
+        assertThat(job.getStatus()).isEqualTo(RefreshJob.Status.SUCCEEDED);
+
+        CountrySnapshotService secondSnapshots = second.getBean(CountrySnapshotService.class);
+        await().atMost(Duration.ofSeconds(5)).until(() -> secondSnapshots.current().size() == COUNTRIES);
+        await().atMost(Duration.ofSeconds(5)).until(() -> !second.getBean(ExchangeRateService.class).current().isEmpty());
+
+        second.getBean(CountryService.class).deleteCountry("Country 7");
+        CountrySnapshotService firstSnapshots = first.getBean(CountrySnapshotService.class);
+        await().atMost(Duration.ofSeconds(5)).until(() -> firstSnapshots.current().findByName("Country 7").isEmpty());
+        assertThat(firstSnapshots.current().size()).isEqualTo(COUNTRIES - 1);
+
+        // The deleting instance applied its own delete without reloading, and agrees
+        assertThat(secondSnapshots.current().size()).isEqualTo(COUNTRIES - 1);
+    }
+
+    @Test
+    void concurrentRefreshesOnBothInstancesFetchOnce() {
+        countriesApi.delay(Duration.ofMillis(500));
+        try {
+            int fetchesBefore = countriesApi.requestCount();
+            RefreshJob onFirst = first.getBean(RefreshJobService.class).trigger();
+            RefreshJob onSecond = second.getBean(RefreshJobService.class).trigger();
+            await().atMost(Duration.ofSeconds(10)).until(() -> onFirst.isDone() && onSecond.isDone());
+
+            assertThat(countriesApi.requestCount() - fetchesBefore).isEqualTo(1);
+            assertThat(onFirst.getStatus()).isEqualTo(RefreshJob.Status.SUCCEEDED);
+            assertThat(onSecond.getStatus()).isEqualTo(RefreshJob.Status.SUCCEEDED);
+            String refreshedBy = onFirst.toResponse().getRefreshedBy();
+            assertThat(onSecond.toResponse().getRefreshedBy()).isEqualTo(refreshedBy).isIn("first", "second");
+            assertThat(Stream.of(onFirst, onSecond).filter(job -> job.toResponse().getResult() != null)).hasSize(1);
+        } finally {
+            countriesApi.delay(Duration.ZERO);
+        }
+    }
+
+    @Test
+    void refreshOutlastingTheLeaseKeepsItFromTheOtherInstance() throws Exception {
+        countriesApi.delay(Duration.ofMillis(3000));
+        try {
+            int fetchesBefore = countriesApi.requestCount();
+            RefreshJob onFirst = first.getBean(RefreshJobService.class).trigger();
+            await().until(() -> countriesApi.requestCount() > fetchesBefore);
+            // Well past the 1 s lease, had it not been renewed
+            Thread.sleep(1500);
+            RefreshJob onSecond = second.getBean(RefreshJobService.class).trigger();
+            await().atMost(Duration.ofSeconds(10)).until(() -> onFirst.isDone() && onSecond.isDone());
+
+            assertThat(countriesApi.requestCount() - fetchesBefore).isEqualTo(1);
+            assertThat(onFirst.getStatus()).isEqualTo(RefreshJob.Status.SUCCEEDED);
+            assertThat(onSecond.getStatus()).isEqualTo(RefreshJob.Status.SUCCEEDED);
+            assertThat(onSecond.toResponse().getRefreshedBy()).isEqualTo("first");
+        } finally {
+            countriesApi.delay(Duration.ZERO);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.stagetwo.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.stagetwo.entity.Country;
+import com.stagetwo.service.CountrySnapshot;
+import com.stagetwo.service.RenderedBody;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of producing one {@code GET /countries} body: Jackson per request (the fallback path)
+ * versus a lookup of the pre-rendered bytes. Throughput is in bodies per second; run with the
+ * benchmark profile, which adds {@code -prof gc}, to see the allocation rate of each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class CountryListBodyBenchmark {
+
+    @Param({"250", "25000", "250000", "1000000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private CountrySnapshot snapshot;
+    private final Map<String, RenderedBody> rendered = new ConcurrentHashMap<>();
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        snapshot = CountrySnapshot.of(1, SyntheticCountries.entities(size));
+        List<Country> byGdp = snapshot.getCountries(CountrySnapshot.GdpOrder.DESC);
+        rendered.put("all|DESC", RenderedBody.of(objectMapper.writeValueAsBytes(byGdp)));
+    }
+
+    @Benchmark
+    public byte[] serializePerRequest() throws Exception {
+        return objectMapper.writeValueAsBytes(snapshot.getCountries(CountrySnapshot.GdpOrder.DESC));
+    }
+
+    @Benchmark
+    public byte[] preRenderedIdentity() {
+        return rendered.get("all|DESC").bytes(RenderedBody.Coding.IDENTITY);
+    }
+
+    @Benchmark
+    public byte[] preRenderedGzip() {
+        return rendered.get("all|DESC").bytes(RenderedBody.Coding.GZIP);
+    }
+
+    /**
+     * What one version costs up front for this query shape.
+     */
+    @Benchmark
+    public RenderedBody renderOnce() throws Exception {
+        return RenderedBody.of(objectMapper.writeValueAsBytes(snapshot.getCountries(CountrySnapshot.GdpOrder.DESC)));
+    }
+}
@@ -0,0 +1,74 @@
+package com.stagetwo.benchmark;
+
+import com.stagetwo.entity.Country;
+import com.stagetwo.service.CountryService;
+import com.stagetwo.service.CountrySnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CountryService#getAllCountries} as {@code GET /countries} calls it, for each filter and
+ * sort combination, against one in-memory snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class CountryQueryBenchmark {
+
+    @Param({"250", "25000", "250000", "1000000"})
+    private int size;
+
+    private CountryService countryService;
+
+    @Setup
+    public void setUp() {
+        CountrySnapshot snapshot = CountrySnapshot.of(1, SyntheticCountries.entities(size));
+        countryService = new CountryService(null, null, null, null, null, new FixedSnapshotService(snapshot), null,
+                ObservationRegistry.NOOP, new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public List<Country> all() {
+        return countryService.getAllCountries(null, null, null, null);
+    }
+
+    @Benchmark
+    public List<Country> allByGdpDesc() {
+        return countryService.getAllCountries(null, null, "gdp_desc", null);
+    }
+
+    @Benchmark
+    public List<Country> regionByGdpAsc() {
+        return countryService.getAllCountries("africa", null, "gdp_asc", null);
+    }
+
+    @Benchmark
+    public List<Country> currencyTop10() {
+        return countryService.getAllCountries(null, SyntheticCountries.currencyCode(0), "gdp_desc", 10);
+    }
+
+    /**
+     * Both filters: the smaller partition is scanned for the other value.
+     */
+    @Benchmark
+    public List<Country> regionAndCurrency() {
+        return countryService.getAllCountries("Europe", SyntheticCountries.currencyCode(1), "gdp_desc", null);
+    }
+}
@@ -0,0 +1,110 @@
+package com.stagetwo.benchmark;
+
+import com.stagetwo.entity.Country;
+import com.stagetwo.service.CountrySearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CountrySearchIndex#search} as {@code GET /countries/search} calls it, sampled so the
+ * percentiles show the tail. Names and capitals are pronounceable random words of two or three
+ * syllables, so prefixes spread over the index the way real place names do; at 100000 countries
+ * the index holds about 260000 terms.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class CountrySearchBenchmark {
+    private static final String[] SYLLABLES = {
+            "ba", "bel", "bra", "ca", "cor", "da", "dor", "el", "fa", "gan", "ge", "ha", "in", "ka", "ker",
+            "la", "lin", "ma", "mon", "na", "nia", "o", "pa", "por", "ra", "ri", "sa", "sen", "ta", "tor",
+            "u", "va", "ve", "za"};
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private CountrySearchIndex index;
+    private String[] prefixes;
+    private String[] typos;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(11);
+        List<Country> countries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String name = word(random) + (i % 4 == 0 ? " " + word(random) : "");
+            countries.add(new Country((long) i + 1, name, word(random), "Region", 1_000L,
+                    SyntheticCountries.currencyCode(i % SyntheticCountries.CURRENCIES), 1.0, 1_000.0, null, null));
+        }
+        index = CountrySearchIndex.of(countries);
+
+        prefixes = new String[256];
+        typos = new String[256];
+        for (int i = 0; i < prefixes.length; i++) {
+            String name = countries.get(random.nextInt(size)).getName();
+            prefixes[i] = name.substring(0, Math.min(name.length(), 4));
+            char[] chars = name.toCharArray();
+            int swap = random.nextInt(chars.length - 1);
+            char c = chars[swap];
+            chars[swap] = chars[swap + 1];
+            chars[swap + 1] = c;
+            typos[i] = new String(chars);
+        }
+    }
+
+    private static String word(Random random) {
+        StringBuilder word = new StringBuilder();
+        for (int i = 2 + random.nextInt(2); i > 0; i--) {
+            word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        word.setCharAt(0, Character.toUpperCase(word.charAt(0)));
+        return word.toString();
+    }
+
+    private int next;
+
+    private int next() {
+        return next = (next + 1) & 255;
+    }
+
+    /**
+     * The first keystroke: one character, exact prefix, the widest range of candidates.
+     */
+    @Benchmark
+    public List<CountrySearchIndex.Hit> firstLetter() {
+        return index.search(prefixes[next()].substring(0, 1), 10);
+    }
+
+    /**
+     * Four typed characters, so one edit is allowed.
+     */
+    @Benchmark
+    public List<CountrySearchIndex.Hit> prefix() {
+        return index.search(prefixes[next()], 10);
+    }
+
+    /**
+     * A whole name with two adjacent letters swapped (two edits).
+     */
+    @Benchmark
+    public List<CountrySearchIndex.Hit> transposedName() {
+        return index.search(typos[next()], 10);
+    }
+}
@@ -0,0 +1,83 @@
+package com.stagetwo.benchmark;
+
+import com.stagetwo.service.ExchangeRateTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single and batch conversions: the boxed upstream {@code Map<String, Double>} versus the
+ * interned {@link ExchangeRateTable}. Run with the benchmark profile for allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExchangeRateBenchmark {
+    private static final int BATCH = 5_000;
+
+    private Map<String, Double> rateMap;
+    private ExchangeRateTable table;
+    private String[] from;
+    private String[] to;
+    private double[] amounts;
+    private final double[] results = new double[BATCH];
+
+    @Setup
+    public void setUp() {
+        rateMap = SyntheticCountries.rates(0).getRates();
+        table = ExchangeRateTable.of("USD", null, rateMap);
+        String[] codes = rateMap.keySet().toArray(new String[0]);
+        Random random = new Random(42);
+        from = new String[BATCH];
+        to = new String[BATCH];
+        amounts = new double[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            // Fresh strings, as they would arrive from a request body
+            from[i] = new String(codes[random.nextInt(codes.length)].toCharArray());
+            to[i] = new String(codes[random.nextInt(codes.length)].toCharArray());
+            amounts[i] = random.nextDouble() * 1_000;
+        }
+    }
+
+    @Benchmark
+    public double singleMap() {
+        return amounts[0] / rateMap.get(from[0]) * rateMap.get(to[0]);
+    }
+
+    @Benchmark
+    public double singleTable() {
+        return table.convert(table.indexOf(from[0]), table.indexOf(to[0]), amounts[0]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public double[] batchMap() {
+        for (int i = 0; i < BATCH; i++) {
+            results[i] = amounts[i] / rateMap.get(from[i]) * rateMap.get(to[i]);
+        }
+        return results;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public double[] batchTable() {
+        for (int i = 0; i < BATCH; i++) {
+            results[i] = table.convert(table.indexOf(from[i]), table.indexOf(to[i]), amounts[i]);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,23 @@
+package com.stagetwo.benchmark;
+
+import com.stagetwo.service.CountrySnapshot;
+import com.stagetwo.service.CountrySnapshotService;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * A {@link CountrySnapshotService} that always serves the same in-memory snapshot, so services
+ * reading from it can be benchmarked without a database.
+ */
+class FixedSnapshotService extends CountrySnapshotService {
+    private final CountrySnapshot snapshot;
+
+    FixedSnapshotService(CountrySnapshot snapshot) {
+        super(null, null, null, null, ObservationRegistry.NOOP);
+        this.snapshot = snapshot;
+    }
+
+    @Override
+    public CountrySnapshot current() {
+        return snapshot;
+    }
+}
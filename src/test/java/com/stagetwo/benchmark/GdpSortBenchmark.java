@@ -0,0 +1,98 @@
+package com.stagetwo.benchmark;
+
+import com.stagetwo.entity.Country;
+import com.stagetwo.service.CountrySnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Per-request stream sort (the old {@code getAllCountries}/{@code getTopCountriesByGdp} code)
+ * versus the GDP orderings precomputed in {@link CountrySnapshot}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class GdpSortBenchmark {
+
+    @Param({"250", "25000", "250000", "1000000"})
+    private int size;
+
+    private List<Country> countries;
+    private CountrySnapshot snapshot;
+
+    @Setup
+    public void setUp() {
+        countries = SyntheticCountries.entities(size);
+        snapshot = CountrySnapshot.of(1, countries);
+    }
+
+    @Benchmark
+    public List<Country> streamSortAll() {
+        return countries.stream()
+                .sorted((c1, c2) -> {
+                    Double gdp1 = c1.getEstimatedGdp() != null ? c1.getEstimatedGdp() : 0.0;
+                    Double gdp2 = c2.getEstimatedGdp() != null ? c2.getEstimatedGdp() : 0.0;
+                    return Double.compare(gdp2, gdp1);
+                })
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Country> presortedAll() {
+        return snapshot.getCountries(CountrySnapshot.GdpOrder.DESC);
+    }
+
+    @Benchmark
+    public List<Country> streamSortRegion() {
+        return snapshot.findByRegion("Africa").stream()
+                .sorted((c1, c2) -> {
+                    Double gdp1 = c1.getEstimatedGdp() != null ? c1.getEstimatedGdp() : 0.0;
+                    Double gdp2 = c2.getEstimatedGdp() != null ? c2.getEstimatedGdp() : 0.0;
+                    return Double.compare(gdp1, gdp2);
+                })
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Country> presortedRegion() {
+        return snapshot.findByRegion("Africa", CountrySnapshot.GdpOrder.ASC);
+    }
+
+    @Benchmark
+    public List<Country> streamTop5() {
+        return countries.stream()
+                .filter(c -> c.getEstimatedGdp() != null && c.getEstimatedGdp() > 0)
+                .sorted((c1, c2) -> Double.compare(c2.getEstimatedGdp(), c1.getEstimatedGdp()))
+                .limit(5)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Country> presortedTop5() {
+        return snapshot.topByGdp(5);
+    }
+
+    /**
+     * What the presorted reads pay up front, once per refresh.
+     */
+    @Benchmark
+    public CountrySnapshot buildSnapshot() {
+        return CountrySnapshot.of(2, countries);
+    }
+}
@@ -0,0 +1,110 @@
+package com.stagetwo.benchmark;
+
+import com.stagetwo.service.RateHistoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Point and range reads against a rate history of over a million rows (170 currencies, 20 years
+ * of daily updates) on the embedded DB, and the query plans behind them.
+ * Run with {@code mvn -Pbenchmark test}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+class RateHistoryBenchmarkTest {
+    private static final int CURRENCIES = 170;
+    private static final int DAYS = 20 * 365;
+    private static final Instant START = Instant.parse("2006-01-02T00:00:01Z");
+
+    @Autowired
+    private RateHistoryService rateHistoryService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM exchange_rate_history");
+    }
+
+    @Test
+    void rangeReadsStayFastAtMillionsOfRows() {
+        long loadStart = System.nanoTime();
+        load();
+        System.out.printf("%nloaded %d rows in %.1f s%n", (long) CURRENCIES * DAYS, (System.nanoTime() - loadStart) / 1e9);
+
+        Random random = new Random(42);
+        measure("point lookup", 2_000, i -> rateHistoryService.getRate(currency(random), randomTime(random)));
+        measure("90 days raw", 500, i -> {
+            Instant from = randomTime(random);
+            rateHistoryService.getHistory(currency(random), from, from.plus(Duration.ofDays(90)), RateHistoryService.Interval.RAW);
+        });
+        measure("1 year daily", 200, i -> {
+            Instant from = randomTime(random);
+            rateHistoryService.getHistory(currency(random), from, from.plus(Duration.ofDays(365)), RateHistoryService.Interval.DAY);
+        });
+        measure("20 years weekly", 50, i -> rateHistoryService.getHistory(currency(random), START,
+                START.plus(Duration.ofDays(DAYS)), RateHistoryService.Interval.WEEK));
+
+        // Both lookups must be index range scans on the primary key, not table scans
+        String rangePlan = jdbcTemplate.queryForObject("EXPLAIN SELECT currency_code, observed_at, base_code, rate "
+                + "FROM exchange_rate_history WHERE currency_code = 'CAB' AND observed_at >= TIMESTAMP '2010-01-01 00:00:00' "
+                + "AND observed_at < TIMESTAMP '2010-04-01 00:00:00' ORDER BY observed_at", String.class);
+        String latestPlan = jdbcTemplate.queryForObject(
+                "EXPLAIN SELECT MAX(observed_at) FROM exchange_rate_history", String.class);
+        System.out.println(rangePlan);
+        System.out.println(latestPlan);
+        assertThat(rangePlan).contains("PRIMARY_KEY");
+        assertThat(latestPlan).containsIgnoringCase("ix_exchange_rate_history_observed_at");
+    }
+
+    private void load() {
+        List<Object[]> rows = new ArrayList<>(CURRENCIES);
+        for (int day = 0; day < DAYS; day++) {
+            LocalDateTime observedAt = LocalDateTime.ofInstant(START.plus(day, ChronoUnit.DAYS), ZoneOffset.UTC);
+            for (int c = 0; c < CURRENCIES; c++) {
+                rows.add(new Object[]{SyntheticCountries.currencyCode(c), observedAt, "USD", 1 + c + Math.sin(day / 30.0)});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO exchange_rate_history (currency_code, observed_at, base_code, rate) "
+                    + "VALUES (?, ?, ?, ?)", rows);
+            rows.clear();
+        }
+    }
+
+    private static String currency(Random random) {
+        return SyntheticCountries.currencyCode(random.nextInt(CURRENCIES));
+    }
+
+    private static Instant randomTime(Random random) {
+        return START.plus(random.nextInt(DAYS - 365), ChronoUnit.DAYS).plus(random.nextInt(86_400), ChronoUnit.SECONDS);
+    }
+
+    private static void measure(String scenario, int iterations, IntConsumer query) {
+        for (int i = 0; i < iterations / 5; i++) {
+            query.accept(i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            query.accept(i);
+        }
+        double micros = (System.nanoTime() - start) / 1_000.0 / iterations;
+        System.out.printf("%-18s %10.1f us/query%n", scenario, micros);
+    }
+}
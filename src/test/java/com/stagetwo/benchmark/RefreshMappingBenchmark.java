@@ -0,0 +1,75 @@
+package com.stagetwo.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stagetwo.dto.CountryResponseDto;
+import com.stagetwo.entity.Country;
+import com.stagetwo.service.CountryFeed;
+import com.stagetwo.service.SpooledCountryFeed;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The refresh mapping loop without the database: {@link CountryResponseDto} to {@link Country}
+ * through {@link CountryFeed#of} (payloads that fit in memory) and through the streaming parser of
+ * {@link SpooledCountryFeed} (the raw JSON, as spooled from upstream), each row then priced from
+ * the rate map the way the refresh does, in chunks of the default batch size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class RefreshMappingBenchmark {
+    private static final int CHUNK_SIZE = 200;
+
+    @Param({"250", "25000", "250000", "1000000"})
+    private int size;
+
+    private CountryResponseDto[] feed;
+    private byte[] json;
+    private Map<String, Double> rates;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    @Setup
+    public void setUp() throws Exception {
+        feed = SyntheticCountries.feed(size);
+        json = new ObjectMapper().writeValueAsBytes(feed);
+        rates = SyntheticCountries.rates(0).getRates();
+    }
+
+    @Benchmark
+    public void mapDeserialized(Blackhole blackhole) throws Exception {
+        CountryFeed.of(feed).forEachChunk(CHUNK_SIZE, chunk -> price(chunk, blackhole));
+    }
+
+    @Benchmark
+    public void mapStreamed(Blackhole blackhole) throws Exception {
+        SpooledCountryFeed.read(new ByteArrayInputStream(json), jsonFactory, CHUNK_SIZE, chunk -> price(chunk, blackhole));
+    }
+
+    private void price(List<Country> chunk, Blackhole blackhole) {
+        for (Country country : chunk) {
+            if (country.getCurrencyCode() != null) {
+                country.setExchangeRate(rates.get(country.getCurrencyCode()));
+            }
+            blackhole.consume(country);
+        }
+    }
+}
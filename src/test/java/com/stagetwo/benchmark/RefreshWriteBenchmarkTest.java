@@ -0,0 +1,162 @@
+package com.stagetwo.benchmark;
+
+import com.stagetwo.dto.CountryResponseDto;
+import com.stagetwo.dto.ExchangeRateResponseDto;
+import com.stagetwo.entity.Country;
+import com.stagetwo.repository.CountryRepository;
+import com.stagetwo.service.CountryFeed;
+import com.stagetwo.service.CountryService;
+import com.stagetwo.service.ImageGenerationService;
+import com.stagetwo.service.UpstreamFetchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares the per-row refresh write path (one SELECT + one save per country) with the
+ * batched diff/upsert path, counting database round trips and wall time on the embedded DB.
+ * Run with {@code mvn -Pbenchmark test}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+class RefreshWriteBenchmarkTest {
+    private static final int COUNTRIES = 250;
+    private static final StatementCountingDataSource counter = new StatementCountingDataSource();
+
+    @Autowired
+    private CountryService countryService;
+    @Autowired
+    private CountryRepository countryRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockitoBean
+    private UpstreamFetchService upstreamFetchService;
+    @MockitoBean
+    private ImageGenerationService imageGenerationService;
+
+    private final CountryResponseDto[] feed = SyntheticCountries.feed(COUNTRIES);
+
+    @TestConfiguration
+    static class CountingConfig {
+        @Bean
+        static BeanPostProcessor countingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? counter.wrap(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM countries");
+    }
+
+    @Test
+    void batchedRefreshNeedsFewerRoundTrips() {
+        // Warm up both paths so neither pays the JIT/first-query cost in the measurement
+        legacyRefresh(SyntheticCountries.rates(0));
+        jdbcTemplate.update("DELETE FROM countries");
+        batchedRefresh(SyntheticCountries.rates(0));
+        jdbcTemplate.update("DELETE FROM countries");
+
+        Result legacyInitial = measure(() -> legacyRefresh(SyntheticCountries.rates(0)));
+        Result legacyChanged = measure(() -> legacyRefresh(SyntheticCountries.rates(1)));
+        Result legacyUnchanged = measure(() -> legacyRefresh(SyntheticCountries.rates(1)));
+
+        jdbcTemplate.update("DELETE FROM countries");
+        Result batchedInitial = measure(() -> batchedRefresh(SyntheticCountries.rates(0)));
+        Result batchedChanged = measure(() -> batchedRefresh(SyntheticCountries.rates(1)));
+        Result batchedUnchanged = measure(() -> batchedRefresh(SyntheticCountries.rates(1)));
+
+        System.out.printf("%n%-22s %14s %12s %14s %12s%n", "scenario (" + COUNTRIES + " rows)",
+                "legacy trips", "legacy ms", "batched trips", "batched ms");
+        print("initial load", legacyInitial, batchedInitial);
+        print("all rates changed", legacyChanged, batchedChanged);
+        print("nothing changed", legacyUnchanged, batchedUnchanged);
+
+        assertThat(batchedInitial.roundTrips()).isLessThan(legacyInitial.roundTrips() / 10);
+        assertThat(batchedChanged.roundTrips()).isLessThan(legacyChanged.roundTrips() / 10);
+        assertThat(batchedUnchanged.roundTrips()).isLessThan(legacyUnchanged.roundTrips() / 10);
+        assertThat(countryRepository.count()).isEqualTo(COUNTRIES);
+    }
+
+    private void batchedRefresh(ExchangeRateResponseDto rates) {
+        when(upstreamFetchService.fetch()).thenReturn(new UpstreamFetchService.UpstreamData(CountryFeed.of(feed), rates));
+        countryService.refreshCountries();
+    }
+
+    /**
+     * The refresh write loop as it was before the batched pipeline.
+     */
+    private void legacyRefresh(ExchangeRateResponseDto exchangeRates) {
+        Random random = new Random();
+        Map<String, Double> rates = exchangeRates.getRates();
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            for (CountryResponseDto dto : feed) {
+                Country country = new Country();
+                country.setName(dto.getName());
+                country.setCapital(dto.getCapital());
+                country.setRegion(dto.getRegion());
+                country.setPopulation(dto.getPopulation());
+                country.setFlagUrl(dto.getFlag());
+                country.setLastRefreshedAt(now);
+                if (dto.getCurrencies() != null && !dto.getCurrencies().isEmpty()) {
+                    String currencyCode = dto.getCurrencies().get(0).getCode();
+                    Double exchangeRate = rates.get(currencyCode);
+                    country.setCurrencyCode(currencyCode);
+                    country.setExchangeRate(exchangeRate);
+                    country.setEstimatedGdp(exchangeRate != null && exchangeRate > 0
+                            ? dto.getPopulation() * (1000 + random.nextDouble() * 1000) / exchangeRate
+                            : null);
+                } else {
+                    country.setEstimatedGdp(0.0);
+                }
+
+                jdbcTemplate.queryForList("SELECT id FROM countries WHERE name_key = ?", Long.class,
+                        Country.lookupKey(dto.getName())).forEach(country::setId);
+                countryRepository.save(country);
+            }
+        });
+    }
+
+    private static Result measure(Runnable refresh) {
+        counter.reset();
+        long start = System.nanoTime();
+        refresh.run();
+        long elapsed = System.nanoTime() - start;
+        return new Result(counter.roundTrips(), elapsed / 1_000_000.0);
+    }
+
+    private static void print(String scenario, Result legacy, Result batched) {
+        System.out.printf("%-22s %14d %12.1f %14d %12.1f%n", scenario,
+                legacy.roundTrips(), legacy.millis(), batched.roundTrips(), batched.millis());
+    }
+
+    private record Result(long roundTrips, double millis) {
+    }
+}
@@ -0,0 +1,61 @@
+package com.stagetwo.benchmark;
+
+import com.stagetwo.service.CountrySnapshot;
+import com.stagetwo.service.CountrySnapshotStore;
+import com.stagetwo.service.ImageGenerationService;
+import com.stagetwo.service.SummaryImage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drawing and encoding a summary image through {@link ImageGenerationService#getVariant}, with the
+ * variant cache disabled so every call renders. Only the per-region variant scans the dataset; the
+ * others show the fixed cost of Java2D and ImageIO.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx3g", "-Djava.awt.headless=true"})
+public class SummaryImageBenchmark {
+
+    @Param({"250", "25000", "250000", "1000000"})
+    private int size;
+
+    private ImageGenerationService imageGenerationService;
+
+    @Setup
+    public void setUp() {
+        CountrySnapshot snapshot = CountrySnapshot.of(1, SyntheticCountries.entities(size));
+        imageGenerationService = new ImageGenerationService("target/benchmark-cache", 0, Runnable::run,
+                new FixedSnapshotService(snapshot), new CountrySnapshotStore(""), new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public SummaryImage png() {
+        return imageGenerationService.getVariant(null, "png", null);
+    }
+
+    @Benchmark
+    public SummaryImage scaledJpeg() {
+        return imageGenerationService.getVariant(400, "jpeg", null);
+    }
+
+    @Benchmark
+    public SummaryImage regionPng() {
+        return imageGenerationService.getVariant(null, "png", "Africa");
+    }
+}
@@ -0,0 +1,87 @@
+package com.stagetwo.benchmark;
+
+import com.stagetwo.dto.CountryResponseDto;
+import com.stagetwo.dto.ExchangeRateResponseDto;
+import com.stagetwo.entity.Country;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic upstream payloads and stored rows for benchmarks.
+ */
+public final class SyntheticCountries {
+    private static final String[] REGIONS = {"Africa", "Americas", "Asia", "Europe", "Oceania", "Polar"};
+    public static final int CURRENCIES = 160;
+
+    private SyntheticCountries() {
+    }
+
+    public static CountryResponseDto[] feed(int size) {
+        Random random = new Random(42);
+        CountryResponseDto[] countries = new CountryResponseDto[size];
+        for (int i = 0; i < size; i++) {
+            CountryResponseDto dto = new CountryResponseDto();
+            dto.setName("Country " + i);
+            dto.setCapital("Capital " + i);
+            dto.setRegion(REGIONS[i % REGIONS.length]);
+            dto.setPopulation(10_000L + random.nextInt(200_000_000));
+            dto.setFlag("https://flagcdn.com/c" + i + ".svg");
+            if (i % 50 != 0) {
+                CountryResponseDto.Currency currency = new CountryResponseDto.Currency();
+                currency.setCode(currencyCode(i % CURRENCIES));
+                dto.setCurrencies(List.of(currency));
+            }
+            countries[i] = dto;
+        }
+        return countries;
+    }
+
+    /**
+     * Stored countries as they look after a refresh, with ids and estimated GDP filled in.
+     */
+    public static List<Country> entities(int size) {
+        Random random = new Random(7);
+        LocalDateTime refreshedAt = LocalDateTime.of(2025, 10, 22, 18, 0);
+        List<Country> countries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            boolean hasCurrency = i % 50 != 0;
+            long population = 10_000L + random.nextInt(200_000_000);
+            double exchangeRate = 0.5 + (i % CURRENCIES) * 3.25;
+            countries.add(new Country(
+                    (long) i + 1,
+                    "Country " + i,
+                    "Capital " + i,
+                    REGIONS[i % REGIONS.length],
+                    population,
+                    hasCurrency ? currencyCode(i % CURRENCIES) : null,
+                    hasCurrency ? exchangeRate : null,
+                    hasCurrency ? population * (1000 + random.nextDouble() * 1000) / exchangeRate : 0.0,
+                    "https://flagcdn.com/c" + i + ".svg",
+                    refreshedAt));
+        }
+        return countries;
+    }
+
+    /**
+     * Exchange rates for every synthetic currency; a different {@code shift} changes every rate.
+     */
+    public static ExchangeRateResponseDto rates(double shift) {
+        Map<String, Double> rates = new HashMap<>();
+        for (int i = 0; i < CURRENCIES; i++) {
+            rates.put(currencyCode(i), 0.5 + i * 3.25 + shift);
+        }
+        ExchangeRateResponseDto dto = new ExchangeRateResponseDto();
+        dto.setBaseCode("USD");
+        dto.setRates(rates);
+        return dto;
+    }
+
+    public static String currencyCode(int index) {
+        return "C" + (char) ('A' + index / 26 % 26) + (char) ('A' + index % 26);
+    }
+}
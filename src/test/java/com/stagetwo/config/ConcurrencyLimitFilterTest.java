@@ -0,0 +1,74 @@
+package com.stagetwo.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitFilterTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConcurrencyLimitFilter filter =
+            new ConcurrencyLimitFilter("database", 1, Duration.ofMillis(100), VirtualThreadConfig::usesDatabase,
+                    new ObjectMapper(), meterRegistry);
+
+    @Test
+    void requestsOverTheLimitAreRejectedAfterTheQueueTimeout() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<MockHttpServletResponse> first = CompletableFuture.supplyAsync(() -> {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            try {
+                filter.doFilter(new MockHttpServletRequest("GET", "/rates/USD/history"), response, (req, res) -> {
+                    entered.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return response;
+        });
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/rates/USD/history"), rejected, (req, res) -> {
+        });
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(rejected.getContentAsString()).contains("\"error\":\"Service busy\"");
+        assertThat(meterRegistry.counter("http.server.requests.rejected", "limit", "database").count()).isEqualTo(1);
+
+        MockHttpServletResponse health = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/actuator/health"), health, (req, res) -> {
+        });
+        assertThat(health.getStatus()).isEqualTo(200);
+
+        // Served from memory, so not held back by the database limit
+        MockHttpServletResponse list = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/countries"), list, (req, res) -> {
+        });
+        assertThat(list.getStatus()).isEqualTo(200);
+        MockHttpServletResponse delete = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("DELETE", "/countries/Ghana"), delete, (req, res) -> {
+        });
+        assertThat(delete.getStatus()).isEqualTo(503);
+
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(200);
+        MockHttpServletResponse next = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/rates/USD/history"), next, (req, res) -> {
+        });
+        assertThat(next.getStatus()).isEqualTo(200);
+    }
+}
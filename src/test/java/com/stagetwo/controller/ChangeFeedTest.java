@@ -0,0 +1,190 @@
+package com.stagetwo.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stagetwo.entity.Country;
+import com.stagetwo.event.CountryDataChangedEvent;
+import com.stagetwo.repository.CountryRepository;
+import com.stagetwo.service.CountrySnapshotService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@ExtendWith(OutputCaptureExtension.class)
+class ChangeFeedTest {
+    private final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final ObjectMapper json = new ObjectMapper();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CountryRepository countryRepository;
+
+    @Autowired
+    private CountrySnapshotService countrySnapshotService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void seed() {
+        countryRepository.save(new Country(null, "Ghana", "Accra", "Africa", 31_072_940L, "GHS", 10.5, 3.1e9,
+                "https://flagcdn.com/gh.svg", LocalDateTime.now().withNano(0)));
+        countrySnapshotService.onCountryDataChanged(CountryDataChangedEvent.refreshed());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        countryRepository.deleteAll();
+        countrySnapshotService.onCountryDataChanged(CountryDataChangedEvent.refreshed());
+    }
+
+    @Test
+    void streamsChangesAsTheyCommitAndResumesAfterTheLastEventId() throws Exception {
+        String lastEventId;
+        try (EventStream stream = open(null)) {
+            assertThat(stream.next().data()).isNull();
+
+            Country ghana = countryRepository.findAll().get(0);
+            ghana.setPopulation(31_500_000L);
+            countryRepository.save(ghana);
+            countrySnapshotService.onCountryDataChanged(CountryDataChangedEvent.refreshed());
+
+            Event updated = stream.next();
+            assertThat(updated.name()).isEqualTo("country");
+            JsonNode change = json.readTree(updated.data());
+            assertThat(change.path("change").asText()).isEqualTo("updated");
+            assertThat(change.path("name").asText()).isEqualTo("Ghana");
+            assertThat(change.path("fields").properties()).singleElement()
+                    .satisfies(field -> assertThat(field.getKey()).isEqualTo("population"));
+            lastEventId = updated.id();
+        }
+
+        countryRepository.save(new Country(null, "Togo", "Lomé", "Africa", 8_000_000L, "XOF", 600.0, 1.3e7,
+                "https://flagcdn.com/tg.svg", LocalDateTime.now().withNano(0)));
+        countrySnapshotService.onCountryDataChanged(CountryDataChangedEvent.refreshed());
+
+        try (EventStream resumed = open(lastEventId)) {
+            Event missed = resumed.next();
+            assertThat(missed.name()).isEqualTo("country");
+            JsonNode change = json.readTree(missed.data());
+            assertThat(change.path("change").asText()).isEqualTo("inserted");
+            assertThat(change.path("fields").path("name").asText()).isEqualTo("Togo");
+            assertThat(change.path("fields").path("capital").asText()).isEqualTo("Lomé");
+        }
+    }
+
+    @Test
+    void unknownLastEventIdGetsAReset() throws Exception {
+        try (EventStream stream = open("earlier-run-42")) {
+            Event reset = stream.next();
+            assertThat(reset.name()).isEqualTo("reset");
+            assertThat(reset.id()).isNotEqualTo("earlier-run-42");
+            assertThat(json.readTree(reset.data()).path("reason").asText()).contains("reload");
+        }
+    }
+
+    @Test
+    void closingAStreamLogsNoError(CapturedOutput output) throws Exception {
+        try (EventStream stream = open(null)) {
+            assertThat(stream.next().data()).isNull();
+        }
+
+        // The server notices the closed connection when it next writes to it
+        Country ghana = countryRepository.findAll().get(0);
+        ghana.setPopulation(32_000_000L);
+        countryRepository.save(ghana);
+        countrySnapshotService.onCountryDataChanged(CountryDataChangedEvent.refreshed());
+
+        await().until(() -> meterRegistry.get("changes.subscribers").gauge().value() == 0);
+        await().during(Duration.ofMillis(500)).atMost(Duration.ofSeconds(2)).until(() ->
+                !output.getAll().contains("GlobalExceptionHandler") && !output.getAll().contains(" ERROR "));
+    }
+
+    private EventStream open(String lastEventId) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/countries/changes"))
+                .header("Accept", "text/event-stream");
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        HttpResponse<Stream<String>> response = http.send(request.build(), HttpResponse.BodyHandlers.ofLines());
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Type")).hasValueSatisfying(type ->
+                assertThat(type).startsWith("text/event-stream"));
+        return new EventStream(response.body());
+    }
+
+    private record Event(String id, String name, String data) {
+    }
+
+    /**
+     * Parses server-sent events from the response lines on a background thread.
+     */
+    private static final class EventStream implements AutoCloseable {
+        private final Stream<String> lines;
+        private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+
+        EventStream(Stream<String> lines) {
+            this.lines = lines;
+            Thread.ofVirtual().start(this::read);
+        }
+
+        private void read() {
+            String[] fields = new String[3];
+            try {
+                lines.forEach(line -> {
+                    if (line.isEmpty()) {
+                        if (fields[0] != null || fields[2] != null) {
+                            events.add(new Event(fields[0], fields[1], fields[2]));
+                        }
+                        fields[0] = fields[1] = fields[2] = null;
+                    } else if (line.startsWith("id:")) {
+                        fields[0] = line.substring(3);
+                    } else if (line.startsWith("event:")) {
+                        fields[1] = line.substring(6);
+                    } else if (line.startsWith("data:")) {
+                        fields[2] = line.substring(5);
+                    }
+                });
+            } catch (RuntimeException e) {
+                // Closed
+            }
+        }
+
+        Event next() throws InterruptedException {
+            Event event = events.poll(5, TimeUnit.SECONDS);
+            assertThat(event).as("event within 5 s").isNotNull();
+            return event;
+        }
+
+        @Override
+        public void close() {
+            lines.close();
+        }
+    }
+}
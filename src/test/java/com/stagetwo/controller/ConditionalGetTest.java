@@ -0,0 +1,169 @@
+package com.stagetwo.controller;
+
+import com.stagetwo.entity.Country;
+import com.stagetwo.event.CountryDataChangedEvent;
+import com.stagetwo.repository.CountryRepository;
+import com.stagetwo.service.CountrySnapshotService;
+import com.stagetwo.service.ImageGenerationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ConditionalGetTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CountryRepository countryRepository;
+
+    @Autowired
+    private CountrySnapshotService countrySnapshotService;
+
+    @Autowired
+    private ImageGenerationService imageGenerationService;
+
+    private LocalDateTime refreshedAt;
+
+    @BeforeEach
+    void seed() {
+        refreshedAt = LocalDateTime.now().withNano(0).minusHours(1);
+        countryRepository.save(country("Ghana", "GHS"));
+        countryRepository.save(country("Nigeria", "NGN"));
+        countrySnapshotService.onCountryDataChanged(CountryDataChangedEvent.refreshed());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        countryRepository.deleteAll();
+        countrySnapshotService.onCountryDataChanged(CountryDataChangedEvent.refreshed());
+    }
+
+    @Test
+    void matchingValidatorsGetNotModifiedUntilTheDataChanges() throws Exception {
+        String eTag = mockMvc.perform(get("/countries"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(eTag).startsWith("\"");
+
+        mockMvc.perform(get("/countries").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/countries/ghana").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/countries").header(HttpHeaders.IF_MODIFIED_SINCE, httpDate(refreshedAt)))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/countries").header(HttpHeaders.IF_MODIFIED_SINCE, httpDate(refreshedAt.minusMinutes(1))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(delete("/countries/Nigeria")).andExpect(status().isOk());
+
+        String newETag = mockMvc.perform(get("/countries").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(newETag).isNotEqualTo(eTag);
+        mockMvc.perform(get("/countries").header(HttpHeaders.IF_MODIFIED_SINCE, httpDate(refreshedAt)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void statusIsValidatedByETagOnly() throws Exception {
+        String statusETag = mockMvc.perform(get("/status"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/status").header(HttpHeaders.IF_NONE_MATCH, statusETag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void commonQueriesAreServedPreCompressed() throws Exception {
+        String onTheFly = mockMvc.perform(get("/countries").param("sort", "gdp_desc").param("limit", "10"))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn().getResponse().getContentAsString();
+
+        MvcResult gzipped = mockMvc.perform(get("/countries").param("sort", "gdp_desc")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "deflate;q=0.5, gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andReturn();
+        byte[] body = gzipped.getResponse().getContentAsByteArray();
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(onTheFly);
+        }
+
+        String identityETag = mockMvc.perform(get("/countries").param("sort", "gdp_desc"))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(gzipped.getResponse().getHeader(HttpHeaders.ETAG)).isNotEqualTo(identityETag);
+    }
+
+    @Test
+    void summaryImageIsServedFromMemoryWithRanges() throws Exception {
+        await().until(() -> imageGenerationService.getCurrentImage() != null);
+        byte[] png = imageGenerationService.getCurrentImage().bytes();
+
+        String eTag = mockMvc.perform(get("/countries/image"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/png"))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(content().bytes(png))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/countries/image").header(HttpHeaders.RANGE, "bytes=0-7"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(Arrays.copyOfRange(png, 0, 8)));
+        mockMvc.perform(get("/countries/image").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/countries/image").param("format", "webp"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Country country(String name, String currencyCode) {
+        Country country = new Country();
+        country.setName(name);
+        country.setPopulation(1_000_000L);
+        country.setCurrencyCode(currencyCode);
+        country.setExchangeRate(10.0);
+        country.setEstimatedGdp(150_000.0);
+        country.setLastRefreshedAt(refreshedAt);
+        return country;
+    }
+
+    private static String httpDate(LocalDateTime time) {
+        ZonedDateTime zoned = time.atZone(ZoneId.systemDefault());
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(zoned.withZoneSameInstant(ZoneId.of("GMT")));
+    }
+}
@@ -0,0 +1,59 @@
+package com.stagetwo.controller;
+
+import com.stagetwo.dto.ExchangeRateResponseDto;
+import com.stagetwo.event.ExchangeRatesUpdatedEvent;
+import com.stagetwo.service.ExchangeRateService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ConversionControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ExchangeRateService exchangeRateService;
+
+    @Test
+    void convertsSingleAmountsAndBatches() throws Exception {
+        ExchangeRateResponseDto rates = new ExchangeRateResponseDto();
+        rates.setBaseCode("USD");
+        rates.setRates(Map.of("USD", 1.0, "NGN", 1600.0, "GHS", 12.5));
+        exchangeRateService.onExchangeRatesUpdated(new ExchangeRatesUpdatedEvent(rates));
+
+        mockMvc.perform(get("/convert").param("from", "ghs").param("to", "NGN").param("amount", "25"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.from").value("GHS"))
+                .andExpect(jsonPath("$.result").value(3200.0));
+
+        mockMvc.perform(post("/convert").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"conversions\":[{\"from\":\"USD\",\"to\":\"NGN\",\"amount\":2},"
+                                + "{\"from\":\"NGN\",\"to\":\"USD\",\"amount\":800}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0]").value(3200.0))
+                .andExpect(jsonPath("$.results[1]").value(0.5));
+
+        mockMvc.perform(post("/convert").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"conversions\":[{\"from\":\"USD\",\"to\":\"ABC\",\"amount\":2}]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Validation failed"))
+                .andExpect(jsonPath("$.details['conversions[0].to']").value("Unknown currency: ABC"));
+
+        mockMvc.perform(get("/convert").param("from", "USD"))
+                .andExpect(status().isBadRequest());
+    }
+}
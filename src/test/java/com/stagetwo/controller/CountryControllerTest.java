@@ -0,0 +1,20 @@
+package com.stagetwo.controller;
+
+import com.stagetwo.service.RenderedBody;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CountryControllerTest {
+
+    @Test
+    void negotiatesContentCodingByQuality() {
+        assertThat(CountryController.negotiateCoding(null)).isEqualTo(RenderedBody.Coding.IDENTITY);
+        assertThat(CountryController.negotiateCoding("gzip, deflate, br")).isEqualTo(RenderedBody.Coding.GZIP);
+        assertThat(CountryController.negotiateCoding("gzip;q=0.4, deflate")).isEqualTo(RenderedBody.Coding.DEFLATE);
+        assertThat(CountryController.negotiateCoding("br")).isEqualTo(RenderedBody.Coding.IDENTITY);
+        assertThat(CountryController.negotiateCoding("*")).isEqualTo(RenderedBody.Coding.GZIP);
+        assertThat(CountryController.negotiateCoding("*, gzip;q=0")).isEqualTo(RenderedBody.Coding.DEFLATE);
+        assertThat(CountryController.negotiateCoding("gzip;q=0, deflate;q=0")).isEqualTo(RenderedBody.Coding.IDENTITY);
+    }
+}
@@ -0,0 +1,176 @@
+package com.stagetwo.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stagetwo.entity.Country;
+import com.stagetwo.event.CountryDataChangedEvent;
+import com.stagetwo.repository.CountryRepository;
+import com.stagetwo.service.CountrySnapshotService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CountryListingTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CountryRepository countryRepository;
+
+    @Autowired
+    private CountrySnapshotService countrySnapshotService;
+
+    @BeforeEach
+    void seed() {
+        countryRepository.save(country("Nigeria", "Africa", "NGN", 500.0));
+        countryRepository.save(country("Ghana", "Africa", "GHS", 300.0));
+        countryRepository.save(country("Togo", "Africa", "XOF", 300.0));
+        countryRepository.save(country("Senegal", "Africa", "XOF", 200.0));
+        countryRepository.save(country("France", "Europe", "EUR", 900.0));
+        countryRepository.save(country("Benin", "Africa", "XOF", null));
+        countrySnapshotService.onCountryDataChanged(CountryDataChangedEvent.refreshed());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        countryRepository.deleteAll();
+        countrySnapshotService.onCountryDataChanged(CountryDataChangedEvent.refreshed());
+    }
+
+    @Test
+    void cursorPagesWalkTheGdpOrderWithoutGapsAfterADelete() throws Exception {
+        MvcResult first = mockMvc.perform(get("/countries").param("sort", "gdp_desc").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andReturn();
+        List<String> names = new ArrayList<>(names(first));
+        String cursor = first.getResponse().getHeader(CountryController.NEXT_CURSOR_HEADER);
+        assertThat(names).containsExactly("France", "Nigeria");
+
+        // Removing a country already returned must not shift the following pages
+        mockMvc.perform(delete("/countries/Nigeria")).andExpect(status().isOk());
+
+        while (cursor != null) {
+            MvcResult next = mockMvc.perform(get("/countries").param("sort", "gdp_desc")
+                            .param("limit", "2").param("after", cursor))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            names.addAll(names(next));
+            cursor = next.getResponse().getHeader(CountryController.NEXT_CURSOR_HEADER);
+        }
+        assertThat(names).containsExactly("France", "Nigeria", "Ghana", "Togo", "Senegal", "Benin");
+    }
+
+    @Test
+    void filtersCombineAndFieldsProjectTheRows() throws Exception {
+        mockMvc.perform(get("/countries").param("region", "africa").param("currency", "xof")
+                        .param("sort", "gdp_asc").param("fields", "name,estimatedGdp"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(CountryController.NEXT_CURSOR_HEADER))
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].name").value("Benin"))
+                .andExpect(jsonPath("$[1].name").value("Senegal"))
+                .andExpect(jsonPath("$[2].name").value("Togo"))
+                .andExpect(jsonPath("$[2].estimatedGdp").value(300.0))
+                .andExpect(jsonPath("$[0].capital").doesNotExist());
+    }
+
+    @Test
+    void rejectsUnknownFieldsAndForeignCursors() throws Exception {
+        mockMvc.perform(get("/countries").param("fields", "name,password"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.details").value("Unknown field: password"));
+
+        String cursor = mockMvc.perform(get("/countries").param("sort", "gdp_desc").param("limit", "1"))
+                .andReturn().getResponse().getHeader(CountryController.NEXT_CURSOR_HEADER);
+        mockMvc.perform(get("/countries").param("sort", "gdp_asc").param("after", cursor))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/countries").param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchFollowsDeletesAndToleratesTypos() throws Exception {
+        mockMvc.perform(get("/countries/search").param("q", "senegla"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].country.name").value("Senegal"))
+                .andExpect(jsonPath("$[0].matched_field").value("name"))
+                .andExpect(jsonPath("$[0].distance").value(1));
+        mockMvc.perform(get("/countries/search").param("q", "xof").param("limit", "2"))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].matched_field").value("currency_code"));
+
+        mockMvc.perform(delete("/countries/Togo")).andExpect(status().isOk());
+        mockMvc.perform(get("/countries/search").param("q", "tog"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+
+        mockMvc.perform(get("/countries/search").param("q", " "))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.details").value("q is required"));
+        mockMvc.perform(get("/countries/search").param("q", "ni").param("limit", "51"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void statsAreGroupedAndFollowDeletes() throws Exception {
+        mockMvc.perform(get("/countries/stats").param("group_by", "currency"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.group_by").value("currency"))
+                .andExpect(jsonPath("$.groups.length()").value(4))
+                .andExpect(jsonPath("$.groups[3].key").value("XOF"))
+                .andExpect(jsonPath("$.groups[3].country_count").value(3))
+                .andExpect(jsonPath("$.groups[3].gdp_sum").value(500.0));
+
+        mockMvc.perform(delete("/countries/Togo")).andExpect(status().isOk());
+        mockMvc.perform(get("/countries/stats"))
+                .andExpect(jsonPath("$.group_by").value("region"))
+                .andExpect(jsonPath("$.groups[0].key").value("Africa"))
+                .andExpect(jsonPath("$.groups[0].country_count").value(4))
+                .andExpect(jsonPath("$.groups[0].total_population").value(4_000_000))
+                .andExpect(jsonPath("$.groups[0].gdp_max").value(500.0))
+                .andExpect(jsonPath("$.groups[0].gdp_sum").value(1000.0));
+
+        mockMvc.perform(get("/countries/stats").param("group_by", "capital"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<String> names(MvcResult result) throws Exception {
+        List<String> names = new ArrayList<>();
+        for (JsonNode node : objectMapper.readTree(result.getResponse().getContentAsString())) {
+            names.add(node.get("name").asText());
+        }
+        return names;
+    }
+
+    private static Country country(String name, String region, String currencyCode, Double estimatedGdp) {
+        Country country = new Country();
+        country.setName(name);
+        country.setRegion(region);
+        country.setPopulation(1_000_000L);
+        country.setCurrencyCode(currencyCode);
+        country.setEstimatedGdp(estimatedGdp);
+        return country;
+    }
+}
@@ -0,0 +1,65 @@
+package com.stagetwo.controller;
+
+import com.stagetwo.benchmark.SyntheticCountries;
+import com.stagetwo.service.CountryFeed;
+import com.stagetwo.service.CountryService;
+import com.stagetwo.service.UpstreamFetchService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+class MetricsEndpointTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private CountryService countryService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private UpstreamFetchService upstreamFetchService;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM countries");
+    }
+
+    @Test
+    void refreshAndReadPathsAreExportedInPrometheusFormat() throws Exception {
+        when(upstreamFetchService.fetch()).thenReturn(new UpstreamFetchService.UpstreamData(
+                CountryFeed.of(SyntheticCountries.feed(30)), SyntheticCountries.rates(0)));
+        countryService.refreshCountries();
+        mockMvc.perform(get("/countries")).andExpect(status().isOk());
+        mockMvc.perform(get("/countries")).andExpect(status().isOk());
+
+        String metrics = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(metrics)
+                .contains("refresh_seconds_count{error=\"none\"")
+                .contains("refresh_phase_seconds_count{error=\"none\",phase=\"persist\"")
+                .contains("snapshot_build_seconds_count")
+                .containsPattern("jdbc_repository_seconds_count\\{class=\"com.stagetwo.repository.CountryBatchRepository\",error=\"none\",method=\"insertAll\"")
+                .containsPattern("refresh_rows_total\\{operation=\"inserted\"\\} [1-9]")
+                .containsPattern("cache_gets_total\\{cache=\"country_lists\",result=\"hit\"\\} [1-9]")
+                .contains("http_server_requests_seconds_bucket{")
+                .contains("uri=\"/countries\"");
+    }
+}
@@ -0,0 +1,271 @@
+package com.stagetwo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stagetwo.CurrencyexchangeapiApplication;
+import com.stagetwo.benchmark.SyntheticCountries;
+import com.stagetwo.support.StubUpstreamServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Change feed load test: how much memory and how many threads idle {@code GET /countries/changes}
+ * subscribers cost, and how long one change takes to reach all of them. Starts the application
+ * as a separate process (test profile, embedded H2, local upstream stubs), so only its memory is
+ * measured, and seeds it with one refresh. Then, for each connection count, opens that many
+ * streams, waits until the server reports them, runs a full GC in the server with {@code jcmd}
+ * and reads its heap use and live threads from the actuator and its resident set size from
+ * {@code /proc}, and deletes a country and times until every stream received the event.
+ *
+ * <p>Options are {@code --name=value}: {@code connections} (comma-separated counts, default
+ * {@code 1000,2000,4000,8000}) and {@code countries} (default 250). Any other argument is passed to
+ * the application, e.g. {@code --spring.threads.virtual.enabled=true}.
+ */
+public final class ChangeFeedHarness {
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+    private final String baseUrl;
+    private final long pid;
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final AtomicInteger countryEvents = new AtomicInteger();
+    private final List<CompletableFuture<HttpResponse<Void>>> streams = new ArrayList<>();
+
+    private ChangeFeedHarness(String baseUrl, long pid) {
+        this.baseUrl = baseUrl;
+        this.pid = pid;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(Map.of("connections", "1000,2000,4000,8000", "countries", "250"));
+        List<String> appArgs = new ArrayList<>();
+        for (String arg : String.join(" ", args).trim().split("\\s+")) {
+            int equals = arg.indexOf('=');
+            String name = arg.startsWith("--") && equals > 0 ? arg.substring(2, equals) : null;
+            if (name != null && options.containsKey(name)) {
+                options.put(name, arg.substring(equals + 1));
+            } else if (!arg.isEmpty()) {
+                appArgs.add(arg);
+            }
+        }
+        int[] connections = Arrays.stream(options.get("connections").split(",")).mapToInt(Integer::parseInt).toArray();
+        int countries = Integer.parseInt(options.get("countries"));
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+
+        try (StubUpstreamServer countriesApi = new StubUpstreamServer();
+             StubUpstreamServer ratesApi = new StubUpstreamServer()) {
+            countriesApi.respondWith(JSON.writeValueAsString(SyntheticCountries.feed(countries)));
+            ratesApi.respondWith(JSON.writeValueAsString(SyntheticCountries.rates(0)));
+
+            Path workDir = Path.of("target/changefeed").toAbsolutePath();
+            Files.createDirectories(workDir);
+            List<String> command = new ArrayList<>(List.of(
+                    ProcessHandle.current().info().command().orElse("java"),
+                    "-cp", System.getProperty("java.class.path"),
+                    CurrencyexchangeapiApplication.class.getName(),
+                    "--spring.profiles.active=test",
+                    "--server.port=" + port,
+                    "--server.tomcat.max-connections=" + (Arrays.stream(connections).max().orElse(0) + 100),
+                    "--upstream.countries.url=" + countriesApi.url("/countries"),
+                    "--upstream.exchange-rates.url=" + ratesApi.url("/rates"),
+                    "--image.cache-dir=" + workDir.resolve("cache"),
+                    "--upstream.last-known-good-dir=" + workDir.resolve("cache/upstream"),
+                    "--logging.level.root=WARN"));
+            command.addAll(appArgs);
+            Process app = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(workDir.resolve("app.log").toFile())
+                    .start();
+            try {
+                new ChangeFeedHarness("http://127.0.0.1:" + port, app.pid()).run(connections);
+            } finally {
+                app.destroy();
+                if (!app.waitFor(30, TimeUnit.SECONDS)) {
+                    app.destroyForcibly();
+                }
+            }
+        }
+    }
+
+    private void run(int[] connections) throws Exception {
+        awaitStarted();
+        seed();
+
+        System.out.printf("%n%12s %10s %14s %8s %10s %12s%n",
+                "connections", "heap MB", "KB/connection", "threads", "RSS MB", "fan-out ms");
+        double baselineHeap = 0;
+        int deleted = 0;
+        for (int target : IntStream.concat(IntStream.of(0), Arrays.stream(connections)).toArray()) {
+            openStreams(target);
+            double heap = heapAfterGc();
+            if (target == 0) {
+                baselineHeap = heap;
+            }
+            double threads = metric("jvm.threads.live", null);
+            long fanOutMs = target == 0 ? 0 : fanOut("Country " + deleted++, target);
+            System.out.printf("%12d %10.1f %14s %8.0f %10s %12s%n", target, heap / 1_048_576,
+                    target == 0 ? "-" : String.format("%.1f", (heap - baselineHeap) / 1024 / target),
+                    threads, residentSetMb(), target == 0 ? "-" : Long.toString(fanOutMs));
+        }
+    }
+
+    private void awaitStarted() throws Exception {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                if (get("/actuator/health").statusCode() == 200) {
+                    return;
+                }
+            } catch (ConnectException e) {
+                // Not listening yet
+            }
+            Thread.sleep(200);
+        }
+        throw new IllegalStateException("Application did not start; see target/changefeed/app.log");
+    }
+
+    private void seed() throws Exception {
+        HttpResponse<String> triggered = http.send(request("/countries/refresh")
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+        String id = JSON.readTree(triggered.body()).path("id").asText();
+        while (true) {
+            String status = JSON.readTree(get("/countries/refresh/" + id).body()).path("status").asText();
+            if ("failed".equals(status)) {
+                throw new IllegalStateException("Seeding refresh failed");
+            }
+            if ("succeeded".equals(status)) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    private void openStreams(int target) throws Exception {
+        while (streams.size() < target) {
+            streams.add(http.sendAsync(request("/countries/changes").header("Accept", "text/event-stream").build(),
+                    HttpResponse.BodyHandlers.fromLineSubscriber(new EventCounter())));
+            if (streams.size() % 200 == 0) {
+                // Stay within the server's accept queue
+                awaitSubscribers(streams.size());
+            }
+        }
+        awaitSubscribers(target);
+    }
+
+    private void awaitSubscribers(int count) throws Exception {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (metric("changes.subscribers", null) < count) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Only " + metric("changes.subscribers", null) + " of " + count + " streams opened");
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    /**
+     * Deletes a country and returns the milliseconds until all {@code subscribers} streams got
+     * the change.
+     */
+    private long fanOut(String country, int subscribers) throws Exception {
+        int before = countryEvents.get();
+        long start = System.nanoTime();
+        HttpResponse<String> response = http.send(request("/countries/" + country.replace(" ", "%20")).DELETE().build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException("Delete failed: " + response.body());
+        }
+        long deadline = start + TIMEOUT.toNanos();
+        while (countryEvents.get() - before < subscribers) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException((countryEvents.get() - before) + " of " + subscribers + " streams got the change");
+            }
+            Thread.sleep(1);
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private double heapAfterGc() throws Exception {
+        Process jcmd = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "jcmd").toString(),
+                Long.toString(pid), "GC.run").redirectErrorStream(true).start();
+        jcmd.getInputStream().transferTo(OutputStream.nullOutputStream());
+        jcmd.waitFor();
+        return metric("jvm.memory.used", "area:heap");
+    }
+
+    private double metric(String name, String tag) throws Exception {
+        JsonNode body = JSON.readTree(get("/actuator/metrics/" + name + (tag != null ? "?tag=" + tag : "")).body());
+        return body.path("measurements").path(0).path("value").asDouble();
+    }
+
+    private String residentSetMb() throws IOException {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        if (!Files.exists(status)) {
+            return "-";
+        }
+        return Files.readAllLines(status).stream()
+                .filter(line -> line.startsWith("VmRSS:"))
+                .map(line -> String.format("%.1f", Long.parseLong(line.replaceAll("\\D", "")) / 1024.0))
+                .findFirst().orElse("-");
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return http.send(request(path).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path));
+    }
+
+    /**
+     * Counts the {@code country} events of one stream without holding a thread.
+     */
+    private final class EventCounter implements Flow.Subscriber<String> {
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (line.equals("event:country")) {
+                countryEvents.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.stagetwo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.stagetwo.CurrencyexchangeapiApplication;
+import com.stagetwo.benchmark.SyntheticCountries;
+import com.stagetwo.dto.ExchangeRateResponseDto;
+import com.stagetwo.support.StubUpstreamServer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * End-to-end load test. Starts the application on a random port against the embedded H2 database
+ * of the {@code test} profile and two local stand-ins for RestCountries and the exchange-rate API,
+ * then replays the {@link TrafficMix} from closed-loop clients in two phases: at rest, and while
+ * refreshes run back to back (each one with new rates, so every row is rewritten). Prints a
+ * latency/throughput table per phase and writes the same numbers as JSON.
+ *
+ * <p>Options are {@code --name=value}: {@code countries} (payload size, default 250),
+ * {@code upstream-latency} (default 200ms), {@code clients} (default 32), {@code warmup} (default
+ * 10s), {@code duration} (per phase, default 30s), {@code write-percent} (share of deletes,
+ * default 1), {@code db-read-percent} (share of rate-history reads, default 0) and {@code report}
+ * (default {@code target/loadtest-report.json}). Any other argument is passed to the application,
+ * e.g. {@code --spring.threads.virtual.enabled=true}; arguments may also be given several to one
+ * string, separated by spaces.
+ */
+public final class LoadHarness {
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final Instant RATES_UPDATED = Instant.parse("2025-10-22T00:00:00Z");
+
+    private final Settings settings;
+    private final StubUpstreamServer ratesApi;
+    private final TrafficMix mix;
+    private final HttpClient http;
+
+    private LoadHarness(Settings settings, StubUpstreamServer ratesApi, String baseUrl) {
+        this.settings = settings;
+        this.ratesApi = ratesApi;
+        this.mix = new TrafficMix(baseUrl, settings.countries(), settings.writePercent(), settings.databaseReadPercent());
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Settings settings = Settings.parse(args);
+
+        try (StubUpstreamServer countriesApi = new StubUpstreamServer();
+             StubUpstreamServer ratesApi = new StubUpstreamServer()) {
+            countriesApi.delay(settings.upstreamLatency())
+                    .respondWith(JSON.writeValueAsString(SyntheticCountries.feed(settings.countries())));
+            ratesApi.delay(settings.upstreamLatency()).respondWith(ratesBody(0));
+
+            // Command-line arguments, so they take precedence over application.properties
+            Map<String, String> properties = new LinkedHashMap<>();
+            properties.put("server.port", "0");
+            properties.put("upstream.countries.url", countriesApi.url("/countries"));
+            properties.put("upstream.exchange-rates.url", ratesApi.url("/rates"));
+            properties.put("image.cache-dir", "target/loadtest-cache");
+            properties.put("upstream.last-known-good-dir", "target/loadtest-cache/upstream");
+            properties.put("logging.level.root", "WARN");
+            List<String> appArgs = new ArrayList<>(settings.appArgs());
+            properties.forEach((name, value) -> {
+                if (appArgs.stream().noneMatch(arg -> arg.startsWith("--" + name + "="))) {
+                    appArgs.add("--" + name + "=" + value);
+                }
+            });
+
+            try (ConfigurableApplicationContext app = new SpringApplicationBuilder(CurrencyexchangeapiApplication.class)
+                    .profiles("test")
+                    .run(appArgs.toArray(new String[0]))) {
+                String baseUrl = "http://127.0.0.1:" + app.getEnvironment().getProperty("local.server.port");
+                new LoadHarness(settings, ratesApi, baseUrl).run();
+            }
+        }
+    }
+
+    private void run() throws Exception {
+        System.out.printf("Seeding %d countries (upstream latency %d ms)%n", settings.countries(),
+                settings.upstreamLatency().toMillis());
+        if (!refresh(null)) {
+            throw new IllegalStateException("Initial refresh failed");
+        }
+        awaitSummaryImage();
+
+        System.out.printf("Warming up for %d s%n", settings.warmup().toSeconds());
+        runPhase("warmup", settings.warmup(), false);
+
+        List<PhaseRecorder.Result> phases = new ArrayList<>();
+        phases.add(runPhase("at_rest", settings.duration(), false));
+        phases.add(runPhase("during_refresh", settings.duration(), true));
+
+        for (PhaseRecorder.Result phase : phases) {
+            print(phase);
+        }
+        writeReport(phases);
+    }
+
+    private PhaseRecorder.Result runPhase(String name, Duration duration, boolean withRefreshes) {
+        PhaseRecorder recorder = new PhaseRecorder(name);
+        AtomicInteger refreshesCompleted = new AtomicInteger();
+        AtomicInteger refreshesFailed = new AtomicInteger();
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < settings.clients(); i++) {
+                threads.execute(() -> {
+                    while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                        send(mix.next(), recorder);
+                    }
+                });
+            }
+            if (withRefreshes) {
+                threads.execute(() -> {
+                    int round = 0;
+                    while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                        ratesApi.respondWith(ratesBody(++round));
+                        (refresh(recorder) ? refreshesCompleted : refreshesFailed).incrementAndGet();
+                    }
+                });
+            }
+        }
+        // The last refresh may end after the deadline; throughput is over the nominal duration
+        return recorder.result(duration, refreshesCompleted.get(), refreshesFailed.get());
+    }
+
+    private void send(TrafficMix.Request request, PhaseRecorder recorder) {
+        long start = System.nanoTime();
+        int status;
+        try {
+            status = http.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            status = -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        recorder.record(request.endpoint(), System.nanoTime() - start, status);
+    }
+
+    /**
+     * Triggers a refresh and polls its job until it has finished. The trigger is recorded as
+     * {@code POST /countries/refresh} if {@code recorder} is given; the polls are not recorded.
+     *
+     * @return whether the refresh succeeded
+     */
+    private boolean refresh(PhaseRecorder recorder) {
+        try {
+            long start = System.nanoTime();
+            HttpResponse<String> triggered = http.send(mix.request("/countries/refresh")
+                    .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+            if (recorder != null) {
+                recorder.record("POST /countries/refresh", System.nanoTime() - start, triggered.statusCode());
+            }
+            if (triggered.statusCode() != 202) {
+                return false;
+            }
+            String id = JSON.readTree(triggered.body()).path("id").asText();
+            while (true) {
+                JsonNode job = JSON.readTree(http.send(mix.request("/countries/refresh/" + id).GET().build(),
+                        HttpResponse.BodyHandlers.ofString()).body());
+                String status = job.path("status").asText();
+                if ("succeeded".equals(status) || "failed".equals(status)) {
+                    return "succeeded".equals(status);
+                }
+                Thread.sleep(100);
+            }
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * The image is rendered in the background after the first refresh.
+     */
+    private void awaitSummaryImage() throws Exception {
+        long deadline = System.nanoTime() + Duration.ofMinutes(1).toNanos();
+        while (http.send(mix.request("/countries/image").GET().build(), HttpResponse.BodyHandlers.discarding())
+                .statusCode() != 200) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Summary image was not rendered");
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    private void print(PhaseRecorder.Result phase) {
+        System.out.printf("%n%s: %d clients, %d s", phase.phase(), settings.clients(), phase.durationMs() / 1000);
+        if (phase.refreshesCompleted() + phase.refreshesFailed() > 0) {
+            System.out.printf(", %d refreshes (%d failed)", phase.refreshesCompleted() + phase.refreshesFailed(),
+                    phase.refreshesFailed());
+        }
+        System.out.printf("%n%-26s %9s %9s %8s %8s %8s %8s %6s %6s%n",
+                "endpoint", "requests", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "404", "errors");
+        for (PhaseRecorder.EndpointResult endpoint : phase.endpoints()) {
+            System.out.printf("%-26s %9d %9.1f %8.2f %8.2f %8.2f %8.2f %6d %6d%n",
+                    endpoint.endpoint(), endpoint.requests(), endpoint.throughput(), endpoint.p50Ms(),
+                    endpoint.p90Ms(), endpoint.p99Ms(), endpoint.maxMs(), endpoint.notFound(), endpoint.errors());
+        }
+    }
+
+    private void writeReport(List<PhaseRecorder.Result> phases) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        Map<String, Object> settingsReport = new LinkedHashMap<>();
+        settingsReport.put("countries", settings.countries());
+        settingsReport.put("upstream_latency_ms", settings.upstreamLatency().toMillis());
+        settingsReport.put("clients", settings.clients());
+        settingsReport.put("duration_ms", settings.duration().toMillis());
+        settingsReport.put("write_percent", settings.writePercent());
+        settingsReport.put("db_read_percent", settings.databaseReadPercent());
+        settingsReport.put("app_args", settings.appArgs());
+        report.put("settings", settingsReport);
+        report.put("phases", phases);
+        Path file = settings.report();
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        new ObjectMapper()
+                .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(file.toFile(), report);
+        System.out.printf("%nReport written to %s%n", file.toAbsolutePath());
+    }
+
+    private static String ratesBody(int round) {
+        ExchangeRateResponseDto rates = SyntheticCountries.rates(round * 0.01);
+        rates.setTimeLastUpdateUtc(DateTimeFormatter.RFC_1123_DATE_TIME
+                .format(RATES_UPDATED.plus(Duration.ofMinutes(round)).atOffset(ZoneOffset.UTC)));
+        try {
+            return JSON.writeValueAsString(rates);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    record Settings(int countries, Duration upstreamLatency, int clients, Duration warmup, Duration duration,
+                    double writePercent, double databaseReadPercent, Path report, List<String> appArgs) {
+
+        static Settings parse(String[] args) {
+            Map<String, String> options = new LinkedHashMap<>(Map.of(
+                    "countries", "250",
+                    "upstream-latency", "200ms",
+                    "clients", "32",
+                    "warmup", "10s",
+                    "duration", "30s",
+                    "write-percent", "1",
+                    "db-read-percent", "0",
+                    "report", "target/loadtest-report.json"));
+            List<String> appArgs = new ArrayList<>();
+            for (String arg : String.join(" ", args).trim().split("\\s+")) {
+                if (arg.isEmpty()) {
+                    continue;
+                }
+                int equals = arg.indexOf('=');
+                String name = arg.startsWith("--") && equals > 0 ? arg.substring(2, equals) : null;
+                if (name != null && options.containsKey(name)) {
+                    options.put(name, arg.substring(equals + 1));
+                } else {
+                    appArgs.add(arg);
+                }
+            }
+            return new Settings(
+                    Integer.parseInt(options.get("countries")),
+                    DurationStyle.detectAndParse(options.get("upstream-latency")),
+                    Integer.parseInt(options.get("clients")),
+                    DurationStyle.detectAndParse(options.get("warmup")),
+                    DurationStyle.detectAndParse(options.get("duration")),
+                    Double.parseDouble(options.get("write-percent")),
+                    Double.parseDouble(options.get("db-read-percent")),
+                    Path.of(options.get("report")),
+                    List.copyOf(appArgs));
+        }
+    }
+}
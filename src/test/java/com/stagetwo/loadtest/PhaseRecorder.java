@@ -0,0 +1,83 @@
+package com.stagetwo.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes of one load phase, per endpoint. Safe to record into from any number of
+ * client threads.
+ */
+class PhaseRecorder {
+    private static final long MAX_TRACKED_MICROS = Duration.ofMinutes(5).toNanos() / 1_000;
+
+    private final String name;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    PhaseRecorder(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records one exchange. {@code status} is the HTTP status, or -1 if the request failed
+     * without a response (connection error or timeout).
+     */
+    void record(String endpoint, long latencyNanos, int status) {
+        Endpoint stats = endpoints.computeIfAbsent(endpoint, key -> new Endpoint());
+        stats.latencies.recordValue(Math.min(Math.max(1, latencyNanos / 1_000), MAX_TRACKED_MICROS));
+        if (status == 404) {
+            stats.notFound.increment();
+        } else if (status < 200 || status >= 400) {
+            stats.errors.increment();
+        }
+    }
+
+    Result result(Duration elapsed, int refreshesCompleted, int refreshesFailed) {
+        double seconds = elapsed.toNanos() / 1e9;
+        List<EndpointResult> results = new ArrayList<>();
+        Histogram total = new Histogram(3);
+        long totalNotFound = 0;
+        long totalErrors = 0;
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet().stream().sorted(Map.Entry.comparingByKey()).toList()) {
+            Endpoint stats = entry.getValue();
+            Histogram latencies = stats.latencies.copy();
+            total.add(latencies);
+            totalNotFound += stats.notFound.sum();
+            totalErrors += stats.errors.sum();
+            results.add(EndpointResult.of(entry.getKey(), latencies, seconds, stats.notFound.sum(), stats.errors.sum()));
+        }
+        results.add(EndpointResult.of("all", total, seconds, totalNotFound, totalErrors));
+        return new Result(name, elapsed.toMillis(), refreshesCompleted, refreshesFailed, results);
+    }
+
+    private static final class Endpoint {
+        private final ConcurrentHistogram latencies = new ConcurrentHistogram(3);
+        private final LongAdder notFound = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+    }
+
+    record Result(String phase, long durationMs, int refreshesCompleted, int refreshesFailed,
+                  List<EndpointResult> endpoints) {
+    }
+
+    record EndpointResult(String endpoint, long requests, double throughput, double p50Ms, double p90Ms,
+                          double p99Ms, double maxMs, long notFound, long errors) {
+
+        static EndpointResult of(String endpoint, Histogram latencies, double seconds, long notFound, long errors) {
+            long requests = latencies.getTotalCount();
+            return new EndpointResult(endpoint, requests, requests / seconds,
+                    millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(90)),
+                    millis(latencies.getValueAtPercentile(99)), millis(latencies.getMaxValue()), notFound, errors);
+        }
+
+        private static double millis(long micros) {
+            return micros / 1_000.0;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.stagetwo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stagetwo.CurrencyexchangeapiApplication;
+import com.stagetwo.benchmark.SyntheticCountries;
+import com.stagetwo.support.StubUpstreamServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures time to first request: how long after the JVM is launched {@code GET /countries}
+ * first answers with the full list, and {@code GET /countries/image} with the image. Runs the
+ * jar extracted by {@code mvn -Pcds package} as a separate process, against an H2 file database
+ * seeded once through a refresh from local upstream stubs, in these variants: the plain jar, with
+ * the snapshot file, and with the snapshot file plus AppCDS, Spring AOT, or both. Prints the
+ * median and range of each variant.
+ *
+ * <p>Options are {@code --name=value}: {@code runs} (per variant, default 5), {@code countries}
+ * (default 250) and {@code dir} (extracted jar and CDS archive, default {@code target/cds}).
+ */
+public final class StartupTimer {
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final Duration START_TIMEOUT = Duration.ofMinutes(2);
+
+    private record Variant(String name, boolean snapshotFile, List<String> jvmArgs) {
+    }
+
+    private record Timing(long countriesMs, long imageMs) {
+    }
+
+    private final Path jar;
+    private final Path archive;
+    private final Path workDir;
+    private final String h2Jar;
+    private final StubUpstreamServer countriesApi;
+    private final StubUpstreamServer ratesApi;
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    private StartupTimer(Path dir, StubUpstreamServer countriesApi, StubUpstreamServer ratesApi) throws IOException {
+        try (var files = Files.list(dir)) {
+            this.jar = files.filter(path -> path.toString().endsWith(".jar")).findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No extracted jar in " + dir + "; run mvn -Pcds package"));
+        }
+        this.archive = dir.resolve("application.jsa");
+        this.workDir = Path.of("target/startup").toAbsolutePath();
+        this.h2Jar = new File(org.h2.Driver.class.getProtectionDomain().getCodeSource().getLocation().getPath()).getPath();
+        this.countriesApi = countriesApi;
+        this.ratesApi = ratesApi;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(Map.of("runs", "5", "countries", "250", "dir", "target/cds"));
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (arg.startsWith("--") && equals > 0) {
+                options.put(arg.substring(2, equals), arg.substring(equals + 1));
+            }
+        }
+        int runs = Integer.parseInt(options.get("runs"));
+        int countries = Integer.parseInt(options.get("countries"));
+
+        try (StubUpstreamServer countriesApi = new StubUpstreamServer();
+             StubUpstreamServer ratesApi = new StubUpstreamServer()) {
+            countriesApi.respondWith(JSON.writeValueAsString(SyntheticCountries.feed(countries)));
+            ratesApi.respondWith(JSON.writeValueAsString(SyntheticCountries.rates(0)));
+            StartupTimer timer = new StartupTimer(Path.of(options.get("dir")), countriesApi, ratesApi);
+            timer.seed(countries);
+
+            String cds = "-XX:SharedArchiveFile=" + timer.archive;
+            String aot = "-Dspring.aot.enabled=true";
+            List<Variant> variants = List.of(
+                    new Variant("jar", false, List.of()),
+                    new Variant("jar + snapshot file", true, List.of()),
+                    new Variant("CDS + snapshot file", true, List.of(cds)),
+                    new Variant("AOT + snapshot file", true, List.of(aot)),
+                    new Variant("CDS + AOT + snapshot file", true, List.of(cds, aot)));
+            System.out.printf("%n%-28s %22s %22s%n", "variant", "/countries ms", "/countries/image ms");
+            for (Variant variant : variants) {
+                List<Timing> timings = new ArrayList<>();
+                for (int i = 0; i < runs; i++) {
+                    timings.add(timer.time(variant));
+                }
+                System.out.printf("%-28s %22s %22s%n", variant.name(),
+                        summary(timings.stream().mapToLong(Timing::countriesMs).toArray()),
+                        summary(timings.stream().mapToLong(Timing::imageMs).toArray()));
+            }
+        }
+    }
+
+    /**
+     * Creates the database and the snapshot file with one refresh.
+     */
+    private void seed(int countries) throws Exception {
+        deleteRecursively(workDir);
+        Files.createDirectories(workDir);
+        int port = freePort();
+        Process app = start(new Variant("seed", true, List.of()), port);
+        try {
+            awaitStatus(port, "/countries", 200);
+            HttpResponse<String> triggered = http.send(request(port, "/countries/refresh")
+                    .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+            String id = JSON.readTree(triggered.body()).path("id").asText();
+            while (true) {
+                JsonNode job = JSON.readTree(http.send(request(port, "/countries/refresh/" + id).GET().build(),
+                        HttpResponse.BodyHandlers.ofString()).body());
+                String status = job.path("status").asText();
+                if ("failed".equals(status)) {
+                    throw new IllegalStateException("Seeding refresh failed: " + job);
+                }
+                if ("succeeded".equals(status)) {
+                    break;
+                }
+                Thread.sleep(100);
+            }
+            awaitStatus(port, "/countries/image", 200);
+            while (!Files.exists(workDir.resolve("countries.snapshot"))) {
+                Thread.sleep(100);
+            }
+            System.out.printf("Seeded %d countries%n", countries);
+        } finally {
+            stop(app);
+        }
+    }
+
+    private Timing time(Variant variant) throws Exception {
+        int port = freePort();
+        long start = System.nanoTime();
+        Process app = start(variant, port);
+        try {
+            awaitStatus(port, "/countries", 200);
+            long countriesMs = (System.nanoTime() - start) / 1_000_000;
+            awaitStatus(port, "/countries/image", 200);
+            long imageMs = (System.nanoTime() - start) / 1_000_000;
+            return new Timing(countriesMs, imageMs);
+        } finally {
+            stop(app);
+        }
+    }
+
+    private Process start(Variant variant, int port) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.add("-Xshare:auto");
+        command.addAll(variant.jvmArgs());
+        command.add("-cp");
+        command.add(jar + File.pathSeparator + h2Jar);
+        command.add(CurrencyexchangeapiApplication.class.getName());
+        command.addAll(List.of(
+                "--server.port=" + port,
+                "--spring.datasource.url=jdbc:h2:file:" + workDir.resolve("db") + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--upstream.countries.url=" + countriesApi.url("/countries"),
+                "--upstream.exchange-rates.url=" + ratesApi.url("/rates"),
+                "--image.cache-dir=" + workDir.resolve("cache"),
+                "--upstream.last-known-good-dir=" + workDir.resolve("cache/upstream"),
+                "--snapshot.file=" + (variant.snapshotFile() ? workDir.resolve("countries.snapshot") : ""),
+                "--logging.level.root=WARN"));
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(workDir.resolve("app.log").toFile())
+                .start();
+    }
+
+    private void awaitStatus(int port, String path, int status) throws Exception {
+        long deadline = System.nanoTime() + START_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                if (http.send(request(port, path).GET().build(), HttpResponse.BodyHandlers.discarding())
+                        .statusCode() == status) {
+                    return;
+                }
+            } catch (ConnectException | HttpTimeoutException e) {
+                // Not listening yet
+            }
+            Thread.sleep(5);
+        }
+        throw new IllegalStateException(path + " did not answer " + status + "; see " + workDir.resolve("app.log"));
+    }
+
+    private static void stop(Process app) throws InterruptedException {
+        app.destroy();
+        if (!app.waitFor(30, TimeUnit.SECONDS)) {
+            app.destroyForcibly().waitFor();
+        }
+    }
+
+    private static HttpRequest.Builder request(int port, String path) {
+        return HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path)).timeout(Duration.ofSeconds(5));
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static String summary(long[] millis) {
+        long[] sorted = millis.clone();
+        Arrays.sort(sorted);
+        return String.format("%d (%d-%d)", sorted[sorted.length / 2], sorted[0], sorted[sorted.length - 1]);
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (var paths = Files.walk(dir)) {
+            for (Path path : paths.sorted((a, b) -> b.getNameCount() - a.getNameCount()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.stagetwo.loadtest;
+
+import com.stagetwo.benchmark.SyntheticCountries;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The request mix replayed by each client: mostly reads of the list, single-country, status and
+ * image endpoints, plus configurable shares of deletes and of rate-history reads (which, unlike
+ * the other reads, query the database). Deleted countries come back with the next refresh; until
+ * then reads and deletes of them get a 404, which is counted separately from errors.
+ */
+class TrafficMix {
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final String baseUrl;
+    private final int countries;
+    private final double writeShare;
+    private final double databaseReadShare;
+
+    TrafficMix(String baseUrl, int countries, double writePercent, double databaseReadPercent) {
+        this.baseUrl = baseUrl;
+        this.countries = countries;
+        this.writeShare = writePercent / 100;
+        this.databaseReadShare = databaseReadPercent / 100;
+    }
+
+    Request next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double roll = random.nextDouble();
+        if (roll < writeShare) {
+            return new Request("DELETE /countries/{name}", HttpRequest.newBuilder(countryUri(random)).DELETE());
+        }
+        if (roll < writeShare + databaseReadShare) {
+            String currency = SyntheticCountries.currencyCode(random.nextInt(SyntheticCountries.CURRENCIES));
+            return get("GET /rates/{currency}/history", "/rates/" + currency + "/history");
+        }
+        // The remaining reads are split 40/30/15/15
+        double read = (roll - writeShare - databaseReadShare) / (1 - writeShare - databaseReadShare);
+        if (read < 0.40) {
+            return get("GET /countries", "/countries" + (random.nextBoolean() ? "?sort=gdp_desc" : ""));
+        }
+        if (read < 0.70) {
+            return new Request("GET /countries/{name}", HttpRequest.newBuilder(countryUri(random)).GET());
+        }
+        if (read < 0.85) {
+            return get("GET /status", "/status");
+        }
+        return get("GET /countries/image", "/countries/image");
+    }
+
+    HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT);
+    }
+
+    private Request get(String endpoint, String path) {
+        return new Request(endpoint, request(path).GET());
+    }
+
+    private URI countryUri(ThreadLocalRandom random) {
+        String name = URLEncoder.encode("Country " + random.nextInt(countries), StandardCharsets.UTF_8).replace("+", "%20");
+        return URI.create(baseUrl + "/countries/" + name);
+    }
+
+    record Request(String endpoint, HttpRequest.Builder builder) {
+        HttpRequest build() {
+            return builder.timeout(REQUEST_TIMEOUT).build();
+        }
+    }
+}
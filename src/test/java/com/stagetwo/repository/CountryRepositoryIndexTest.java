@@ -0,0 +1,81 @@
+package com.stagetwo.repository;
+
+import com.stagetwo.entity.Country;
+import com.stagetwo.support.RecordingStatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs EXPLAIN (on H2 in MySQL mode) for the SQL Hibernate generates for each lookup method
+ * production still calls and checks that the plan reads through an index rather than scanning
+ * the table.
+ */
+@SpringBootTest(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.stagetwo.support.RecordingStatementInspector")
+@ActiveProfiles("test")
+class CountryRepositoryIndexTest {
+    @Autowired
+    private CountryRepository countryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void seed() {
+        Country country = new Country();
+        country.setName("Ghana");
+        country.setRegion("Africa");
+        country.setPopulation(31_000_000L);
+        country.setCurrencyCode("GHS");
+        country.setEstimatedGdp(1_000.0);
+        countryRepository.save(country);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        countryRepository.deleteAll();
+    }
+
+    @Test
+    void lookupKeysAreMaintainedOnSave() {
+        assertThat(countryRepository.findAll()).singleElement()
+                .extracting(Country::getNameKey, Country::getRegionKey, Country::getCurrencyKey)
+                .containsExactly("ghana", "africa", "ghs");
+    }
+
+    @Test
+    void everyLookupUsesAnIndex() {
+        assertUsesIndex("existsByNameIgnoreCase", repository -> repository.existsByNameIgnoreCase("Ghana"),
+                "ux_countries_name_key");
+        assertUsesIndex("deleteByNameIgnoreCase", repository -> transactionTemplate.executeWithoutResult(
+                status -> repository.deleteByNameIgnoreCase("nowhere")), "ux_countries_name_key");
+    }
+
+    private void assertUsesIndex(String method, Consumer<CountryRepository> call, String index) {
+        RecordingStatementInspector.clear();
+        call.accept(countryRepository);
+
+        List<String> statements = RecordingStatementInspector.statements();
+        assertThat(statements).as(method).isNotEmpty();
+        for (String sql : statements) {
+            String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+            assertThat(plan).as("%s: %s", method, sql)
+                    .contains("public." + index)
+                    .doesNotContain("tableScan");
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.stagetwo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stagetwo.config.ChangeFeedProperties;
+import com.stagetwo.dto.CountryChangeDto;
+import com.stagetwo.entity.Country;
+import com.stagetwo.event.CountrySnapshotPublishedEvent;
+import com.stagetwo.event.ExchangeRateTableReplacedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class CountryChangeFeedTest {
+    private static final LocalDateTime REFRESHED_AT = LocalDateTime.of(2025, 10, 22, 18, 0);
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    private CountryChangeFeed feed(int bufferSize) {
+        ChangeFeedProperties properties = new ChangeFeedProperties();
+        properties.setBufferSize(bufferSize);
+        return new CountryChangeFeed(properties, objectMapper, executor, new SimpleMeterRegistry());
+    }
+
+    private static Country country(long id, String name, long population, Double exchangeRate) {
+        return new Country(id, name, "Capital " + id, "Africa", population, "NGN", exchangeRate, 1e9,
+                "https://flagcdn.com/" + id + ".svg", REFRESHED_AT);
+    }
+
+    @Test
+    void diffListsDeletesThenInsertsAndOnlyTheChangedPropertiesOfUpdates() {
+        Country kept = country(1, "Ghana", 31_000_000, 10.5);
+        Country before = country(2, "Nigeria", 206_000_000, 1600.0);
+        Country after = country(2, "Nigeria", 206_000_000, 1500.0);
+        after.setEstimatedGdp(2e9);
+        Country untouched = country(3, "Kenya", 50_000_000, 130.0);
+        Country sameValues = country(3, "Kenya", 50_000_000, 130.0);
+        CountrySnapshot previous = CountrySnapshot.of(1, List.of(kept, before, untouched, country(4, "Togo", 8_000_000, 600.0)));
+        CountrySnapshot next = CountrySnapshot.of(2, List.of(kept, after, sameValues, country(5, "Benin", 12_000_000, 600.0)));
+
+        List<CountryChangeDto> changes = CountryChangeFeed.diff(previous, next);
+
+        assertThat(changes).extracting(CountryChangeDto::getChange, CountryChangeDto::getName)
+                .containsExactly(
+                        tuple("deleted", "Togo"),
+                        tuple("updated", "Nigeria"),
+                        tuple("inserted", "Benin"));
+        assertThat(changes.get(0).getFields()).isNull();
+        assertThat(changes.get(1).getFields()).containsExactly(Map.entry("exchangeRate", 1500.0), Map.entry("estimatedGdp", 2e9));
+        assertThat(changes.get(2).getFields()).containsKeys("id", "name", "capital", "population", "lastRefreshedAt");
+    }
+
+    @Test
+    void bufferKeepsTheLatestChangesAndReportsDroppedOnes() {
+        CountryChangeFeed feed = feed(3);
+        Country ghana = country(1, "Ghana", 31_000_000, 10.5);
+        feed.onSnapshotPublished(new CountrySnapshotPublishedEvent(CountrySnapshot.of(1, List.of(ghana))));
+        assertThat(feed.lastSequence()).isZero();
+
+        for (int population = 1; population <= 4; population++) {
+            feed.onSnapshotPublished(new CountrySnapshotPublishedEvent(
+                    CountrySnapshot.of(population + 1, List.of(country(1, "Ghana", population, 10.5)))));
+        }
+
+        assertThat(feed.lastSequence()).isEqualTo(4);
+        assertThat(feed.since(0)).isNull();
+        assertThat(feed.since(1)).extracting(CountryChangeFeed.Change::sequence).containsExactly(2L, 3L, 4L);
+        assertThat(feed.since(3)).singleElement().satisfies(change -> {
+            assertThat(change.type()).isEqualTo(CountryChangeFeed.COUNTRY);
+            assertThat(change.json()).isEqualTo("{\"change\":\"updated\",\"name\":\"Ghana\",\"fields\":{\"population\":4}}");
+        });
+        assertThat(feed.since(4)).isEmpty();
+    }
+
+    @Test
+    void ratesEventsCarryOnlyNewAndChangedRates() throws Exception {
+        CountryChangeFeed feed = feed(8);
+        ExchangeRateTable first = ExchangeRateTable.of("USD", "Wed, 22 Oct 2025 00:00:01 +0000",
+                Map.of("USD", 1.0, "NGN", 1600.0, "GHS", 10.5));
+        ExchangeRateTable second = ExchangeRateTable.of("USD", "Thu, 23 Oct 2025 00:00:01 +0000",
+                Map.of("USD", 1.0, "NGN", 1500.0, "GHS", 10.5, "KES", 130.0));
+
+        feed.onExchangeRatesReplaced(new ExchangeRateTableReplacedEvent(ExchangeRateTable.EMPTY, first));
+        feed.onExchangeRatesReplaced(new ExchangeRateTableReplacedEvent(first, second));
+        feed.onExchangeRatesReplaced(new ExchangeRateTableReplacedEvent(second, second));
+
+        List<CountryChangeFeed.Change> changes = feed.since(0);
+        assertThat(changes).hasSize(2).allSatisfy(change -> assertThat(change.type()).isEqualTo(CountryChangeFeed.RATES));
+        assertThat(objectMapper.readTree(changes.get(0).json()).path("rates").size()).isEqualTo(3);
+        JsonNode latest = objectMapper.readTree(changes.get(1).json());
+        assertThat(latest.path("base_code").asText()).isEqualTo("USD");
+        assertThat(latest.path("updated_at").asText()).isEqualTo("Thu, 23 Oct 2025 00:00:01 +0000");
+        assertThat(latest.path("rates").toString()).isEqualTo("{\"KES\":130.0,\"NGN\":1500.0}");
+    }
+}
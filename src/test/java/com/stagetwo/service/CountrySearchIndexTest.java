@@ -0,0 +1,82 @@
+package com.stagetwo.service;
+
+import com.stagetwo.entity.Country;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CountrySearchIndexTest {
+
+    private static Country country(long id, String name, String capital, String currency) {
+        return new Country(id, name, capital, "Region", 1_000L, currency, 1.0, 1_000.0, null, null);
+    }
+
+    private static final CountrySearchIndex INDEX = CountrySearchIndex.of(List.of(
+            country(1, "Nigeria", "Abuja", "NGN"),
+            country(2, "Niger", "Niamey", "XOF"),
+            country(3, "Côte d'Ivoire", "Yamoussoukro", "XOF"),
+            country(4, "United Kingdom", "London", "GBP"),
+            country(5, "Brazil", "Brasília", "BRL"),
+            country(6, "Réunion", "Saint-Denis", "EUR")));
+
+    private static List<String> names(String query, int limit) {
+        return INDEX.search(query, limit).stream().map(hit -> hit.country().getName()).toList();
+    }
+
+    @Test
+    void normalizesAccentsCaseAndPunctuation() {
+        assertThat(CountrySearchIndex.normalize("  Côte d'Ivoire ")).isEqualTo("cote d ivoire");
+        assertThat(CountrySearchIndex.normalize("Saint-Denis")).isEqualTo("saint denis");
+        assertThat(CountrySearchIndex.normalize(null)).isEmpty();
+    }
+
+    @Test
+    void prefixMatchesRankShorterWholeNamesFirst() {
+        assertThat(names("nig", 10)).containsExactly("Niger", "Nigeria");
+        assertThat(names("Ni", 10)).containsExactly("Niger", "Nigeria");
+    }
+
+    @Test
+    void matchesWithoutAccentsAndFromLaterWords() {
+        assertThat(names("cote", 10)).containsExactly("Côte d'Ivoire");
+        assertThat(names("reunion", 10)).containsExactly("Réunion");
+        assertThat(names("ivoire", 10)).containsExactly("Côte d'Ivoire");
+
+        CountrySearchIndex.Hit hit = INDEX.search("kingd", 1).get(0);
+        assertThat(hit.country().getName()).isEqualTo("United Kingdom");
+        assertThat(hit.field()).isEqualTo(CountrySearchIndex.Field.NAME);
+        assertThat(hit.distance()).isZero();
+    }
+
+    @Test
+    void matchesCapitalsAndCurrencyCodes() {
+        CountrySearchIndex.Hit capital = INDEX.search("brasilia", 5).get(0);
+        assertThat(capital.field()).isEqualTo(CountrySearchIndex.Field.CAPITAL);
+        assertThat(capital.value()).isEqualTo("Brasília");
+
+        assertThat(INDEX.search("xof", 5))
+                .extracting(hit -> hit.country().getName())
+                .containsExactly("Niger", "Côte d'Ivoire");
+        assertThat(INDEX.search("gbp", 5).get(0).field()).isEqualTo(CountrySearchIndex.Field.CURRENCY_CODE);
+    }
+
+    @Test
+    void toleratesTyposInLongerQueries() {
+        assertThat(names("nigeriq", 10)).containsExactly("Nigeria", "Niger");
+        assertThat(names("londno", 10)).containsExactly("United Kingdom");
+        assertThat(INDEX.search("brazl", 1).get(0).distance()).isEqualTo(1);
+        assertThat(INDEX.search("brazli", 1).get(0).distance()).isEqualTo(1);
+        // Too short to allow an edit, and the first character is never corrected
+        assertThat(names("nx", 10)).isEmpty();
+        assertThat(names("mondon", 10)).isEmpty();
+    }
+
+    @Test
+    void returnsOneHitPerCountryUpToTheLimit() {
+        assertThat(names("n", 2)).hasSize(2).doesNotHaveDuplicates();
+        assertThat(names("n", 10)).doesNotHaveDuplicates();
+        assertThat(names("   ", 10)).isEmpty();
+    }
+}
@@ -0,0 +1,91 @@
+package com.stagetwo.service;
+
+import com.stagetwo.entity.Country;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CountrySnapshotFileTest {
+    private static final LocalDateTime REFRESHED_AT = LocalDateTime.of(2025, 10, 22, 18, 0, 0, 123_456_789);
+
+    @TempDir
+    Path dir;
+
+    private static List<Country> countries() {
+        Country nigeria = new Country(1L, "Nigeria", "Abuja", "Africa", 206_139_589L, "NGN", 1600.23, 2.5e8,
+                "https://flagcdn.com/ng.svg", REFRESHED_AT);
+        nigeria.setSourceHash(-42L);
+        Country ghana = new Country(2L, "Ghana", "Accra", "Africa", 31_072_940L, "GHS", 10.5, 3.1e9,
+                "https://flagcdn.com/gh.svg", REFRESHED_AT);
+        // No currency, rate, GDP or capital
+        Country antarctica = new Country(3L, "Antarctica", null, "Polar", 1_000L, null, null, null, null, REFRESHED_AT);
+        return List.of(nigeria, ghana, antarctica);
+    }
+
+    @Test
+    void roundTripsEveryFieldAndTheImage() throws IOException {
+        CountrySnapshot snapshot = CountrySnapshot.of(3, 12, countries(), null).without("Ghana", 4, 13);
+        SummaryImage image = SummaryImage.of(new byte[]{1, 2, 3}, "image/png", Instant.ofEpochMilli(1_700_000_000_000L));
+        Path file = dir.resolve("countries.snapshot");
+
+        CountrySnapshotFile.write(file, snapshot, image);
+        CountrySnapshotFile.Contents contents = CountrySnapshotFile.read(file, 1);
+
+        assertThat(contents.snapshot().getVersion()).isEqualTo(1);
+        assertThat(contents.snapshot().getDatasetVersion()).isEqualTo(13);
+        assertThat(contents.snapshot().getCountries()).isEqualTo(snapshot.getCountries());
+        assertThat(contents.snapshot().getCountries().get(0).getSourceHash()).isEqualTo(-42L);
+        assertThat(contents.snapshot().getLastModified().toEpochMilli()).isEqualTo(snapshot.getLastModified().toEpochMilli());
+        assertThat(contents.snapshot().findByRegion("polar")).extracting(Country::getName).containsExactly("Antarctica");
+        assertThat(contents.image().bytes()).isEqualTo(image.bytes());
+        assertThat(contents.image().eTag()).isEqualTo(image.eTag());
+        assertThat(contents.image().renderedAt()).isEqualTo(image.renderedAt());
+    }
+
+    @Test
+    void snapshotsWithoutAnImageRoundTrip() throws IOException {
+        ByteBuffer encoded = CountrySnapshotFile.encode(CountrySnapshot.of(1, List.of()), null);
+
+        CountrySnapshotFile.Contents contents = CountrySnapshotFile.decode(encoded, 5);
+
+        assertThat(contents.snapshot().size()).isZero();
+        assertThat(contents.snapshot().getLastModified()).isNull();
+        assertThat(contents.image()).isNull();
+    }
+
+    @Test
+    void rejectsDamagedTruncatedAndOtherVersionFiles() throws IOException {
+        Path file = dir.resolve("countries.snapshot");
+        CountrySnapshotFile.write(file, CountrySnapshot.of(1, countries()), null);
+        byte[] bytes = Files.readAllBytes(file);
+
+        byte[] damaged = bytes.clone();
+        damaged[damaged.length / 2] ^= 1;
+        Files.write(file, damaged);
+        assertThatThrownBy(() -> CountrySnapshotFile.read(file, 1)).hasMessageContaining("checksum");
+
+        Files.write(file, Arrays.copyOf(bytes, 20));
+        assertThatThrownBy(() -> CountrySnapshotFile.read(file, 1)).isInstanceOf(IOException.class);
+
+        ByteBuffer otherVersion = CountrySnapshotFile.encode(CountrySnapshot.of(1, countries()), null);
+        otherVersion.putInt(4, CountrySnapshotFile.FORMAT_VERSION + 1);
+        CRC32C crc = new CRC32C();
+        crc.update(otherVersion.slice(0, otherVersion.limit() - Long.BYTES));
+        otherVersion.putLong(otherVersion.limit() - Long.BYTES, crc.getValue());
+        assertThatThrownBy(() -> CountrySnapshotFile.decode(otherVersion, 1)).hasMessageContaining("version");
+
+        assertThat(new CountrySnapshotStore(file.toString()).restore(1)).isEmpty();
+    }
+}
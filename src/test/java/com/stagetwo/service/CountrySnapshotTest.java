@@ -0,0 +1,104 @@
+package com.stagetwo.service;
+
+import com.stagetwo.entity.Country;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CountrySnapshotTest {
+
+    private static Country country(long id, String name, String region, String currency, LocalDateTime refreshedAt) {
+        return new Country(id, name, "Capital", region, 1_000L, currency, 1.0, 1_000.0, null, refreshedAt);
+    }
+
+    private static Country country(long id, String name, String region, Double estimatedGdp) {
+        return new Country(id, name, "Capital", region, 1_000L, "USD", 1.0, estimatedGdp, null, null);
+    }
+
+    @Test
+    void indexesAreCaseInsensitive() {
+        LocalDateTime latest = LocalDateTime.of(2025, 10, 22, 18, 0);
+        CountrySnapshot snapshot = CountrySnapshot.of(1, List.of(
+                country(1, "Nigeria", "Africa", "NGN", latest.minusDays(1)),
+                country(2, "Ghana", "Africa", "GHS", latest),
+                country(3, "France", "Europe", "EUR", null)));
+
+        assertThat(snapshot.findByName("nIGERIA")).get().extracting(Country::getId).isEqualTo(1L);
+        assertThat(snapshot.findByRegion("AFRICA")).extracting(Country::getName).containsExactly("Nigeria", "Ghana");
+        assertThat(snapshot.findByCurrencyCode("eur")).extracting(Country::getName).containsExactly("France");
+        assertThat(snapshot.findByRegion("Polar")).isEmpty();
+        assertThat(snapshot.getLastRefreshedAt()).isEqualTo(latest);
+    }
+
+    @Test
+    void withoutProducesNewVersionAndLeavesOriginalIntact() {
+        CountrySnapshot snapshot = CountrySnapshot.of(4, List.of(
+                country(1, "Nigeria", "Africa", "NGN", null),
+                country(2, "Ghana", "Africa", "GHS", null)));
+
+        CountrySnapshot next = snapshot.without("ghana", 5);
+
+        assertThat(next.getVersion()).isEqualTo(5);
+        assertThat(next.findByName("Ghana")).isEmpty();
+        assertThat(next.findByCurrencyCode("GHS")).isEmpty();
+        assertThat(next.findByRegion("Africa")).extracting(Country::getName).containsExactly("Nigeria");
+        assertThat(snapshot.size()).isEqualTo(2);
+        assertThat(snapshot.findByName("Ghana")).isPresent();
+    }
+
+    @Test
+    void contentHashDependsOnTheCountriesOnly() {
+        List<Country> countries = List.of(
+                country(1, "Nigeria", "Africa", "NGN", null),
+                country(2, "Ghana", "Africa", "GHS", null));
+        CountrySnapshot snapshot = CountrySnapshot.of(4, 9, countries, null);
+
+        assertThat(CountrySnapshot.of(1, 12, countries.reversed(), null).getContentHash())
+                .isEqualTo(snapshot.getContentHash());
+        assertThat(snapshot.without("Ghana", 5).getContentHash()).isNotEqualTo(snapshot.getContentHash());
+        Country withoutCapital = country(2, "Ghana", "Africa", "GHS", null);
+        withoutCapital.setCapital(null);
+        assertThat(CountrySnapshot.of(4, 9, List.of(countries.get(0), withoutCapital), null).getContentHash())
+                .isNotEqualTo(snapshot.getContentHash());
+    }
+
+    @Test
+    void gdpOrderingsArePrecomputedPerPartition() {
+        CountrySnapshot snapshot = CountrySnapshot.of(1, List.of(
+                country(1, "A", "Africa", 10.0),
+                country(2, "B", "Europe", 30.0),
+                country(3, "C", "Africa", null),
+                country(4, "D", "Africa", 20.0),
+                country(5, "E", "Europe", 30.0)));
+
+        assertThat(snapshot.getCountries(CountrySnapshot.GdpOrder.DESC))
+                .extracting(Country::getName).containsExactly("B", "E", "D", "A", "C");
+        assertThat(snapshot.getCountries(CountrySnapshot.GdpOrder.ASC))
+                .extracting(Country::getName).containsExactly("C", "A", "D", "E", "B");
+        assertThat(snapshot.findByRegion("africa", CountrySnapshot.GdpOrder.DESC))
+                .extracting(Country::getName).containsExactly("D", "A", "C");
+        assertThat(snapshot.findByCurrencyCode("usd", CountrySnapshot.GdpOrder.NONE))
+                .extracting(Country::getName).containsExactly("A", "B", "C", "D", "E");
+        assertThat(snapshot.topByGdp(3)).extracting(Country::getName).containsExactly("B", "E", "D");
+        assertThat(snapshot.topByGdp(10)).extracting(Country::getName).containsExactly("B", "E", "D", "A");
+    }
+
+    @Test
+    void combinedFiltersKeepThePartitionOrder() {
+        CountrySnapshot snapshot = CountrySnapshot.of(1, List.of(
+                new Country(4L, "D", "Capital", "Africa", 1_000L, "XOF", 1.0, 20.0, null, null),
+                new Country(1L, "A", "Capital", "Africa", 1_000L, "XOF", 1.0, 10.0, null, null),
+                new Country(2L, "B", "Capital", "Europe", 1_000L, "XOF", 1.0, 30.0, null, null),
+                new Country(3L, "C", "Capital", "Africa", 1_000L, "NGN", 1.0, 40.0, null, null)));
+
+        assertThat(snapshot.getCountries()).extracting(Country::getName).containsExactly("A", "B", "C", "D");
+        assertThat(snapshot.find("africa", "xof", CountrySnapshot.GdpOrder.DESC))
+                .extracting(Country::getName).containsExactly("D", "A");
+        assertThat(snapshot.find(null, "XOF", CountrySnapshot.GdpOrder.ASC))
+                .extracting(Country::getName).containsExactly("A", "D", "B");
+        assertThat(snapshot.find("Europe", "NGN", CountrySnapshot.GdpOrder.NONE)).isEmpty();
+    }
+}
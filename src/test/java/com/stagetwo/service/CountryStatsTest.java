@@ -0,0 +1,111 @@
+package com.stagetwo.service;
+
+import com.stagetwo.entity.Country;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class CountryStatsTest {
+
+    private static Country country(long id, String name, String region, String currency, long population,
+                                   Double rate, Double gdp) {
+        return new Country(id, name, "Capital", region, population, currency, rate, gdp, null, null);
+    }
+
+    private static final List<Country> COUNTRIES = List.of(
+            country(1, "Nigeria", "Africa", "NGN", 200, 1500.0, 900.0),
+            country(2, "Togo", "Africa", "XOF", 10, 560.0, 40.0),
+            country(3, "Senegal", "africa", "XOF", 20, 560.0, 60.0),
+            country(4, "Benin", "Africa", "XOF", 15, 560.0, null),
+            country(5, "France", "Europe", "EUR", 70, 0.9, 800.0),
+            country(6, "Antarctica", null, null, 0, null, null));
+
+    @Test
+    void aggregatesEachRegionAndCurrency() {
+        CountryStats stats = CountrySnapshot.of(1, COUNTRIES).getStats();
+
+        assertThat(stats.groups(CountryStats.GroupBy.REGION)).extracting(CountryStats.Group::name)
+                .containsExactly("Africa", "Europe");
+        CountryStats.Group africa = stats.groups(CountryStats.GroupBy.REGION).get(0);
+        assertThat(africa.countries()).isEqualTo(4);
+        assertThat(africa.population()).isEqualTo(245);
+        assertThat(africa.countriesWithGdp()).isEqualTo(3);
+        assertThat(africa.gdpSum()).isEqualTo(1000.0);
+        assertThat(africa.gdpAverage()).isEqualTo(1000.0 / 3);
+        assertThat(africa.gdpMax()).isEqualTo(900.0);
+        assertThat(africa.exchangeRateSpread()).isEqualTo(940.0);
+
+        CountryStats.Group xof = stats.groups(CountryStats.GroupBy.CURRENCY).get(2);
+        assertThat(xof.name()).isEqualTo("XOF");
+        assertThat(xof.countries()).isEqualTo(3);
+        assertThat(xof.exchangeRateSpread()).isZero();
+    }
+
+    @Test
+    void deletesUpdateOnlyTheAffectedGroups() {
+        CountrySnapshot snapshot = CountrySnapshot.of(1, COUNTRIES);
+
+        // Togo holds no extreme of Africa, so its figures are subtracted
+        CountrySnapshot withoutTogo = snapshot.without("togo", 2);
+        CountryStats.Group africa = withoutTogo.getStats().groups(CountryStats.GroupBy.REGION).get(0);
+        assertThat(africa.countries()).isEqualTo(3);
+        assertThat(africa.gdpSum()).isEqualTo(960.0);
+        assertThat(africa.gdpMax()).isEqualTo(900.0);
+        assertThat(withoutTogo.getStats().groups(CountryStats.GroupBy.REGION).get(1))
+                .isSameAs(snapshot.getStats().groups(CountryStats.GroupBy.REGION).get(1));
+
+        // Nigeria held the GDP maximum and the top rate, so Africa is rescanned
+        CountrySnapshot withoutNigeria = withoutTogo.without("Nigeria", 3);
+        africa = withoutNigeria.getStats().groups(CountryStats.GroupBy.REGION).get(0);
+        assertThat(africa.countries()).isEqualTo(2);
+        assertThat(africa.gdpMax()).isEqualTo(60.0);
+        assertThat(africa.exchangeRateSpread()).isZero();
+        assertThat(withoutNigeria.getStats().groups(CountryStats.GroupBy.CURRENCY))
+                .extracting(CountryStats.Group::name).containsExactly("EUR", "XOF");
+
+        // The last country of a group removes the group
+        assertThat(withoutNigeria.without("France", 4).getStats().groups(CountryStats.GroupBy.REGION))
+                .extracting(CountryStats.Group::name).containsExactly("Africa");
+    }
+
+    @Test
+    void incrementalDeletesMatchARebuild() {
+        Random random = new Random(3);
+        List<Country> countries = new ArrayList<>();
+        for (int i = 0; i < CountryStats.PARALLEL_THRESHOLD + 500; i++) {
+            Double gdp = random.nextInt(10) == 0 ? null : (double) random.nextInt(5000);
+            countries.add(country(i + 1, "Country " + i, "Region " + random.nextInt(6), "C" + random.nextInt(40),
+                    random.nextInt(1_000_000), (double) random.nextInt(1000), gdp));
+        }
+        CountrySnapshot snapshot = CountrySnapshot.of(1, countries);
+        for (int i = 0; i < 200; i++) {
+            snapshot = snapshot.without("Country " + random.nextInt(countries.size()), snapshot.getVersion() + 1);
+        }
+        CountryStats rebuilt = CountrySnapshot.of(1, snapshot.getCountries()).getStats();
+
+        for (CountryStats.GroupBy groupBy : CountryStats.GroupBy.values()) {
+            List<CountryStats.Group> expected = rebuilt.groups(groupBy);
+            List<CountryStats.Group> actual = snapshot.getStats().groups(groupBy);
+            assertThat(actual).hasSameSizeAs(expected);
+            for (int i = 0; i < expected.size(); i++) {
+                // Sums drift by rounding when values are subtracted instead of re-added
+                assertThat(actual.get(i).gdpSum()).isCloseTo(expected.get(i).gdpSum(), within(1e-6));
+                assertThat(actual.get(i)).usingRecursiveComparison().ignoringFields("gdpSum").isEqualTo(expected.get(i));
+            }
+        }
+    }
+
+    @Test
+    void parsesGroupBy() {
+        assertThat(CountryStats.GroupBy.parse(null)).isEqualTo(CountryStats.GroupBy.REGION);
+        assertThat(CountryStats.GroupBy.parse("Currency")).isEqualTo(CountryStats.GroupBy.CURRENCY);
+        assertThatThrownBy(() -> CountryStats.GroupBy.parse("capital"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,85 @@
+package com.stagetwo.service;
+
+import com.stagetwo.dto.ConversionBatchRequestDto;
+import com.stagetwo.dto.ConversionResponseDto;
+import com.stagetwo.dto.ExchangeRateResponseDto;
+import com.stagetwo.event.ExchangeRatesUpdatedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+
+class ExchangeRateServiceTest {
+    private final ExchangeRateService exchangeRateService = new ExchangeRateService(mock(ApplicationEventPublisher.class));
+
+    private static ExchangeRatesUpdatedEvent rates(Map<String, Double> rates) {
+        ExchangeRateResponseDto dto = new ExchangeRateResponseDto();
+        dto.setBaseCode("USD");
+        dto.setTimeLastUpdateUtc("Wed, 22 Oct 2025 00:00:01 +0000");
+        dto.setRates(rates);
+        return new ExchangeRatesUpdatedEvent(dto);
+    }
+
+    private static ConversionBatchRequestDto.Item item(String from, String to, double amount) {
+        ConversionBatchRequestDto.Item item = new ConversionBatchRequestDto.Item();
+        item.setFrom(from);
+        item.setTo(to);
+        item.setAmount(amount);
+        return item;
+    }
+
+    @Test
+    void tableInternsCodesCaseInsensitivelyAndSkipsUnusableRates() {
+        Map<String, Double> upstream = new LinkedHashMap<>();
+        upstream.put("USD", 1.0);
+        upstream.put("NGN", 1600.0);
+        upstream.put("XXXX", 2.0);
+        upstream.put("ZWL", 0.0);
+        upstream.put("GHS", null);
+        ExchangeRateTable table = ExchangeRateTable.of("USD", null, upstream);
+
+        assertThat(table.size()).isEqualTo(2);
+        assertThat(table.indexOf("ngn")).isEqualTo(table.indexOf("NGN")).isNotNegative();
+        assertThat(table.indexOf("ZWL")).isEqualTo(-1);
+        assertThat(table.indexOf("US")).isEqualTo(-1);
+        assertThat(table.indexOf("U$D")).isEqualTo(-1);
+        assertThat(table.indexOf("EUR")).isEqualTo(-1);
+    }
+
+    @Test
+    void convertsThroughTheBaseCurrency() {
+        exchangeRateService.onExchangeRatesUpdated(rates(Map.of("USD", 1.0, "NGN", 1600.0, "GHS", 12.5)));
+
+        ConversionResponseDto response = exchangeRateService.convert("ghs", "NGN", 25);
+
+        assertThat(response.getFrom()).isEqualTo("GHS");
+        assertThat(response.getRate()).isCloseTo(128.0, within(1e-9));
+        assertThat(response.getResult()).isCloseTo(3200.0, within(1e-9));
+        assertThat(response.getRatesUpdatedAt()).startsWith("Wed, 22 Oct 2025");
+        assertThat(exchangeRateService.convertAll(List.of(item("USD", "NGN", 2), item("NGN", "USD", 800))).getResults())
+                .containsExactly(3200.0, 0.5);
+    }
+
+    @Test
+    void rejectsUnknownCurrenciesAndMissingRates() {
+        assertThatThrownBy(() -> exchangeRateService.convert("USD", "NGN", 1))
+                .isInstanceOf(NoSuchElementException.class);
+
+        exchangeRateService.onExchangeRatesUpdated(rates(Map.of("USD", 1.0, "NGN", 1600.0)));
+
+        assertThatThrownBy(() -> exchangeRateService.convert("USD", "ABC", 1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown currency: ABC");
+        assertThatThrownBy(() -> exchangeRateService.convertAll(List.of(item("USD", "NGN", 1), item("ABC", "NGN", 1))))
+                .isInstanceOfSatisfying(ExchangeRateService.ConversionException.class, e ->
+                        assertThat(e.getErrors()).containsOnlyKeys("conversions[1].from"));
+    }
+}
@@ -0,0 +1,157 @@
+package com.stagetwo.service;
+
+import com.stagetwo.entity.Country;
+import com.stagetwo.event.CountrySnapshotPublishedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ImageGenerationServiceTest {
+    private static final LocalDateTime REFRESHED_AT = LocalDateTime.of(2025, 10, 22, 18, 0);
+
+    @TempDir
+    Path cacheDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountrySnapshotService countrySnapshotService = mock(CountrySnapshotService.class);
+
+    private static Country country(long id, String name, double gdp) {
+        return new Country(id, name, "Capital", "Africa", 1_000L, "NGN", 1.0, gdp, null, REFRESHED_AT);
+    }
+
+    @Test
+    void rendersPublishedSnapshotsAndSkipsUnchangedSummaries() throws Exception {
+        ImageGenerationService service = service();
+        List<Country> countries = List.of(country(1, "Nigeria", 500.0), country(2, "Ghana", 300.0));
+
+        service.onSnapshotPublished(new CountrySnapshotPublishedEvent(CountrySnapshot.of(1, countries)));
+
+        File image = service.getSummaryImage();
+        assertThat(image).isNotNull();
+        assertThat(service.getCurrentImage().bytes()).isEqualTo(Files.readAllBytes(image.toPath()));
+        assertThat(ImageIO.read(image).getWidth()).isEqualTo(800);
+        assertThat(renders()).isEqualTo(1);
+        assertThat(meterRegistry.timer("summary.image.encode").count()).isEqualTo(1);
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            assertThat(files).extracting(path -> path.getFileName().toString()).containsExactly("summary.png");
+        }
+
+        // Same total and top countries under a new version: nothing to redraw
+        service.onSnapshotPublished(new CountrySnapshotPublishedEvent(CountrySnapshot.of(2, countries)));
+        assertThat(renders()).isEqualTo(1);
+
+        service.onSnapshotPublished(new CountrySnapshotPublishedEvent(
+                CountrySnapshot.of(3, countries).without("Ghana", 3)));
+        assertThat(renders()).isEqualTo(2);
+    }
+
+    @Test
+    void neverRefreshedSnapshotsAreNotRendered() {
+        ImageGenerationService service = service();
+
+        service.onSnapshotPublished(new CountrySnapshotPublishedEvent(CountrySnapshot.of(1, List.of())));
+
+        assertThat(service.getSummaryImage()).isNull();
+        assertThat(renders()).isZero();
+    }
+
+    @Test
+    void variantsAreRenderedOnceAndCachedPerVersion() throws Exception {
+        ImageGenerationService service = service();
+        CountrySnapshot snapshot = CountrySnapshot.of(7, List.of(
+                country(1, "Nigeria", 500.0), country(2, "Ghana", 300.0)));
+        when(countrySnapshotService.current()).thenReturn(snapshot);
+
+        SummaryImage thumbnail = service.getVariant(200, "jpeg", "africa");
+
+        assertThat(thumbnail.contentType()).isEqualTo("image/jpeg");
+        assertThat(ImageIO.read(new ByteArrayInputStream(thumbnail.bytes())).getWidth()).isEqualTo(200);
+        assertThat(service.getVariant(200, "JPG", "Africa")).isSameAs(thumbnail);
+        assertThat(renders()).isEqualTo(1);
+
+        when(countrySnapshotService.current()).thenReturn(snapshot.without("Ghana", 8));
+        assertThat(service.getVariant(200, "jpeg", "africa")).isNotSameAs(thumbnail);
+
+        assertThatThrownBy(() -> service.getVariant(null, "webp", null)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.getVariant(5000, null, null)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.getVariant(null, null, "Atlantis")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void concurrentMissesOnOneVariantShareOneRender() throws Exception {
+        ImageGenerationService service = service();
+        when(countrySnapshotService.current()).thenReturn(CountrySnapshot.of(7, List.of(
+                country(1, "Nigeria", 500.0), country(2, "Ghana", 300.0))));
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<SummaryImage>> requests;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            requests = IntStream.range(0, 8)
+                    .mapToObj(i -> executor.submit(() -> {
+                        start.await();
+                        return service.getVariant(400, "png", null);
+                    }))
+                    .toList();
+            start.countDown();
+        }
+        List<SummaryImage> images = requests.stream().map(Future::resultNow).toList();
+
+        assertThat(renders()).isEqualTo(1);
+        assertThat(images).allSatisfy(image -> assertThat(image).isSameAs(images.get(0)));
+    }
+
+    @Test
+    void storesRenderedSnapshotsAndServesRestoredOnesWithoutDrawing() {
+        CountrySnapshotStore store = new CountrySnapshotStore(cacheDir.resolve("countries.snapshot").toString());
+        ImageGenerationService service = service(store);
+        List<Country> countries = List.of(country(1, "Nigeria", 500.0), country(2, "Ghana", 300.0));
+
+        service.onSnapshotPublished(new CountrySnapshotPublishedEvent(CountrySnapshot.of(4, 9, countries, null)));
+
+        CountrySnapshotFile.Contents contents = store.restore(1).orElseThrow();
+        assertThat(contents.snapshot().getVersion()).isEqualTo(1);
+        assertThat(contents.snapshot().getDatasetVersion()).isEqualTo(9);
+        assertThat(contents.snapshot().getCountries()).isEqualTo(countries);
+        assertThat(contents.image().bytes()).isEqualTo(service.getCurrentImage().bytes());
+        assertThat(contents.image().eTag()).isEqualTo(service.getCurrentImage().eTag());
+
+        // After a restart the stored image is served as is, and the same summary is not redrawn
+        ImageGenerationService restarted = service(store);
+        restarted.onSnapshotPublished(new CountrySnapshotPublishedEvent(contents.snapshot(), contents.image()));
+        assertThat(restarted.getCurrentImage()).isSameAs(contents.image());
+        restarted.onSnapshotPublished(new CountrySnapshotPublishedEvent(CountrySnapshot.of(2, countries)));
+        assertThat(renders()).isEqualTo(1);
+    }
+
+    private ImageGenerationService service() {
+        return service(new CountrySnapshotStore(""));
+    }
+
+    private ImageGenerationService service(CountrySnapshotStore store) {
+        return new ImageGenerationService(cacheDir.toString(), 8, Runnable::run, countrySnapshotService, store,
+                meterRegistry);
+    }
+
+    private long renders() {
+        return meterRegistry.timer("summary.image.render").count();
+    }
+}
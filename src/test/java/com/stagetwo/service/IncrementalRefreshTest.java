@@ -0,0 +1,89 @@
+package com.stagetwo.service;
+
+import com.stagetwo.benchmark.SyntheticCountries;
+import com.stagetwo.dto.CountryResponseDto;
+import com.stagetwo.dto.ExchangeRateResponseDto;
+import com.stagetwo.entity.Country;
+import com.stagetwo.repository.CountryBatchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class IncrementalRefreshTest {
+    private static final int COUNTRIES = 20;
+
+    @Autowired
+    private CountryService countryService;
+    @Autowired
+    private CountryBatchRepository countryBatchRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private UpstreamFetchService upstreamFetchService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM countries");
+    }
+
+    private RefreshResult refresh(CountryResponseDto[] feed, ExchangeRateResponseDto rates) {
+        when(upstreamFetchService.fetch()).thenReturn(new UpstreamFetchService.UpstreamData(CountryFeed.of(feed), rates));
+        return countryService.refreshCountries();
+    }
+
+    @Test
+    void rewritesOnlyChangedCountriesAndRemovesVanishedOnes() {
+        CountryResponseDto[] feed = SyntheticCountries.feed(COUNTRIES);
+        ExchangeRateResponseDto rates = SyntheticCountries.rates(0);
+
+        assertThat(refresh(feed, rates)).isEqualTo(new RefreshResult(COUNTRIES, 0, 0, 0));
+        Map<String, Country> before = countryBatchRepository.findAllByName();
+        assertThat(refresh(feed, rates)).isEqualTo(new RefreshResult(0, 0, COUNTRIES, 0));
+        assertThat(countryBatchRepository.findAllByName().get("country 1").getLastRefreshedAt())
+                .isEqualTo(before.get("country 1").getLastRefreshedAt());
+
+        // Country 1 gains population, Country 2's currency moves and the last country vanishes
+        CountryResponseDto[] next = Arrays.copyOf(SyntheticCountries.feed(COUNTRIES), COUNTRIES - 1);
+        next[1].setPopulation(next[1].getPopulation() + 1);
+        ExchangeRateResponseDto nextRates = SyntheticCountries.rates(0);
+        Map<String, Double> moved = new HashMap<>(nextRates.getRates());
+        String currency2 = next[2].getCurrencies().get(0).getCode();
+        moved.put(currency2, moved.get(currency2) * 2);
+        nextRates.setRates(moved);
+
+        assertThat(refresh(next, nextRates)).isEqualTo(new RefreshResult(0, 2, COUNTRIES - 3, 1));
+        Map<String, Country> after = countryBatchRepository.findAllByName();
+        assertThat(after).hasSize(COUNTRIES - 1).doesNotContainKey("country " + (COUNTRIES - 1));
+        // Only the rate changed, so the GDP estimate keeps its multiplier and halves
+        assertThat(after.get("country 2").getEstimatedGdp())
+                .isCloseTo(before.get("country 2").getEstimatedGdp() / 2, within(1e-3));
+        assertThat(after.get("country 3").getSourceHash()).isEqualTo(before.get("country 3").getSourceHash());
+    }
+
+    @Test
+    void sourceHashIgnoresSurroundingWhitespaceAndTheExchangeRate() {
+        Country country = new Country(null, "Ghana", "Accra", "Africa", 31072940L, "GHS", 12.5, null, "https://flagcdn.com/gh.svg", null);
+        Country padded = new Country(null, " Ghana ", "Accra", "Africa", 31072940L, "GHS", 13.0, null, "https://flagcdn.com/gh.svg", null);
+        Country noCapital = new Country(null, "Ghana", null, "Africa", 31072940L, "GHS", 12.5, null, "https://flagcdn.com/gh.svg", null);
+        Country emptyCapital = new Country(null, "Ghana", "", "Africa", 31072940L, "GHS", 12.5, null, "https://flagcdn.com/gh.svg", null);
+
+        assertThat(CountryService.sourceHash(padded)).isEqualTo(CountryService.sourceHash(country));
+        assertThat(CountryService.sourceHash(noCapital)).isNotEqualTo(CountryService.sourceHash(emptyCapital));
+        assertThat(CountryService.sourceHash(noCapital)).isNotEqualTo(CountryService.sourceHash(country));
+    }
+}
@@ -0,0 +1,106 @@
+package com.stagetwo.service;
+
+import com.stagetwo.dto.ExchangeRateResponseDto;
+import com.stagetwo.dto.RateHistoryResponseDto;
+import com.stagetwo.event.ExchangeRatesUpdatedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RateHistoryServiceTest {
+    @Autowired
+    private RateHistoryService rateHistoryService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM exchange_rate_history");
+    }
+
+    private void record(String updatedAt, double kes) {
+        ExchangeRateResponseDto dto = new ExchangeRateResponseDto();
+        dto.setBaseCode("USD");
+        dto.setTimeLastUpdateUtc(updatedAt);
+        dto.setRates(Map.of("USD", 1.0, "KES", kes));
+        rateHistoryService.onExchangeRatesUpdated(new ExchangeRatesUpdatedEvent(dto));
+    }
+
+    @Test
+    void recordsEachUpstreamUpdateOnceAndAnswersPointInTimeLookups() {
+        record("Mon, 20 Oct 2025 00:00:01 +0000", 129.0);
+        record("Mon, 20 Oct 2025 00:00:01 +0000", 129.0);
+        record("Tue, 21 Oct 2025 00:00:01 +0000", 130.0);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM exchange_rate_history", Long.class)).isEqualTo(4);
+        assertThat(rateHistoryService.getRate("kes", Instant.parse("2025-10-20T12:00:00Z")).getRate()).isEqualTo(129.0);
+        assertThat(rateHistoryService.getRate("KES", Instant.parse("2025-10-22T00:00:00Z")).getObservedAt())
+                .isEqualTo("2025-10-21T00:00:01Z");
+        assertThatThrownBy(() -> rateHistoryService.getRate("KES", Instant.parse("2025-10-19T00:00:00Z")))
+                .isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    void downsamplesRangesIntoBuckets() {
+        // Sunday 19th ends one ISO week, Monday 20th to Wednesday 22nd start the next
+        record("Sun, 19 Oct 2025 00:00:01 +0000", 128.0);
+        record("Mon, 20 Oct 2025 00:00:01 +0000", 129.0);
+        record("Mon, 20 Oct 2025 12:00:01 +0000", 131.0);
+        record("Wed, 22 Oct 2025 00:00:01 +0000", 133.0);
+        Instant from = Instant.parse("2025-10-01T00:00:00Z");
+        Instant to = Instant.parse("2025-11-01T00:00:00Z");
+
+        assertThat(rateHistoryService.getHistory("KES", from, to, RateHistoryService.Interval.RAW).getPoints()).hasSize(4);
+
+        RateHistoryResponseDto daily = rateHistoryService.getHistory("KES", from, to, RateHistoryService.Interval.DAY);
+        assertThat(daily.getBaseCode()).isEqualTo("USD");
+        assertThat(daily.getBuckets()).extracting(RateHistoryResponseDto.Bucket::getStart)
+                .containsExactly("2025-10-19T00:00:00Z", "2025-10-20T00:00:00Z", "2025-10-22T00:00:00Z");
+        RateHistoryResponseDto.Bucket monday = daily.getBuckets().get(1);
+        assertThat(monday.getMin()).isEqualTo(129.0);
+        assertThat(monday.getMax()).isEqualTo(131.0);
+        assertThat(monday.getAvg()).isEqualTo(130.0);
+        assertThat(monday.getSamples()).isEqualTo(2);
+
+        RateHistoryResponseDto weekly = rateHistoryService.getHistory("KES", from, to, RateHistoryService.Interval.WEEK);
+        assertThat(weekly.getBuckets()).extracting(RateHistoryResponseDto.Bucket::getSamples).containsExactly(1, 3);
+    }
+
+    @Test
+    void exposesRatesOverHttp() throws Exception {
+        record("Mon, 20 Oct 2025 00:00:01 +0000", 129.0);
+
+        mockMvc.perform(get("/rates/KES").param("at", "2025-10-21"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rate").value(129.0))
+                .andExpect(jsonPath("$.observed_at").value("2025-10-20T00:00:01Z"));
+        mockMvc.perform(get("/rates/KES").param("at", "2025-10-01"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/rates/KES/history").param("from", "2025-10-01").param("to", "2025-11-01")
+                        .param("interval", "week"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.buckets[0].start").value("2025-10-20T00:00:00Z"));
+        mockMvc.perform(get("/rates/KES/history").param("interval", "hour"))
+                .andExpect(status().isBadRequest());
+    }
+}
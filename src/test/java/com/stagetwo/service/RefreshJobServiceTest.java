@@ -0,0 +1,222 @@
+package com.stagetwo.service;
+
+import com.stagetwo.config.ClusterProperties;
+import com.stagetwo.dto.RefreshJobResponseDto;
+import com.stagetwo.event.RefreshJobUpdatedEvent;
+import com.stagetwo.exception.RefreshLeaseLostException;
+import com.stagetwo.exception.UpstreamUnavailableException;
+import com.stagetwo.repository.ClusterLeaseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RefreshJobServiceTest {
+    private final CountryService countryService = mock(CountryService.class);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final ClusterLeaseRepository leases = mock(ClusterLeaseRepository.class);
+    private final ClusterProperties clusterProperties = new ClusterProperties();
+    private final List<Object> events = new CopyOnWriteArrayList<>();
+    private final RefreshJobService refreshJobService =
+            new RefreshJobService(countryService, executor, leases, clusterProperties, events::add);
+
+    @BeforeEach
+    void freeLease() {
+        clusterProperties.setInstanceId("this");
+        clusterProperties.setLeaseRetryInterval(Duration.ofMillis(10));
+        when(leases.tryAcquire(eq(RefreshJobService.REFRESH_LEASE), eq("this"), any(Duration.class))).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentTriggersJoinTheRunningJob() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            RefreshProgress progress = invocation.getArgument(0);
+            progress.enterPhase("fetch");
+            release.await(5, TimeUnit.SECONDS);
+            progress.enterPhase("persist");
+            return null;
+        }).when(countryService).refreshCountries(any(RefreshProgress.class));
+
+        RefreshJob first = refreshJobService.trigger();
+        RefreshJob second = refreshJobService.trigger();
+
+        assertThat(second).isSameAs(first);
+        assertThat(refreshJobService.isRefreshing()).isTrue();
+        await().until(() -> "fetch".equals(first.toResponse().getCurrentPhase()));
+
+        release.countDown();
+        await().until(first::isDone);
+
+        RefreshJobResponseDto response = refreshJobService.findJob(first.getId()).orElseThrow().toResponse();
+        assertThat(response.getStatus()).isEqualTo("succeeded");
+        assertThat(response.getPhases()).extracting(RefreshJobResponseDto.Phase::getName).containsExactly("lease", "fetch", "persist");
+        assertThat(response.getRefreshedBy()).isEqualTo("this");
+        assertThat(refreshJobService.isRefreshing()).isFalse();
+        verify(countryService, times(1)).refreshCountries(any(RefreshProgress.class));
+        verify(leases).release(RefreshJobService.REFRESH_LEASE, "this");
+
+        RefreshJob next = refreshJobService.trigger();
+        assertThat(next.getId()).isNotEqualTo(first.getId());
+    }
+
+    @Test
+    void failedRefreshIsReportedOnTheJob() {
+        doThrow(new UpstreamUnavailableException(UpstreamFetchService.COUNTRIES_API))
+                .when(countryService).refreshCountries(any(RefreshProgress.class));
+
+        RefreshJob job = refreshJobService.trigger();
+        await().until(job::isDone);
+
+        RefreshJobResponseDto response = job.toResponse();
+        assertThat(response.getStatus()).isEqualTo("failed");
+        assertThat(response.getError().getError()).isEqualTo("External data source unavailable");
+        assertThat(response.getError().getDetails()).isEqualTo("Could not fetch data from RestCountries API");
+        await().until(() -> events.size() == 2);
+        assertThat(events).map(event -> ((RefreshJobUpdatedEvent) event).job().getStatus())
+                .containsExactly("running", "failed");
+    }
+
+    @Test
+    void refreshOutlastingTheLeaseKeepsRenewingIt() {
+        clusterProperties.setRefreshLease(Duration.ofMillis(90));
+        when(leases.renew(eq(RefreshJobService.REFRESH_LEASE), eq("this"), any(Duration.class))).thenReturn(true);
+        when(leases.commit(eq(RefreshJobService.REFRESH_LEASE), eq("this"), any(Duration.class))).thenReturn(true);
+        doAnswer(invocation -> {
+            RefreshProgress progress = invocation.getArgument(0);
+            Thread.sleep(400);
+            progress.beforeCommit();
+            return null;
+        }).when(countryService).refreshCountries(any(RefreshProgress.class));
+
+        RefreshJob job = refreshJobService.trigger();
+        await().until(job::isDone);
+
+        assertThat(job.getStatus()).isEqualTo(RefreshJob.Status.SUCCEEDED);
+        // Every 30 ms while the refresh ran, and once more before it committed
+        verify(leases, atLeast(5)).renew(eq(RefreshJobService.REFRESH_LEASE), eq("this"), any(Duration.class));
+        verify(leases).commit(eq(RefreshJobService.REFRESH_LEASE), eq("this"), any(Duration.class));
+        verify(leases).release(RefreshJobService.REFRESH_LEASE, "this");
+    }
+
+    @Test
+    void refreshThatLostTheLeaseFailsBeforeCommitting() {
+        clusterProperties.setRefreshLease(Duration.ofMillis(90));
+        when(leases.renew(eq(RefreshJobService.REFRESH_LEASE), eq("this"), any(Duration.class))).thenReturn(false);
+        when(leases.commit(eq(RefreshJobService.REFRESH_LEASE), eq("this"), any(Duration.class))).thenReturn(false);
+        doAnswer(invocation -> {
+            RefreshProgress progress = invocation.getArgument(0);
+            Thread.sleep(200);
+            progress.beforeCommit();
+            return null;
+        }).when(countryService).refreshCountries(any(RefreshProgress.class));
+
+        RefreshJob job = refreshJobService.trigger();
+        await().until(job::isDone);
+
+        RefreshJobResponseDto response = job.toResponse();
+        assertThat(response.getStatus()).isEqualTo("failed");
+        assertThat(response.getError().getError()).isEqualTo("Refresh lease lost");
+        assertThat(response.getError().getDetails()).isEqualTo(new RefreshLeaseLostException("this").getMessage());
+    }
+
+    @Test
+    void waitsForAndReportsARefreshRunningOnAnotherInstance() {
+        when(leases.tryAcquire(eq(RefreshJobService.REFRESH_LEASE), eq("this"), any(Duration.class)))
+                .thenReturn(false, false, true);
+        when(leases.holder(RefreshJobService.REFRESH_LEASE)).thenReturn(Optional.of("other"));
+        when(leases.generation(RefreshJobService.REFRESH_LEASE)).thenReturn(4L, 5L);
+
+        RefreshJob job = refreshJobService.trigger();
+        await().until(job::isDone);
+
+        RefreshJobResponseDto response = job.toResponse();
+        assertThat(response.getStatus()).isEqualTo("succeeded");
+        assertThat(response.getRefreshedBy()).isEqualTo("other");
+        assertThat(response.getResult()).isNull();
+        verify(countryService, never()).refreshCountries(any(RefreshProgress.class));
+        verify(leases).release(RefreshJobService.REFRESH_LEASE, "this");
+    }
+
+    @Test
+    void refreshesItselfWhenTheOtherInstancesRefreshDidNotCommit() {
+        when(leases.tryAcquire(eq(RefreshJobService.REFRESH_LEASE), eq("this"), any(Duration.class)))
+                .thenReturn(false, false, true);
+        when(leases.holder(RefreshJobService.REFRESH_LEASE)).thenReturn(Optional.of("other"));
+        when(leases.generation(RefreshJobService.REFRESH_LEASE)).thenReturn(4L);
+        when(leases.commit(eq(RefreshJobService.REFRESH_LEASE), eq("this"), any(Duration.class))).thenReturn(true);
+        doAnswer(invocation -> {
+            invocation.<RefreshProgress>getArgument(0).beforeCommit();
+            return null;
+        }).when(countryService).refreshCountries(any(RefreshProgress.class));
+
+        RefreshJob job = refreshJobService.trigger();
+        await().until(job::isDone);
+
+        assertThat(job.getStatus()).isEqualTo(RefreshJob.Status.SUCCEEDED);
+        assertThat(job.toResponse().getRefreshedBy()).isEqualTo("this");
+        verify(countryService).refreshCountries(any(RefreshProgress.class));
+        verify(leases).commit(eq(RefreshJobService.REFRESH_LEASE), eq("this"), any(Duration.class));
+        verify(leases).release(RefreshJobService.REFRESH_LEASE, "this");
+    }
+
+    @Test
+    void takesOverAndRefreshesWhenTheOtherInstanceDiedHoldingTheLease() {
+        when(leases.tryAcquire(eq(RefreshJobService.REFRESH_LEASE), eq("this"), any(Duration.class))).thenReturn(false);
+        when(leases.holder(RefreshJobService.REFRESH_LEASE)).thenReturn(Optional.of("other"));
+        when(leases.takeOver(eq(RefreshJobService.REFRESH_LEASE), eq("this"), any(Duration.class)))
+                .thenReturn(false, false, true);
+        // Had the dead instance committed before it died, its lease would still not count as released
+        when(leases.generation(RefreshJobService.REFRESH_LEASE)).thenReturn(4L, 5L);
+
+        RefreshJob job = refreshJobService.trigger();
+        await().until(job::isDone);
+
+        assertThat(job.getStatus()).isEqualTo(RefreshJob.Status.SUCCEEDED);
+        assertThat(job.toResponse().getRefreshedBy()).isEqualTo("this");
+        verify(countryService).refreshCountries(any(RefreshProgress.class));
+        verify(leases).release(RefreshJobService.REFRESH_LEASE, "this");
+    }
+
+    @Test
+    void waitForAnotherInstanceIsBounded() {
+        clusterProperties.setRefreshWait(Duration.ofMillis(100));
+        when(leases.tryAcquire(eq(RefreshJobService.REFRESH_LEASE), eq("this"), any(Duration.class))).thenReturn(false);
+        when(leases.holder(RefreshJobService.REFRESH_LEASE)).thenReturn(Optional.of("other"));
+
+        RefreshJob job = refreshJobService.trigger();
+        await().until(job::isDone);
+
+        RefreshJobResponseDto response = job.toResponse();
+        assertThat(response.getStatus()).isEqualTo("failed");
+        assertThat(response.getError().getError()).isEqualTo("Refresh still running on another instance");
+        verify(countryService, never()).refreshCountries(any(RefreshProgress.class));
+        verify(leases, never()).release(RefreshJobService.REFRESH_LEASE, "this");
+    }
+}
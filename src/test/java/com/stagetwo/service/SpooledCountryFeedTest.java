@@ -0,0 +1,63 @@
+package com.stagetwo.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.stagetwo.entity.Country;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpooledCountryFeedTest {
+    private static final int FEED_MB = 256;
+    private static final String HEAP_CAP = "-Xmx48m";
+
+    @Test
+    void mapsCountriesAndSkipsUnknownFields() throws Exception {
+        String json = """
+                [{"name":"Nigeria","capital":"Abuja","region":"Africa","population":206139589,
+                  "flag":"https://flagcdn.com/ng.svg","borders":["BEN","CMR"],"translations":{"fr":"Nigéria"},
+                  "currencies":[{"code":"NGN","name":"Naira"},{"code":"USD"}]},
+                 {"name":"Antarctica","region":"Polar","population":1000,"capital":null},
+                 {"name":"Nowhere","currencies":[null,{"code":"XXX"}],"population":null}]
+                """;
+        List<List<Country>> chunks = new ArrayList<>();
+
+        long count = SpooledCountryFeed.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)),
+                new JsonFactory(), 2, chunk -> chunks.add(List.copyOf(chunk)));
+
+        assertThat(count).isEqualTo(3);
+        assertThat(chunks).hasSize(2);
+        Country nigeria = chunks.get(0).get(0);
+        assertThat(nigeria.getCurrencyCode()).isEqualTo("NGN");
+        assertThat(nigeria.getPopulation()).isEqualTo(206139589L);
+        Country antarctica = chunks.get(0).get(1);
+        assertThat(antarctica.getCapital()).isNull();
+        assertThat(antarctica.getCurrencyCode()).isNull();
+        assertThat(chunks.get(1).get(0).getPopulation()).isNull();
+    }
+
+    /**
+     * Streams a synthetic feed several times larger than the heap through a child JVM started
+     * with a fixed -Xmx; an OutOfMemoryError there fails the test.
+     */
+    @Test
+    void largeFeedIsIngestedWithinFixedHeap() throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(java, HEAP_CAP, "-XX:+ExitOnOutOfMemoryError",
+                "-cp", System.getProperty("java.class.path"),
+                StreamingFeedHeapCheck.class.getName(), String.valueOf(FEED_MB))
+                .redirectErrorStream(true)
+                .start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+
+        assertThat(process.waitFor(5, TimeUnit.MINUTES)).isTrue();
+        assertThat(process.exitValue()).as(output).isZero();
+        assertThat(output).containsPattern("countries=\\d{6,}");
+    }
+}
@@ -0,0 +1,94 @@
+package com.stagetwo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stagetwo.config.UpstreamProperties;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Runs a streaming refresh fetch over a synthetic feed of the given size (in MB) served by a
+ * local HTTP server. Launched in a child JVM with a small -Xmx by {@link SpooledCountryFeedTest};
+ * prints the number of countries read.
+ */
+public class StreamingFeedHeapCheck {
+
+    public static void main(String[] args) throws Exception {
+        long feedBytes = Long.parseLong(args[0]) * 1024 * 1024;
+
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        ExecutorService serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/countries", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = new BufferedOutputStream(exchange.getResponseBody(), 64 * 1024)) {
+                writeFeed(out, feedBytes);
+            }
+        });
+        server.createContext("/rates", exchange -> {
+            byte[] body = "{\"base_code\":\"USD\",\"rates\":{\"USD\":1,\"CAA\":2.5}}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        String base = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        UpstreamProperties properties = new UpstreamProperties();
+        properties.setStreaming(true);
+        properties.getCountries().setUrl(base + "/countries");
+        properties.getExchangeRates().setUrl(base + "/rates");
+        Path lastKnownGood = Files.createTempDirectory("last-known-good-");
+        properties.setLastKnownGoodDir(lastKnownGood.toString());
+        RestTemplateBuilder builder = new RestTemplateBuilder();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            UpstreamFetchService service = new UpstreamFetchService(
+                    builder.build(), builder.build(), properties, executor, new ObjectMapper(), ObservationRegistry.NOOP, new SimpleMeterRegistry());
+            AtomicLong count = new AtomicLong();
+            try (CountryFeed feed = service.fetch().countries()) {
+                feed.forEachChunk(200, chunk -> count.addAndGet(chunk.size()));
+            }
+            System.out.println("countries=" + count.get());
+        } finally {
+            server.stop(0);
+            serverExecutor.shutdownNow();
+            try (Stream<Path> files = Files.list(lastKnownGood)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(lastKnownGood);
+        }
+    }
+
+    private static void writeFeed(OutputStream out, long feedBytes) throws java.io.IOException {
+        out.write('[');
+        long written = 1;
+        for (long i = 0; written < feedBytes; i++) {
+            String country = (i == 0 ? "" : ",") + "{\"name\":\"Country " + i + "\",\"capital\":\"Capital " + i
+                    + "\",\"region\":\"Africa\",\"population\":" + (1000 + i)
+                    + ",\"flag\":\"https://flagcdn.com/c" + i + ".svg\""
+                    + ",\"currencies\":[{\"code\":\"CAA\",\"name\":\"Synthetic\",\"symbol\":\"S\"}]"
+                    + ",\"translations\":{\"de\":\"Land " + i + "\",\"fr\":\"Pays " + i + "\",\"es\":\"Pais " + i + "\"}}";
+            byte[] bytes = country.getBytes(StandardCharsets.UTF_8);
+            out.write(bytes);
+            written += bytes.length;
+        }
+        out.write(']');
+    }
+}
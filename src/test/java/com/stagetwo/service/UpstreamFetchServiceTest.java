@@ -0,0 +1,207 @@
+package com.stagetwo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stagetwo.config.AppConfig;
+import com.stagetwo.config.UpstreamProperties;
+import com.stagetwo.entity.Country;
+import com.stagetwo.exception.UpstreamUnavailableException;
+import com.stagetwo.support.StubUpstreamServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UpstreamFetchServiceTest {
+    private static final String COUNTRIES_JSON = """
+            [{"name":"Nigeria","capital":"Abuja","region":"Africa","population":206139589,
+              "flag":"https://flagcdn.com/ng.svg","currencies":[{"code":"NGN","name":"Naira","symbol":"N"}]}]
+            """;
+    private static final String RATES_JSON = """
+            {"base_code":"USD","time_last_update_utc":"Wed, 22 Oct 2025 00:02:31 +0000","rates":{"USD":1,"NGN":1600.23}}
+            """;
+
+    private StubUpstreamServer countriesServer;
+    private StubUpstreamServer ratesServer;
+    private ExecutorService executor;
+    private final UpstreamProperties properties = new UpstreamProperties();
+
+    @TempDir
+    Path lastKnownGoodDir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        countriesServer = new StubUpstreamServer().respondWith(COUNTRIES_JSON);
+        ratesServer = new StubUpstreamServer().respondWith(RATES_JSON);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        properties.getCountries().setUrl(countriesServer.url("/v2/all"));
+        properties.getExchangeRates().setUrl(ratesServer.url("/v6/latest/USD"));
+        properties.setLastKnownGoodDir(lastKnownGoodDir.toString());
+        properties.getCountries().setRetryBackoff(Duration.ofMillis(10));
+        properties.getExchangeRates().setRetryBackoff(Duration.ofMillis(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        countriesServer.close();
+        ratesServer.close();
+        executor.close();
+    }
+
+    private UpstreamFetchService service() {
+        return new UpstreamFetchService(
+                restTemplate(properties.getCountries()), restTemplate(properties.getExchangeRates()), properties, executor,
+                new ObjectMapper(), ObservationRegistry.NOOP, new SimpleMeterRegistry());
+    }
+
+    private static RestTemplate restTemplate(UpstreamProperties.Endpoint endpoint) {
+        return AppConfig.restTemplate(new RestTemplateBuilder(), endpoint);
+    }
+
+    @Test
+    void fetchesBothUpstreamsConcurrently() throws Exception {
+        UpstreamFetchService service = service();
+        service.fetch(); // warm up HTTP and JSON machinery
+
+        countriesServer.delay(Duration.ofMillis(800));
+        ratesServer.delay(Duration.ofMillis(800));
+
+        long start = System.nanoTime();
+        UpstreamFetchService.UpstreamData data = service.fetch();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(names(data.countries())).containsExactly("Nigeria");
+        assertThat(data.exchangeRates().getRates()).containsEntry("NGN", 1600.23);
+        assertThat(elapsedMillis).isGreaterThanOrEqualTo(800).isLessThan(1500);
+    }
+
+    @Test
+    void streamingModeSpoolsAndParsesTheFeed() throws Exception {
+        properties.setStreaming(true);
+
+        UpstreamFetchService.UpstreamData data = service().fetch();
+        List<Country> countries = new ArrayList<>();
+        try (CountryFeed feed = data.countries()) {
+            feed.forEachChunk(10, countries::addAll);
+        }
+
+        assertThat(countries).singleElement().satisfies(country -> {
+            assertThat(country.getName()).isEqualTo("Nigeria");
+            assertThat(country.getPopulation()).isEqualTo(206139589L);
+            assertThat(country.getCurrencyCode()).isEqualTo("NGN");
+            assertThat(country.getFlagUrl()).isEqualTo("https://flagcdn.com/ng.svg");
+        });
+    }
+
+    @Test
+    void malformedSpooledBodyKeepsThePreviousLastKnownGoodPayload() throws Exception {
+        properties.setStreaming(true);
+        UpstreamFetchService service = service();
+        try (CountryFeed feed = service.fetch().countries()) {
+            assertThat(names(feed)).containsExactly("Nigeria");
+        }
+
+        countriesServer.respondWith("[{\"name\":\"Ghana\",\"capital\":");
+        try (CountryFeed feed = service.fetch().countries()) {
+            assertThatThrownBy(() -> names(feed)).isInstanceOf(IOException.class);
+        }
+
+        countriesServer.status(500);
+        UpstreamFetchService.UpstreamData data = service.fetch();
+        assertThat(data.lastKnownGood()).containsExactly(UpstreamFetchService.COUNTRIES_API);
+        try (CountryFeed feed = data.countries()) {
+            assertThat(names(feed)).containsExactly("Nigeria");
+        }
+    }
+
+    @Test
+    void readTimeoutIsReportedPerUpstream() {
+        properties.getExchangeRates().setReadTimeout(Duration.ofMillis(200));
+        ratesServer.delay(Duration.ofSeconds(2));
+
+        assertThatThrownBy(() -> service().fetch())
+                .isInstanceOf(UpstreamUnavailableException.class)
+                .hasMessage("Could not fetch data from Exchange Rate API");
+        assertThat(ratesServer.requestCount()).isEqualTo(3);
+    }
+
+    @Test
+    void retriesTransientFailures() {
+        ratesServer.failNext(2, 503);
+
+        UpstreamFetchService.UpstreamData data = service().fetch();
+
+        assertThat(data.exchangeRates().getRates()).containsEntry("NGN", 1600.23);
+        assertThat(data.lastKnownGood()).isEmpty();
+        assertThat(ratesServer.requestCount()).isEqualTo(3);
+    }
+
+    @Test
+    void clientErrorsAreNotRetried() {
+        ratesServer.failNext(1, 404);
+
+        assertThatThrownBy(() -> service().fetch()).isInstanceOf(UpstreamUnavailableException.class);
+        assertThat(ratesServer.requestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void fallsBackToTheLastKnownGoodPayloadOfOneUpstream() throws Exception {
+        UpstreamFetchService service = service();
+        service.fetch().countries().close();
+
+        ratesServer.status(500);
+        UpstreamFetchService.UpstreamData data = service.fetch();
+        assertThat(data.lastKnownGood()).containsExactly(UpstreamFetchService.EXCHANGE_RATE_API);
+        assertThat(data.exchangeRates().getTimeLastUpdateUtc()).isEqualTo("Wed, 22 Oct 2025 00:02:31 +0000");
+        assertThat(data.exchangeRates().getRates()).containsEntry("NGN", 1600.23);
+        assertThat(names(data.countries())).containsExactly("Nigeria");
+
+        ratesServer.status(200);
+        countriesServer.status(500);
+        data = service.fetch();
+        assertThat(data.lastKnownGood()).containsExactly(UpstreamFetchService.COUNTRIES_API);
+        try (CountryFeed feed = data.countries()) {
+            assertThat(names(feed)).containsExactly("Nigeria");
+        }
+
+        // With both down there is nothing fresh to apply
+        ratesServer.status(500);
+        assertThatThrownBy(service::fetch)
+                .isInstanceOf(UpstreamUnavailableException.class)
+                .hasMessage("Could not fetch data from RestCountries API and Exchange Rate API");
+    }
+
+    @Test
+    void openCircuitStopsCallingTheUpstream() {
+        properties.getExchangeRates().setMaxAttempts(1);
+        properties.getExchangeRates().setSlidingWindowSize(4);
+        UpstreamFetchService service = service();
+        ratesServer.status(500);
+
+        for (int i = 0; i < 6; i++) {
+            assertThatThrownBy(service::fetch).isInstanceOf(UpstreamUnavailableException.class);
+        }
+
+        assertThat(ratesServer.requestCount()).isEqualTo(4);
+    }
+
+    private static List<String> names(CountryFeed feed) throws IOException {
+        List<String> names = new ArrayList<>();
+        feed.forEachChunk(100, chunk -> chunk.forEach(country -> names.add(country.getName())));
+        return names;
+    }
+}
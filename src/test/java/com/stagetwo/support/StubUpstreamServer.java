@@ -0,0 +1,91 @@
+package com.stagetwo.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for an external JSON API. Serves a fixed body after a configurable delay so
+ * tests can reproduce slow or failing upstreams.
+ */
+public class StubUpstreamServer implements AutoCloseable {
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile byte[] body = new byte[0];
+    private volatile Duration delay = Duration.ZERO;
+    private volatile int status = 200;
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private volatile int failureStatus = 503;
+
+    public StubUpstreamServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public StubUpstreamServer respondWith(String json) {
+        this.body = json.getBytes(StandardCharsets.UTF_8);
+        return this;
+    }
+
+    public StubUpstreamServer delay(Duration delay) {
+        this.delay = delay;
+        return this;
+    }
+
+    public StubUpstreamServer status(int status) {
+        this.status = status;
+        return this;
+    }
+
+    /**
+     * Answers the next {@code count} requests with {@code failureStatus} and an empty body.
+     */
+    public StubUpstreamServer failNext(int count, int failureStatus) {
+        this.failureStatus = failureStatus;
+        this.failuresLeft.set(count);
+        return this;
+    }
+
+    public String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    public int requestCount() {
+        return requests.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            Thread.sleep(delay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        boolean fail = failuresLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0;
+        byte[] response = fail ? new byte[0] : body;
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(fail ? failureStatus : status, response.length > 0 ? response.length : -1);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        } catch (IOException e) {
+            // client gave up (e.g. read timeout)
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}